@@ -79,6 +79,9 @@ public class DefaultAppServer implements AppServer {
     //cleanup interval for caches
     protected final int CACHE_CLEANUP_INTERVAL = 60000;
 
+    //interval in milliseconds, in which load of this app server is published to gateways
+    protected final int LOAD_REPORT_INTERVAL = 1000;
+
     //number of threads
     protected int eventLoopPoolSize = 2;
     protected int workerPoolSize = 2;
@@ -200,6 +203,9 @@ public class DefaultAppServer implements AppServer {
             }
         }, this.permissionService);
 
+        //publish load, so gateways send requests to the least loaded app server of a route
+        this.context.getLoadReporter().start(LOAD_REPORT_INTERVAL);
+
         //add event listeners to cleanup cache
         this.vertx.eventBus().consumer("cleanup-cache", res -> {
             JsonObject json = (JsonObject) res.body();
@@ -311,6 +317,9 @@ public class DefaultAppServer implements AppServer {
     public void shutdown() {
         this.logger.info("shutdown_app_server", "Shutdown application server: " + this.clusterManager.getNodeID());
 
+        //gateways shouldnt choose this app server anymore
+        this.context.getLoadReporter().stop();
+
         this.vertx.close(res -> {
             if (res.succeeded()) {
                 System.out.println("app server was shutting down successfully.");
@@ -5,6 +5,7 @@ import com.jukusoft.erp.lib.cache.CacheManager;
 import com.jukusoft.erp.lib.message.StatusCode;
 import com.jukusoft.erp.lib.message.request.ApiRequest;
 import com.jukusoft.erp.lib.message.response.ApiResponse;
+import com.jukusoft.erp.lib.push.PushTopics;
 import com.jukusoft.erp.lib.route.Route;
 import com.jukusoft.erp.lib.controller.AbstractController;
 import io.vertx.core.AsyncResult;
@@ -12,6 +13,7 @@ import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.eventbus.Message;
 import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
 
 import java.util.List;
 
@@ -34,6 +36,9 @@ public class CacheController extends AbstractController {
             cacheArray.add(cacheName);
         }
 
+        //menus are read from database again, so clients should reload them
+        publish(PushTopics.MENUS, new JsonObject().put("reason", "cache-cleared"));
+
         response.setStatusCode(StatusCode.OK);
         response.getData().put("caches", cacheArray);
         handler.handle(Future.succeededFuture(response));
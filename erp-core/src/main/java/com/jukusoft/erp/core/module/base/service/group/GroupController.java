@@ -2,10 +2,12 @@ package com.jukusoft.erp.core.module.base.service.group;
 
 import com.jukusoft.data.entity.GroupMember;
 import com.jukusoft.data.repository.GroupRepository;
+import com.jukusoft.erp.lib.annotation.Idempotent;
 import com.jukusoft.erp.lib.database.InjectRepository;
 import com.jukusoft.erp.lib.message.StatusCode;
 import com.jukusoft.erp.lib.message.request.ApiRequest;
 import com.jukusoft.erp.lib.message.response.ApiResponse;
+import com.jukusoft.erp.lib.push.PushTopics;
 import com.jukusoft.erp.lib.route.Route;
 import com.jukusoft.erp.lib.controller.AbstractController;
 import io.vertx.core.AsyncResult;
@@ -22,6 +24,7 @@ public class GroupController extends AbstractController {
     @InjectRepository
     protected GroupRepository groupRepository;
 
+    @Idempotent
     @Route(routes = "/list-my-groups")
     public void listMyGroups (Message<ApiRequest> event, ApiRequest req, ApiResponse response, Handler<AsyncResult<ApiResponse>> handler) {
         //first get user ID
@@ -59,10 +62,14 @@ public class GroupController extends AbstractController {
             response.getData().put("group_count", groupList.size());
             response.getData().put("groups", array);
 
+            //groups of user change rarely, so clients can ask with their version, if groups were changed
+            response.setETag(ApiResponse.createETag(response.getData()), PushTopics.getUserTopic(userID));
+
             handler.handle(Future.succeededFuture(response));
         });
     }
 
+    @Idempotent
     @Route(routes = "/list-my-groupIDs")
     public void listMyGroupIDs (Message<ApiRequest> event, ApiRequest req, ApiResponse response, Handler<AsyncResult<ApiResponse>> handler) {
         //first get user ID
@@ -90,6 +97,8 @@ public class GroupController extends AbstractController {
             response.getData().put("group_count", groupIDs.length);
             response.getData().put("groupIDs", array);
 
+            response.setETag(ApiResponse.createETag(response.getData()), PushTopics.getUserTopic(userID));
+
             handler.handle(Future.succeededFuture(response));
         });
     }
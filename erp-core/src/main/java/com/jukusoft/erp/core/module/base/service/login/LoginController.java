@@ -6,6 +6,7 @@ import com.jukusoft.erp.lib.database.InjectRepository;
 import com.jukusoft.erp.lib.message.StatusCode;
 import com.jukusoft.erp.lib.message.request.ApiRequest;
 import com.jukusoft.erp.lib.message.response.ApiResponse;
+import com.jukusoft.erp.lib.push.PushTopics;
 import com.jukusoft.erp.lib.route.Route;
 import com.jukusoft.erp.lib.controller.AbstractController;
 import com.jukusoft.erp.lib.session.Session;
@@ -13,6 +14,7 @@ import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.eventbus.Message;
+import io.vertx.core.json.JsonObject;
 
 public class LoginController extends AbstractController {
 
@@ -22,7 +24,7 @@ public class LoginController extends AbstractController {
     @Route(routes = "/try-login")
     public void tryLogin (Message<ApiRequest> event, ApiRequest req, ApiResponse response, Handler<AsyncResult<ApiResponse>> handler) {
         //validate username
-        if (!req.getData().has("username")) {
+        if (!req.has("username")) {
             getLogger().warn(req.getMessageID(), "failed_login", "username wasnt set.");
 
             response.setStatusCode(StatusCode.BAD_REQUEST);
@@ -31,10 +33,10 @@ public class LoginController extends AbstractController {
         }
 
         //get username
-        String username = req.getData().getString("username");
+        String username = req.getString("username");
 
         //get password
-        if (!req.getData().has("password")) {
+        if (!req.has("password")) {
             getLogger().warn(req.getMessageID(), "failed_login", "password wasnt set.");
 
             response.setStatusCode(StatusCode.BAD_REQUEST);
@@ -43,7 +45,7 @@ public class LoginController extends AbstractController {
         }
 
         //get password
-        String password = req.getData().getString("password");
+        String password = req.getString("password");
 
         getLogger().info(req.getMessageID(), "try_login", "try login '" + username + "' (IP: " + req.getIP() + ").");
 
@@ -90,13 +92,17 @@ public class LoginController extends AbstractController {
                     getLogger().info(req.getMessageID(), "login", "Login user successfully: " + username + " (userID: " + user.getUserID() + ").");
 
                     //get session
-                    Session session = getContext().getSessionManager().getSession(req.getSessionID());
+                    Session session = getSession(req);
 
                     //set logged in state
                     session.login(user.getUserID(), user.getUsername());
 
                     //save session
                     session.flush();
+                    response.setSessionChanged(true);
+
+                    //notify clients of this session
+                    publishSessionState(session);
 
                     generateSuccessMessage("Login successful!", session.getUserID(), session.getUsername(), response);
                     handler.handle(Future.succeededFuture(response));
@@ -114,7 +120,7 @@ public class LoginController extends AbstractController {
     @Route(routes = {"/isloggedin", "/is-logged-in"})
     public void isLoggedIn (Message<ApiRequest> event, ApiRequest req, ApiResponse response, Handler<AsyncResult<ApiResponse>> handler) {
         //get session
-        Session session = getContext().getSessionManager().getSession(req.getSessionID());
+        Session session = getSession(req);
 
         response.getData().put("is-logged-in", session.isLoggedIn());
         response.getData().put("userID", session.getUserID());
@@ -126,7 +132,7 @@ public class LoginController extends AbstractController {
     @Route(routes = "/logout")
     public void logout (Message<ApiRequest> event, ApiRequest req, ApiResponse response, Handler<AsyncResult<ApiResponse>> handler) {
         //get session
-        Session session = getContext().getSessionManager().getSession(req.getSessionID());
+        Session session = getSession(req);
 
         response.setStatusCode(StatusCode.OK);
         response.getData().put("state", "logged-out");
@@ -144,10 +150,23 @@ public class LoginController extends AbstractController {
 
         //save session
         session.flush();
+        response.setSessionChanged(true);
+
+        //notify clients of this session
+        publishSessionState(session);
 
         handler.handle(Future.succeededFuture(response));
     }
 
+    protected void publishSessionState (Session session) {
+        JsonObject json = new JsonObject();
+        json.put("is-logged-in", session.isLoggedIn());
+        json.put("userID", session.getUserID());
+        json.put("username", session.getUsername());
+
+        publish(PushTopics.getSessionTopic(session.getSessionID()), json);
+    }
+
     protected void generateFailedMessage (String message, ApiResponse response) {
         response.setStatusCode(StatusCode.OK);
         response.getData().put("login_state", "failed");
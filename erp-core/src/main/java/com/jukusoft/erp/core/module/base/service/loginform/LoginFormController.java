@@ -8,6 +8,7 @@ import io.vertx.core.eventbus.Message;
 
 public class LoginFormController extends AbstractController {
 
+    //not idempotent: form contains the session id of the caller
     @Route(routes = "/login-form")
     public ApiResponse loginForm (Message<ApiRequest> event, ApiRequest req, ApiResponse res) {
         res.setType(ApiResponse.RESPONSE_TYPE.CONTENT);
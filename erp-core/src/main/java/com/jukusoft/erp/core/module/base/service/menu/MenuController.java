@@ -1,10 +1,12 @@
 package com.jukusoft.erp.core.module.base.service.menu;
 
 import com.jukusoft.data.repository.MenuRepository;
+import com.jukusoft.erp.lib.annotation.Idempotent;
 import com.jukusoft.erp.lib.database.InjectRepository;
 import com.jukusoft.erp.lib.message.StatusCode;
 import com.jukusoft.erp.lib.message.request.ApiRequest;
 import com.jukusoft.erp.lib.message.response.ApiResponse;
+import com.jukusoft.erp.lib.push.PushTopics;
 import com.jukusoft.erp.lib.route.Route;
 import com.jukusoft.erp.lib.controller.AbstractController;
 import io.vertx.core.AsyncResult;
@@ -20,10 +22,11 @@ public class MenuController extends AbstractController {
     @InjectRepository
     protected MenuRepository menuRepository;
 
+    @Idempotent
     @Route(routes = "/list-menus")
     public void listMenus (Message<ApiRequest> event, ApiRequest req, ApiResponse response, Handler<AsyncResult<ApiResponse>> handler) {
         //first, check if request contains menuID
-        if (!req.getData().has("menuID")) {
+        if (!req.has("menuID")) {
             response.setStatusCode(StatusCode.BAD_REQUEST);
 
             //log
@@ -36,7 +39,7 @@ public class MenuController extends AbstractController {
         }
 
         //get menuID
-        int menuID = req.getData().getInt("menuID");
+        int menuID = req.getInt("menuID");
 
         //list menus from database
         menuRepository.listMenusByMenuID(menuID, Sync.fiberHandler(res -> {
@@ -103,6 +106,10 @@ public class MenuController extends AbstractController {
 
             response.setStatusCode(StatusCode.OK);
             response.getData().put("menu", menuArray);
+
+            //menus change rarely, so clients can ask with their version, if menus were changed
+            response.setETag(ApiResponse.createETag(response.getData()), PushTopics.MENUS, PushTopics.getUserTopic(req.getUserID()));
+
             handler.handle(Future.succeededFuture(response));
         }));
     }
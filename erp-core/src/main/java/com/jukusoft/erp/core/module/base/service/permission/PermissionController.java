@@ -1,6 +1,7 @@
 package com.jukusoft.erp.core.module.base.service.permission;
 
 import com.jukusoft.data.repository.PermissionRepository;
+import com.jukusoft.erp.lib.annotation.Idempotent;
 import com.jukusoft.erp.lib.database.InjectRepository;
 import com.jukusoft.erp.lib.message.StatusCode;
 import com.jukusoft.erp.lib.message.request.ApiRequest;
@@ -17,6 +18,7 @@ public class PermissionController extends AbstractController {
     @InjectRepository
     protected PermissionRepository permissionRepository;
 
+    @Idempotent
     @Route(routes = "/list-my-permissions")
     public void listPermissions (Message<ApiRequest> event, ApiRequest req, ApiResponse response, Handler<AsyncResult<ApiResponse>> handler) {
         //first get userID
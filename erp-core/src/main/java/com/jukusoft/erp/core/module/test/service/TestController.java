@@ -1,16 +1,20 @@
 package com.jukusoft.erp.core.module.test.service;
 
+import com.jukusoft.erp.lib.annotation.Idempotent;
 import com.jukusoft.erp.lib.annotation.LoginRequired;
 import com.jukusoft.erp.lib.message.request.ApiRequest;
 import com.jukusoft.erp.lib.message.response.ApiResponse;
 import com.jukusoft.erp.lib.route.Route;
 import com.jukusoft.erp.lib.controller.AbstractController;
+import com.jukusoft.erp.lib.stream.ResponseStream;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Handler;
 import io.vertx.core.eventbus.Message;
+import io.vertx.core.json.JsonObject;
 
 public class TestController extends AbstractController {
 
+    @Idempotent
     @Route(routes = "/")
     public ApiResponse homePage (Message<ApiRequest> event, ApiRequest req, ApiResponse res) {
         res.getData().put("content", "Hi! This is an internal api.");
@@ -30,4 +34,38 @@ public class TestController extends AbstractController {
         event.reply(res);
     }
 
+    @Route(routes = "/stream-test")
+    public void streamTest (Message<ApiRequest> event, ApiRequest req, ApiResponse res, Handler<AsyncResult<ApiResponse>> handler) {
+        //number of rows, which should be streamed
+        int count = Math.min(req.has("rows") ? req.getInt("rows") : 1000, 1000000);
+
+        res.getData().put("rows", count);
+
+        //send header, rows are sent incrementally
+        ResponseStream stream = openStream(event, res);
+
+        this.writeRows(stream, 0, count);
+    }
+
+    protected void writeRows (ResponseStream stream, int start, int count) {
+        for (int i = start; i < count; i++) {
+            if (stream.isClosed()) {
+                //client is gone
+                return;
+            }
+
+            if (stream.writeQueueFull()) {
+                //wait until gateway has requested the buffered rows
+                final int next = i;
+                stream.drainHandler(v -> this.writeRows(stream, next, count));
+
+                return;
+            }
+
+            stream.write(new JsonObject().put("index", i));
+        }
+
+        stream.end();
+    }
+
 }
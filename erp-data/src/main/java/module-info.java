@@ -1,6 +1,5 @@
 module erp.data {
     requires erp.library;
-    requires json;
     requires vertx.sql.common;
     requires vertx.core;
 
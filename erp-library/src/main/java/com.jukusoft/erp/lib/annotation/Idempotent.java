@@ -0,0 +1,21 @@
+package com.jukusoft.erp.lib.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+* This annotation marks routes, which dont change anything and whose response only depends on event, data and permissions of the user.
+ * Api gateways send concurrent identical requests of these routes only once and share the response.
+ *
+ * A route is only idempotent, if its response doesnt depend on the session (e.q. doesnt contain the session id),
+ * because gateways share responses between sessions of the same user and between all guests.
+*/
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Idempotent {
+
+    //
+
+}
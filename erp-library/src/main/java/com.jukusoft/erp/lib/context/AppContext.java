@@ -3,10 +3,12 @@ package com.jukusoft.erp.lib.context;
 import com.hazelcast.core.HazelcastInstance;
 import com.jukusoft.erp.lib.cache.CacheManager;
 import com.jukusoft.erp.lib.database.DatabaseManager;
+import com.jukusoft.erp.lib.load.LoadReporter;
 import com.jukusoft.erp.lib.logging.ILogging;
 import com.jukusoft.erp.lib.message.request.ApiRequest;
 import com.jukusoft.erp.lib.permission.PermissionManager;
 import com.jukusoft.erp.lib.permission.PermissionService;
+import com.jukusoft.erp.lib.route.RouteRegistry;
 import com.jukusoft.erp.lib.session.SessionManager;
 import io.vertx.core.Vertx;
 
@@ -30,6 +32,20 @@ public interface AppContext {
     */
     public SessionManager getSessionManager ();
 
+    /**
+    * get cluster-wide route registry
+     *
+     * @return instance of route registry
+    */
+    public RouteRegistry getRouteRegistry ();
+
+    /**
+    * get load reporter of this app server
+     *
+     * @return instance of load reporter
+    */
+    public LoadReporter getLoadReporter ();
+
     /**
     * get instance of database manager
      *
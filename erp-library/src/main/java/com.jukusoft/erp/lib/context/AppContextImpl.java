@@ -4,10 +4,13 @@ import com.hazelcast.core.HazelcastInstance;
 import com.jukusoft.erp.lib.cache.CacheManager;
 import com.jukusoft.erp.lib.context.AppContext;
 import com.jukusoft.erp.lib.database.DatabaseManager;
+import com.jukusoft.erp.lib.load.LoadRegistry;
+import com.jukusoft.erp.lib.load.LoadReporter;
 import com.jukusoft.erp.lib.logging.ILogging;
 import com.jukusoft.erp.lib.message.request.ApiRequest;
 import com.jukusoft.erp.lib.permission.PermissionManager;
 import com.jukusoft.erp.lib.permission.PermissionService;
+import com.jukusoft.erp.lib.route.RouteRegistry;
 import com.jukusoft.erp.lib.session.SessionManager;
 import io.vertx.core.Vertx;
 import io.vertx.core.json.JsonArray;
@@ -37,6 +40,12 @@ public class AppContextImpl implements AppContext {
 
     protected PermissionService permissionService = null;
 
+    //cluster-wide route registry
+    protected RouteRegistry routeRegistry = null;
+
+    //measures and publishes load of this app server
+    protected LoadReporter loadReporter = null;
+
     public AppContextImpl (Vertx vertx, ILogging logger, HazelcastInstance hazelcastInstance, SessionManager sessionManager, DatabaseManager dbManager, CacheManager cacheManager, PermissionManager permissionManager, PermissionService permissionService) {
         if (vertx == null) {
             throw new NullPointerException("vertx cannot be null.");
@@ -78,6 +87,8 @@ public class AppContextImpl implements AppContext {
         this.cacheManager = cacheManager;
         this.permissionManager = permissionManager;
         this.permissionService = permissionService;
+        this.routeRegistry = RouteRegistry.createHzRouteRegistry(hazelcastInstance);
+        this.loadReporter = new LoadReporter(vertx, LoadRegistry.createHzLoadRegistry(hazelcastInstance), hazelcastInstance.getCluster().getLocalMember().getUuid());
     }
 
     @Override
@@ -124,6 +135,16 @@ public class AppContextImpl implements AppContext {
         this.permissionManager = permissionManager;
     }
 
+    @Override
+    public RouteRegistry getRouteRegistry() {
+        return this.routeRegistry;
+    }
+
+    @Override
+    public LoadReporter getLoadReporter() {
+        return this.loadReporter;
+    }
+
     @Override
     public PermissionService getPermissionService() {
         return this.permissionService;
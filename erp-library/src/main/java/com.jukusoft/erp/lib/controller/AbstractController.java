@@ -2,8 +2,15 @@ package com.jukusoft.erp.lib.controller;
 
 import com.jukusoft.erp.lib.context.AppContext;
 import com.jukusoft.erp.lib.logging.ILogging;
+import com.jukusoft.erp.lib.message.request.ApiRequest;
+import com.jukusoft.erp.lib.message.response.ApiResponse;
+import com.jukusoft.erp.lib.push.PushTopics;
+import com.jukusoft.erp.lib.session.Session;
+import com.jukusoft.erp.lib.stream.ResponseStream;
 import io.vertx.core.Vertx;
 import io.vertx.core.eventbus.EventBus;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.json.JsonObject;
 
 public class AbstractController implements IController {
 
@@ -30,6 +37,47 @@ public class AbstractController implements IController {
         return this.vertx.eventBus();
     }
 
+    /**
+     * publish update to all clients, which have subscribed to the topic (server push)
+     *
+     * @param topic name of topic
+     * @param data update
+     */
+    public void publish (String topic, JsonObject data) {
+        PushTopics.publish(this.vertx, topic, data);
+    }
+
+    /**
+     * reply with a streaming response, rows are sent to the client incrementally.
+     * The handler of the route must not be called afterwards.
+     *
+     * @param event message of api request
+     * @param response response header (status code, data), which is sent before the rows
+     *
+     * @return response stream
+     */
+    public ResponseStream openStream (Message<ApiRequest> event, ApiResponse response) {
+        return ResponseStream.open(event, response);
+    }
+
+    /**
+     * get session of request. Anonymous clients use transient guest sessions, which arent written to cache until {@link Session#flush()} is called.
+     *
+     * @param req api request
+     *
+     * @return session of request
+     */
+    public Session getSession (ApiRequest req) {
+        Session session = this.context.getSessionManager().getSession(req.getSessionID());
+
+        if (session == null) {
+            //session id was issued by gateway, but session wasnt written yet
+            session = this.context.getSessionManager().createGuestSession(req.getSessionID());
+        }
+
+        return session;
+    }
+
     public AppContext getContext () {
         return this.context;
     }
@@ -12,7 +12,7 @@ import io.vertx.ext.sql.ResultSet;
 import io.vertx.ext.sql.SQLClient;
 import io.vertx.ext.sql.SQLConnection;
 import io.vertx.ext.sql.UpdateResult;
-import org.json.JSONObject;
+import io.vertx.core.json.JsonObject;
 
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -49,24 +49,24 @@ public class MySQLDatabase implements Database {
 
         //read file content
         String content = FileUtils.readFile(configFile, StandardCharsets.UTF_8);
-        JSONObject json = new JSONObject(content);
+        JsonObject json = new JsonObject(content);
 
         //get mysql connection paramters
         String host = json.getString("host");
-        int port = json.getInt("port");
+        int port = json.getInteger("port");
         String username = json.getString("username");
         String password = json.getString("password");
         String database = json.getString("database");
         int maxPoolSize = 30;
 
-        if (json.has("max_pool_size")) {
-            maxPoolSize = json.getInt("max_pool_size");
+        if (json.containsKey("max_pool_size")) {
+            maxPoolSize = json.getInteger("max_pool_size");
         }
 
         String urlAdd = "&profileSQL=true";
         boolean logging = false;
 
-        if (json.has("logging")) {
+        if (json.containsKey("logging")) {
             logging = json.getBoolean("logging");
 
             if (!logging) {
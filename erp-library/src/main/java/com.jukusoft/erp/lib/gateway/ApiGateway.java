@@ -1,7 +1,6 @@
 package com.jukusoft.erp.lib.gateway;
 
 import com.jukusoft.erp.lib.message.request.ApiRequest;
-import org.json.JSONObject;
 
 public interface ApiGateway {
 
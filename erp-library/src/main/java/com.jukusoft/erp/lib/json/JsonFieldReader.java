@@ -0,0 +1,147 @@
+package com.jukusoft.erp.lib.json;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+* Reads a single top-level field of an encoded json object, without decoding the whole object.
+ *
+ * Values of other fields are skipped by the streaming parser, only the requested value is decoded.
+ * The buffer isnt copied, the parser reads it in chunks and stops at the requested field.
+*/
+public class JsonFieldReader {
+
+    //returned, if field doesnt exists
+    public static final Object MISSING = new Object();
+
+    //json factory is thread-safe
+    protected static final JsonFactory FACTORY = new JsonFactory();
+
+    protected JsonFieldReader () {
+        //
+    }
+
+    /**
+    * read value of top-level field
+     *
+     * @param json UTF-8 encoded json object
+     * @param key name of field
+     *
+     * @throws DecodeException if json isnt a valide json object
+     *
+     * @return value (String, Integer, Long, Double, Boolean, JsonObject, JsonArray or null) or {@link #MISSING}, if field doesnt exists
+    */
+    public static Object readField (Buffer json, String key) {
+        try (JsonParser parser = FACTORY.createParser(new BufferInputStream(json))) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new DecodeException("json data isnt a json object.");
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+
+                if (!name.equals(key)) {
+                    //skip value, objects and arrays arent decoded
+                    parser.skipChildren();
+                    continue;
+                }
+
+                return readValue(parser, token, json);
+            }
+
+            return MISSING;
+        } catch (IOException e) {
+            throw new DecodeException("invalide json data: " + e.getMessage());
+        }
+    }
+
+    protected static Object readValue (JsonParser parser, JsonToken token, Buffer json) throws IOException {
+        switch (token) {
+            case VALUE_STRING:
+                return parser.getText();
+
+            case VALUE_NUMBER_INT:
+                if (parser.getNumberType() == JsonParser.NumberType.INT) {
+                    return parser.getIntValue();
+                }
+
+                return parser.getLongValue();
+
+            case VALUE_NUMBER_FLOAT:
+                return parser.getDoubleValue();
+
+            case VALUE_TRUE:
+                return true;
+
+            case VALUE_FALSE:
+                return false;
+
+            case VALUE_NULL:
+                return null;
+
+            case START_OBJECT:
+            case START_ARRAY:
+                //decode only bytes of this value
+                int start = (int) parser.getTokenLocation().getByteOffset();
+                parser.skipChildren();
+                int end = (int) parser.getCurrentLocation().getByteOffset();
+
+                Buffer value = json.getBuffer(start, end);
+
+                return token == JsonToken.START_OBJECT ? new JsonObject(value) : new JsonArray(value);
+
+            default:
+                throw new DecodeException("unexpected json token: " + token);
+        }
+    }
+
+    /**
+    * input stream, which reads the bytes of a buffer without copying the whole buffer
+    */
+    protected static class BufferInputStream extends InputStream {
+
+        protected final Buffer buffer;
+
+        //read position
+        protected int pos = 0;
+
+        protected BufferInputStream (Buffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read () {
+            if (this.pos >= this.buffer.length()) {
+                return -1;
+            }
+
+            return this.buffer.getByte(this.pos++) & 0xFF;
+        }
+
+        @Override
+        public int read (byte[] bytes, int offset, int length) {
+            if (this.pos >= this.buffer.length()) {
+                return -1;
+            }
+
+            int end = Math.min(this.pos + length, this.buffer.length());
+            this.buffer.getBytes(this.pos, end, bytes, offset);
+
+            int count = end - this.pos;
+            this.pos = end;
+
+            return count;
+        }
+
+    }
+
+}
@@ -1,7 +1,6 @@
 package com.jukusoft.erp.lib.json;
 
 import io.vertx.core.json.JsonObject;
-import org.json.JSONObject;
 
 /**
  * Created by Justin on 10.02.2017.
@@ -0,0 +1,51 @@
+package com.jukusoft.erp.lib.load;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.jukusoft.erp.lib.load.impl.HzLoadRegistry;
+
+import java.util.Collection;
+
+/**
+* Cluster-wide registry of load signals, which are published by app servers and read by api gateways.
+*/
+public interface LoadRegistry {
+
+    /**
+    * publish load of app server
+     *
+     * @param load load signals of app server
+     * @param ttl time in milliseconds, after which the load is removed, if it isnt published again
+    */
+    public void publish (NodeLoad load, long ttl);
+
+    /**
+    * remove load of app server, e.q. on shutdown
+     *
+     * @param nodeID node ID of app server
+    */
+    public void remove (String nodeID);
+
+    /**
+    * list load of all app servers
+     *
+     * @return load of app servers
+    */
+    public Collection<NodeLoad> listNodes ();
+
+    /**
+    * get address of route, which is only consumed by a specific app server
+     *
+     * @param event event name of route
+     * @param nodeID node ID of app server
+     *
+     * @return event bus address
+    */
+    public static String getNodeAddress (String event, String nodeID) {
+        return event + "@" + nodeID;
+    }
+
+    public static LoadRegistry createHzLoadRegistry (HazelcastInstance hazelcastInstance) {
+        return new HzLoadRegistry(hazelcastInstance);
+    }
+
+}
@@ -0,0 +1,148 @@
+package com.jukusoft.erp.lib.load;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.Message;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+* Measures the load of an app server (requests in flight, event loop lag, delay of worker queue)
+ * and publishes it periodically, so api gateways can send requests to the least loaded app server of a route.
+*/
+public class LoadReporter {
+
+    protected final Vertx vertx;
+    protected final LoadRegistry loadRegistry;
+    protected final String nodeID;
+
+    //requests, which were received but not answered yet
+    protected final AtomicInteger inFlightRequests = new AtomicInteger(0);
+
+    //routes, which are consumed on this node
+    protected final Set<String> routes = ConcurrentHashMap.newKeySet();
+
+    protected volatile long eventLoopLag = 0;
+    protected volatile long workerQueueDelay = 0;
+
+    //time, when the current worker probe was submitted (0, if no probe is waiting)
+    protected volatile long probeSubmitted = 0;
+
+    protected long timerID = -1;
+
+    /**
+    * default constructor
+     *
+     * @param vertx instance of vert.x
+     * @param loadRegistry cluster-wide load registry
+     * @param nodeID node ID of this app server
+    */
+    public LoadReporter (Vertx vertx, LoadRegistry loadRegistry, String nodeID) {
+        if (vertx == null) {
+            throw new NullPointerException("vertx cannot be null.");
+        }
+
+        if (loadRegistry == null) {
+            throw new NullPointerException("load registry cannot be null.");
+        }
+
+        if (nodeID == null || nodeID.isEmpty()) {
+            throw new NullPointerException("nodeID cannot be null or empty.");
+        }
+
+        this.vertx = vertx;
+        this.loadRegistry = loadRegistry;
+        this.nodeID = nodeID;
+    }
+
+    public String getNodeID () {
+        return this.nodeID;
+    }
+
+    /**
+    * add route, which is consumed on this node under its event name and its node address
+     *
+     * @param event event name
+    */
+    public void addRoute (String event) {
+        this.routes.add(event);
+    }
+
+    /**
+    * remove route, which isnt consumed on this node anymore
+     *
+     * @param event event name
+    */
+    public void removeRoute (String event) {
+        this.routes.remove(event);
+    }
+
+    /**
+    * count request as in flight, until it is answered
+     *
+     * @param message message of api request
+     *
+     * @return message, which has to be used to reply
+    */
+    public <T> Message<T> track (Message<T> message) {
+        this.inFlightRequests.incrementAndGet();
+
+        return new TrackedMessage<>(message, this.inFlightRequests::decrementAndGet);
+    }
+
+    public NodeLoad getLoad () {
+        long workerQueueDelay = this.workerQueueDelay;
+        long probeSubmitted = this.probeSubmitted;
+
+        if (probeSubmitted > 0) {
+            //probe is still waiting for a worker thread
+            workerQueueDelay = Math.max(workerQueueDelay, System.currentTimeMillis() - probeSubmitted);
+        }
+
+        return new NodeLoad(this.nodeID, Math.max(0, this.inFlightRequests.get()), this.eventLoopLag, workerQueueDelay, new HashSet<>(this.routes));
+    }
+
+    /**
+    * start to measure and publish load periodically
+     *
+     * @param interval interval in milliseconds, load is removed from registry after 3 intervals without update
+    */
+    public void start (long interval) {
+        final long[] nextTick = new long[] {System.currentTimeMillis() + interval};
+
+        this.timerID = this.vertx.setPeriodic(interval, id -> {
+            long now = System.currentTimeMillis();
+
+            //timers are delayed, if event loop is blocked or has too many tasks
+            this.eventLoopLag = Math.max(0, now - nextTick[0]);
+            nextTick[0] = now + interval;
+
+            if (this.probeSubmitted == 0) {
+                this.probeSubmitted = now;
+
+                this.vertx.executeBlocking(future -> {
+                    this.workerQueueDelay = System.currentTimeMillis() - this.probeSubmitted;
+                    this.probeSubmitted = 0;
+
+                    future.complete();
+                }, false, res -> {
+                    //
+                });
+            }
+
+            this.loadRegistry.publish(this.getLoad(), interval * 3);
+        });
+    }
+
+    public void stop () {
+        if (this.timerID != -1) {
+            this.vertx.cancelTimer(this.timerID);
+            this.timerID = -1;
+        }
+
+        this.loadRegistry.remove(this.nodeID);
+    }
+
+}
@@ -0,0 +1,89 @@
+package com.jukusoft.erp.lib.load;
+
+import com.jukusoft.erp.lib.json.JsonSerializable;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+* Load signals of an app server, which are published periodically in the cluster.
+*/
+public class NodeLoad implements JsonSerializable {
+
+    protected final String nodeID;
+
+    //number of requests, which were received but not answered yet
+    protected final int inFlightRequests;
+
+    //delay of event loop timers in milliseconds
+    protected final long eventLoopLag;
+
+    //time in milliseconds, which a blocking task waits for a worker thread
+    protected final long workerQueueDelay;
+
+    //event names of routes, which are registered on this node
+    protected final Set<String> routes;
+
+    public NodeLoad (String nodeID, int inFlightRequests, long eventLoopLag, long workerQueueDelay, Set<String> routes) {
+        if (nodeID == null || nodeID.isEmpty()) {
+            throw new NullPointerException("nodeID cannot be null or empty.");
+        }
+
+        if (routes == null) {
+            throw new NullPointerException("routes cannot be null.");
+        }
+
+        this.nodeID = nodeID;
+        this.inFlightRequests = inFlightRequests;
+        this.eventLoopLag = eventLoopLag;
+        this.workerQueueDelay = workerQueueDelay;
+        this.routes = Collections.unmodifiableSet(routes);
+    }
+
+    public String getNodeID () {
+        return this.nodeID;
+    }
+
+    public int getInFlightRequests () {
+        return this.inFlightRequests;
+    }
+
+    public long getEventLoopLag () {
+        return this.eventLoopLag;
+    }
+
+    public long getWorkerQueueDelay () {
+        return this.workerQueueDelay;
+    }
+
+    public Set<String> getRoutes () {
+        return this.routes;
+    }
+
+    @Override
+    public JsonObject toJSON() {
+        JsonObject json = new JsonObject();
+        json.put("nodeID", this.nodeID);
+        json.put("in_flight_requests", this.inFlightRequests);
+        json.put("event_loop_lag", this.eventLoopLag);
+        json.put("worker_queue_delay", this.workerQueueDelay);
+        json.put("routes", new JsonArray(new ArrayList<>(this.routes)));
+
+        return json;
+    }
+
+    public static NodeLoad createFromJSON (JsonObject json) {
+        Set<String> routes = new HashSet<>();
+
+        for (Object route : json.getJsonArray("routes")) {
+            routes.add((String) route);
+        }
+
+        return new NodeLoad(json.getString("nodeID"), json.getInteger("in_flight_requests"), json.getLong("event_loop_lag"), json.getLong("worker_queue_delay"), routes);
+    }
+
+}
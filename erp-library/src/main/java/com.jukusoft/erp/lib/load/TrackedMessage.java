@@ -0,0 +1,96 @@
+package com.jukusoft.erp.lib.load;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.MultiMap;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.Message;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+* Message, which calls a callback on its first reply (or failure), so requests in flight can be counted.
+*/
+public class TrackedMessage<T> implements Message<T> {
+
+    protected final Message<T> message;
+    protected final Runnable completeHandler;
+
+    protected final AtomicBoolean completed = new AtomicBoolean(false);
+
+    public TrackedMessage (Message<T> message, Runnable completeHandler) {
+        if (message == null) {
+            throw new NullPointerException("message cannot be null.");
+        }
+
+        if (completeHandler == null) {
+            throw new NullPointerException("complete handler cannot be null.");
+        }
+
+        this.message = message;
+        this.completeHandler = completeHandler;
+    }
+
+    @Override
+    public String address() {
+        return this.message.address();
+    }
+
+    @Override
+    public MultiMap headers() {
+        return this.message.headers();
+    }
+
+    @Override
+    public T body() {
+        return this.message.body();
+    }
+
+    @Override
+    public String replyAddress() {
+        return this.message.replyAddress();
+    }
+
+    @Override
+    public boolean isSend() {
+        return this.message.isSend();
+    }
+
+    @Override
+    public void reply(Object message) {
+        this.complete();
+        this.message.reply(message);
+    }
+
+    @Override
+    public <R> void reply(Object message, Handler<AsyncResult<Message<R>>> replyHandler) {
+        this.complete();
+        this.message.reply(message, replyHandler);
+    }
+
+    @Override
+    public void reply(Object message, DeliveryOptions options) {
+        this.complete();
+        this.message.reply(message, options);
+    }
+
+    @Override
+    public <R> void reply(Object message, DeliveryOptions options, Handler<AsyncResult<Message<R>>> replyHandler) {
+        this.complete();
+        this.message.reply(message, options, replyHandler);
+    }
+
+    @Override
+    public void fail(int failureCode, String message) {
+        this.complete();
+        this.message.fail(failureCode, message);
+    }
+
+    protected void complete () {
+        //handlers can reply more than once (e.q. error response and failure)
+        if (this.completed.compareAndSet(false, true)) {
+            this.completeHandler.run();
+        }
+    }
+
+}
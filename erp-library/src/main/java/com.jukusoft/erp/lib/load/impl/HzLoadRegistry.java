@@ -0,0 +1,53 @@
+package com.jukusoft.erp.lib.load.impl;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.ReplicatedMap;
+import com.jukusoft.erp.lib.load.LoadRegistry;
+import com.jukusoft.erp.lib.load.NodeLoad;
+import io.vertx.core.json.JsonObject;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class HzLoadRegistry implements LoadRegistry {
+
+    //encoded load per node ID, every app server only writes its own entry and gateways read the map locally
+    protected ReplicatedMap<String,String> loadMap = null;
+
+    /**
+    * default constructor
+     *
+     * @param hazelcastInstance instance of hazelcast
+    */
+    public HzLoadRegistry (HazelcastInstance hazelcastInstance) {
+        if (hazelcastInstance == null) {
+            throw new NullPointerException("hazelcast instance cannot be null.");
+        }
+
+        this.loadMap = hazelcastInstance.getReplicatedMap("node-load");
+    }
+
+    @Override
+    public void publish(NodeLoad load, long ttl) {
+        this.loadMap.put(load.getNodeID(), load.toJSON().encode(), ttl, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void remove(String nodeID) {
+        this.loadMap.remove(nodeID);
+    }
+
+    @Override
+    public Collection<NodeLoad> listNodes() {
+        List<NodeLoad> list = new ArrayList<>();
+
+        for (String value : this.loadMap.values()) {
+            list.add(NodeLoad.createFromJSON(new JsonObject(value)));
+        }
+
+        return list;
+    }
+
+}
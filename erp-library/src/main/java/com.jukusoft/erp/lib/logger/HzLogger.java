@@ -3,7 +3,7 @@ package com.jukusoft.erp.lib.logger;
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.core.ITopic;
 import com.jukusoft.erp.lib.logging.ILogging;
-import org.json.JSONObject;
+import io.vertx.core.json.JsonObject;
 
 public class HzLogger implements ILogging {
 
@@ -64,7 +64,7 @@ public class HzLogger implements ILogging {
     }
 
     protected void log (String logLevel, long messageID, String tag, String message) {
-        JSONObject json = new JSONObject();
+        JsonObject json = new JsonObject();
 
         if (messageID != -1) {
             json.put("is_message_log", true);
@@ -77,7 +77,7 @@ public class HzLogger implements ILogging {
         json.put("tag", tag);
         json.put("message", message);
 
-        this.loggerTopic.publish(json.toString());
+        this.loggerTopic.publish(json.encode());
 
         //also log to console
         if (messageID == -1) {
@@ -6,6 +6,8 @@ public enum StatusCode {
 
     OK(200),
 
+    NOT_MODIFIED(304),
+
     BAD_REQUEST(400),
 
     WRONG_SESSION(400),
@@ -39,6 +41,10 @@ public enum StatusCode {
 
                 return OK;
 
+            case "NOT_MODIFIED":
+
+                return NOT_MODIFIED;
+
             case "BAD_REQUEST":
 
                 return BAD_REQUEST;
@@ -0,0 +1,97 @@
+package com.jukusoft.erp.lib.message;
+
+import io.vertx.core.buffer.Buffer;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+* Helpers for binary event bus codecs: primitives are written as they are, strings are length-prefixed (UTF-8).
+*/
+public class WireFormat {
+
+    protected WireFormat () {
+        //
+    }
+
+    /**
+    * append length-prefixed string, string is encoded only once
+     *
+     * @param buffer buffer
+     * @param str string, can be null
+    */
+    public static void appendString (Buffer buffer, String str) {
+        if (str == null) {
+            buffer.appendInt(-1);
+            return;
+        }
+
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+
+        buffer.appendInt(bytes.length);
+        buffer.appendBytes(bytes);
+    }
+
+    /**
+    * Reads a binary message, which was written with {@link WireFormat}.
+    */
+    public static class Reader {
+
+        protected final Buffer buffer;
+
+        //current read position
+        protected int position;
+
+        public Reader (Buffer buffer, int position) {
+            if (buffer == null) {
+                throw new NullPointerException("buffer cannot be null.");
+            }
+
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        public byte readByte () {
+            byte value = this.buffer.getByte(this.position);
+            this.position += 1;
+
+            return value;
+        }
+
+        public int readInt () {
+            int value = this.buffer.getInt(this.position);
+            this.position += 4;
+
+            return value;
+        }
+
+        public long readLong () {
+            long value = this.buffer.getLong(this.position);
+            this.position += 8;
+
+            return value;
+        }
+
+        public String readString () {
+            int length = this.readInt();
+
+            if (length < 0) {
+                return null;
+            }
+
+            String value = this.buffer.getString(this.position, this.position + length, "UTF-8");
+            this.position += length;
+
+            return value;
+        }
+
+        public int getPosition () {
+            return this.position;
+        }
+
+        public void setPosition (int position) {
+            this.position = position;
+        }
+
+    }
+
+}
@@ -1,10 +1,10 @@
 package com.jukusoft.erp.lib.message.request;
 
 import com.jukusoft.erp.lib.exception.HandlerException;
+import com.jukusoft.erp.lib.json.JsonFieldReader;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -14,8 +14,15 @@ public class ApiRequest {
     //name of event
     protected String eventName = "";
 
-    //json data
-    protected JSONObject data = null;
+    //json data, null if it wasnt decoded yet
+    protected JsonObject data = null;
+
+    //json data as it was received from event bus, decoded on first call of getData() (typed getters only read the requested field)
+    protected Buffer encodedData = null;
+
+    //last field, which was read from encoded data (e.q. checkParam() followed by getInt())
+    protected String readKey = null;
+    protected Object readValue = null;
 
     protected String ackID = "";
 
@@ -26,7 +33,7 @@ public class ApiRequest {
     protected String externalID = "";
 
     //meta information
-    protected JSONObject meta = new JSONObject();
+    protected JsonObject meta = new JsonObject();
     protected String sessionID = "";
     protected boolean isLoggedIn = false;
     protected long userID = -1;
@@ -40,7 +47,7 @@ public class ApiRequest {
      * @param event event name
      * @param data json data
     */
-    public ApiRequest (String event, JSONObject data, long messageID, String externalID, String sessionID, boolean isLoggedIn, long userID) {
+    public ApiRequest (String event, JsonObject data, long messageID, String externalID, String sessionID, boolean isLoggedIn, long userID) {
         this.eventName = event;
         this.data = data;
         this.messageID = messageID;
@@ -58,79 +65,167 @@ public class ApiRequest {
         return this.eventName;
     }
 
-    public JSONObject getData () {
+    /**
+    * get json data, data which was received from event bus is decoded on first call
+     *
+     * @return json data
+    */
+    public JsonObject getData () {
+        if (this.data == null) {
+            this.data = this.encodedData != null ? new JsonObject(this.encodedData) : new JsonObject();
+            this.encodedData = null;
+        }
+
         return this.data;
     }
 
+    /**
+    * get json data as UTF-8 encoded bytes, data which wasnt decoded yet isnt encoded again
+     *
+     * @return encoded json data
+    */
+    public Buffer getEncodedData () {
+        if (this.data == null) {
+            return this.encodedData != null ? this.encodedData : new JsonObject().toBuffer();
+        }
+
+        return this.data.toBuffer();
+    }
+
+    /**
+    * set encoded json data, which is decoded on first access
+     *
+     * @param encodedData UTF-8 encoded json object
+    */
+    public void setEncodedData (Buffer encodedData) {
+        if (encodedData == null) {
+            throw new NullPointerException("encoded data cannot be null.");
+        }
+
+        this.data = null;
+        this.encodedData = encodedData;
+        this.readKey = null;
+        this.readValue = null;
+    }
+
+    /**
+    * get value of a field of json data. If data wasnt decoded yet, only the first requested field is read, data is decoded if another field is requested.
+     *
+     * @param key key of param
+     *
+     * @return value or {@link JsonFieldReader#MISSING}, if param doesnt exists
+    */
+    protected Object getValue (String key) {
+        if (this.data == null && this.encodedData != null) {
+            if (key.equals(this.readKey)) {
+                return this.readValue;
+            }
+
+            if (this.readKey == null) {
+                //first field is read without decoding the whole data
+                this.readValue = JsonFieldReader.readField(this.encodedData, key);
+                this.readKey = key;
+
+                return this.readValue;
+            }
+
+            //handler reads multiple fields, so decode data once instead of scanning it for every field
+        }
+
+        JsonObject json = this.getData();
+
+        return json.containsKey(key) ? json.getValue(key) : JsonFieldReader.MISSING;
+    }
+
+    /**
+    * check, if param exists
+     *
+     * @param key key of param
+     *
+     * @return true, if param exists
+    */
+    public boolean has (String key) {
+        return this.getValue(key) != JsonFieldReader.MISSING;
+    }
+
     /**
     * check, if param exists, else throw an exception
      *
      * @param key key of param
     */
     public void checkParam (String key) throws HandlerException {
-        if (!getData().has(key)) {
+        if (!this.has(key)) {
             throw new HandlerException("key doesnt exists: " + key);
         }
     }
 
+    protected Object getParam (String key) {
+        Object value = this.getValue(key);
+
+        if (value == JsonFieldReader.MISSING) {
+            throw new HandlerException("key doesnt exists: " + key);
+        }
+
+        return value;
+    }
+
     public int getInt (String key) {
-        checkParam(key);
+        Object value = this.getParam(key);
 
         try {
-            return getData().getInt(key);
-        } catch (JSONException e) {
+            //HTTP parameters are strings
+            return value instanceof Number ? ((Number) value).intValue() : Integer.parseInt((String) value);
+        } catch (ClassCastException | NumberFormatException e) {
             throw new HandlerException("key '" + key + "' is not an integer.");
         }
     }
 
     public double getDouble (String key) {
-        checkParam(key);
+        Object value = this.getParam(key);
 
         try {
-            return getData().getDouble(key);
-        } catch (JSONException e) {
+            return value instanceof Number ? ((Number) value).doubleValue() : Double.parseDouble((String) value);
+        } catch (ClassCastException | NumberFormatException | NullPointerException e) {
             throw new HandlerException("key '" + key + "' is not an double.");
         }
     }
 
     public float getFloat (String key) {
-        checkParam(key);
-
         try {
-            return (float) getData().getDouble(key);
-        } catch (JSONException e) {
+            return (float) this.getDouble(key);
+        } catch (HandlerException e) {
             throw new HandlerException("key '" + key + "' is not an float.");
         }
     }
 
     public String getString (String key) {
-        checkParam(key);
+        Object value = this.getParam(key);
 
-        try {
-            return getData().getString(key);
-        } catch (JSONException e) {
+        if (!(value instanceof String)) {
             throw new HandlerException("key '" + key + "' is not an string.");
         }
+
+        return (String) value;
     }
 
-    public JSONObject getJsonObject (String key) {
-        checkParam(key);
+    public JsonObject getJsonObject (String key) {
+        Object value = this.getParam(key);
 
-        try {
-            return getData().getJSONObject(key);
-        } catch (JSONException e) {
+        if (!(value instanceof JsonObject)) {
             throw new HandlerException("key '" + key + "' is not an json object.");
         }
+
+        return (JsonObject) value;
     }
 
-    public JSONArray getJsonArray (String key) {
-        checkParam(key);
+    public JsonArray getJsonArray (String key) {
+        Object value = this.getParam(key);
 
-        try {
-            return getData().getJSONArray(key);
-        } catch (JSONException e) {
+        if (!(value instanceof JsonArray)) {
             throw new HandlerException("key '" + key + "' is not an json array.");
         }
+
+        return (JsonArray) value;
     }
 
     public long getMessageID () {
@@ -141,7 +236,7 @@ public class ApiRequest {
         return this.externalID;
     }
 
-    public JSONObject getMeta () {
+    public JsonObject getMeta () {
         return this.meta;
     }
 
@@ -174,16 +269,16 @@ public class ApiRequest {
     }
 
     public int getPort () {
-        return getMeta().getInt("port");
+        return getMeta().getInteger("port");
     }
 
     @Override
     public String toString () {
-        if (data.has("password")) {
+        if (this.has("password")) {
             //dont log data to hide password
             return "api request (event: " + eventName + ", messageID: " + messageID + ", data: *********)";
         } else {
-            return "api request (event: " + eventName + ", messageID: " + messageID + ", data: " + this.data.toString() + ")";
+            return "api request (event: " + eventName + ", messageID: " + messageID + ", data: " + this.getEncodedData().toString("UTF-8") + ")";
         }
     }
 
@@ -1,87 +1,95 @@
 package com.jukusoft.erp.lib.message.request;
 
+import com.jukusoft.erp.lib.message.WireFormat;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.eventbus.MessageCodec;
-import io.vertx.core.json.JsonArray;
-import org.json.JSONArray;
-import org.json.JSONObject;
+import io.vertx.core.json.JsonObject;
+
+/**
+* Binary event bus codec of api requests.
+ *
+ * Layout: version (byte), flags (byte), message id (long), user id (long), event, ackID, external id, session id (length-prefixed strings),
+ * number of permissions (int) and permissions, json data (length-prefixed, decoded lazily) and meta information (length-prefixed json).
+ * All nodes of the cluster have to use the same {@link #VERSION}.
+*/
+public class ApiRequestCodec implements MessageCodec<ApiRequest, ApiRequest> {
 
-import java.util.ArrayList;
+    //version of binary format, has to be incremented on every change of the layout
+    public static final byte VERSION = 1;
 
-public class ApiRequestCodec implements MessageCodec<ApiRequest, ApiRequest> {
+    //flags
+    protected static final byte FLAG_LOGGED_IN = 1;
 
     @Override
     public void encodeToWire(Buffer buffer, ApiRequest req) {
-        //create new json object
-        JSONObject json = new JSONObject();
-
-        //put data
-        json.put("event", req.eventName);
-        json.put("data", req.data);
-        json.put("ackID", req.ackID);
-        json.put("cluster-message-id", req.getMessageID());
-        json.put("ack-id", req.getExternalID());
-        json.put("meta", req.meta);
-        json.put("session-id", req.sessionID);
-        json.put("is-logged-in", req.isLoggedIn);
-        json.put("user-id", req.userID);
-
-        //put permissions
-        JSONArray permArray = new JSONArray();
+        //header
+        buffer.appendByte(VERSION);
+        buffer.appendByte(req.isLoggedIn ? FLAG_LOGGED_IN : 0);
 
-        for (String permission : req.permissions) {
-            permArray.put(permission);
-        }
+        //fixed fields
+        buffer.appendLong(req.messageID);
+        buffer.appendLong(req.userID);
 
-        json.put("permissions", permArray);
+        WireFormat.appendString(buffer, req.eventName);
+        WireFormat.appendString(buffer, req.ackID);
+        WireFormat.appendString(buffer, req.externalID);
+        WireFormat.appendString(buffer, req.sessionID);
 
-        //encode json object to string
-        String jsonToStr = json.toString();
+        //permissions
+        buffer.appendInt(req.permissions.size());
 
-        // Length of JSON: is NOT characters count
-        int length = jsonToStr.getBytes().length;
+        for (String permission : req.permissions) {
+            WireFormat.appendString(buffer, permission);
+        }
 
-        // Write data into given buffer
-        buffer.appendInt(length);
-        buffer.appendString(jsonToStr);
+        //json payload (length-prefixed), data which wasnt decoded (e.q. forwarded request) isnt encoded again
+        Buffer data = req.getEncodedData();
+        buffer.appendInt(data.length());
+        buffer.appendBuffer(data);
+
+        req.meta.writeToBuffer(buffer);
     }
 
     @Override
     public ApiRequest decodeFromWire(int position, Buffer buffer) {
-        // My custom message starting from this *position* of buffer
-        int _pos = position;
+        WireFormat.Reader reader = new WireFormat.Reader(buffer, position);
+
+        byte version = reader.readByte();
 
-        // Length of JSON
-        int length = buffer.getInt(_pos);
+        if (version != VERSION) {
+            throw new IllegalStateException("unsupported version of api request codec: " + version + " (expected version: " + VERSION + ").");
+        }
 
-        // Get JSON string by it`s length
-        // Jump 4 because getInt() == 4 bytes
-        String jsonStr = buffer.getString(_pos+=4, _pos+=length);
-        JSONObject json = new JSONObject(jsonStr);
+        byte flags = reader.readByte();
 
         ApiRequest req = new ApiRequest();
 
-        req.eventName = json.getString("event");
-        req.data = json.getJSONObject("data");
-        req.ackID = json.getString("ackID");
-        req.messageID = json.getLong("cluster-message-id");
-        req.externalID = json.getString("ack-id");
-        req.meta = json.getJSONObject("meta");
-        req.sessionID = json.getString("session-id");
-        req.isLoggedIn = json.getBoolean("is-logged-in");
-        req.userID = json.getLong("user-id");
+        req.isLoggedIn = (flags & FLAG_LOGGED_IN) != 0;
+        req.messageID = reader.readLong();
+        req.userID = reader.readLong();
 
-        JSONArray permArray = json.getJSONArray("permissions");
+        req.eventName = reader.readString();
+        req.ackID = reader.readString();
+        req.externalID = reader.readString();
+        req.sessionID = reader.readString();
 
         //clear old permissions
         req.permissions.clear();
 
-        for (int i = 0; i < permArray.length(); i++) {
-            String permission = permArray.getString(i);
+        int permissions = reader.readInt();
 
-            req.permissions.add(permission);
+        for (int i = 0; i < permissions; i++) {
+            req.permissions.add(reader.readString());
         }
 
+        //json data is only decoded, if it's accessed
+        int length = reader.readInt();
+        req.setEncodedData(buffer.getBuffer(reader.getPosition(), reader.getPosition() + length));
+        reader.setPosition(reader.getPosition() + length);
+
+        req.meta = new JsonObject();
+        req.meta.readFromBuffer(reader.getPosition(), buffer);
+
         return req;
     }
 
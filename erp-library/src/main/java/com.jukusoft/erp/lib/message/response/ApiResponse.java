@@ -1,7 +1,10 @@
 package com.jukusoft.erp.lib.message.response;
 
 import com.jukusoft.erp.lib.message.StatusCode;
+import com.jukusoft.erp.lib.utils.HashUtils;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.ReadStream;
 
 public class ApiResponse {
 
@@ -11,6 +14,9 @@ public class ApiResponse {
     //json data
     protected JsonObject data = new JsonObject();
 
+    //json data as it was received from event bus, only decoded if data is accessed (gateway writes it to clients without parsing)
+    protected Buffer encodedData = null;
+
     protected String ackID = "";
 
     protected StatusCode statusCode = StatusCode.OK;
@@ -23,12 +29,24 @@ public class ApiResponse {
     //meta information
     protected String sessionID = "";
 
+    //version of response data, clients which already have this version get a not modified reply
+    protected String etag = null;
+
+    //push topics, which invalidate this version (gateway can answer conditional requests until then)
+    protected String[] etagTopics = new String[0];
+
+    //flag, if request has changed the session (e.q. login), so gateway drops its cached copy before the reply is sent
+    protected boolean sessionChanged = false;
+
     public enum RESPONSE_TYPE {
-        JSON, CONTENT
+        JSON, CONTENT, STREAM
     }
 
     protected RESPONSE_TYPE type = RESPONSE_TYPE.JSON;
 
+    //rows of a streaming response, only set on api gateway (isnt sent over event bus)
+    protected ReadStream<JsonObject> stream = null;
+
     public ApiResponse (long messageID, String externalID, String sessionID, String eventName) {
         this.messageID = messageID;
         this.externalID = externalID;
@@ -41,11 +59,45 @@ public class ApiResponse {
     }
 
     public JsonObject getData () {
+        if (this.data == null) {
+            //decode data on first access
+            this.data = new JsonObject(this.encodedData);
+            this.encodedData = null;
+        }
+
         return this.data;
     }
 
     public void setData (JsonObject json) {
         this.data = json;
+        this.encodedData = null;
+    }
+
+    /**
+    * get json data as UTF-8 encoded bytes. Data, which was received from event bus and wasnt accessed yet, isnt encoded again.
+     *
+     * @return encoded json data
+    */
+    public Buffer getEncodedData () {
+        if (this.data == null) {
+            return this.encodedData;
+        }
+
+        return this.data.toBuffer();
+    }
+
+    /**
+    * set encoded json data, which is decoded on first access of {@link #getData()}
+     *
+     * @param encodedData UTF-8 encoded json object
+    */
+    public void setEncodedData (Buffer encodedData) {
+        if (encodedData == null) {
+            throw new NullPointerException("encoded data cannot be null.");
+        }
+
+        this.data = null;
+        this.encodedData = encodedData;
     }
 
     public void setResult (String res) {
@@ -119,6 +171,83 @@ public class ApiResponse {
         return this.sessionID;
     }
 
+    /**
+    * copy response for another request with the same event and data (e.q. coalesced requests), encoded data is shared
+     *
+     * @param messageID message id of other request
+     * @param externalID external id of other request
+     * @param sessionID session id of other request
+     *
+     * @return copy of response
+    */
+    public ApiResponse copy (long messageID, String externalID, String sessionID) {
+        ApiResponse res = new ApiResponse(messageID, externalID, sessionID, this.eventName);
+
+        if (this.data != null) {
+            res.data = this.data.copy();
+        } else {
+            res.data = null;
+            res.encodedData = this.encodedData;
+        }
+
+        res.ackID = this.ackID;
+        res.statusCode = this.statusCode;
+        res.etag = this.etag;
+        res.etagTopics = this.etagTopics;
+        res.sessionChanged = this.sessionChanged;
+        res.type = this.type;
+
+        return res;
+    }
+
+    /**
+    * set version of response data (ETag), so clients can send conditional requests
+     *
+     * @param etag version of response data
+     * @param invalidationTopics push topics, which are published if data of this route changes
+    */
+    public void setETag (String etag, String... invalidationTopics) {
+        if (etag == null) {
+            throw new NullPointerException("etag cannot be null.");
+        }
+
+        this.etag = etag;
+        this.etagTopics = invalidationTopics;
+    }
+
+    public String getETag () {
+        return this.etag;
+    }
+
+    public String[] getETagTopics () {
+        return this.etagTopics;
+    }
+
+    /**
+    * create version (ETag) of json data
+     *
+     * @param data json data
+     *
+     * @return hash of json data
+    */
+    public static String createETag (JsonObject data) {
+        return HashUtils.computeMD5Hash(data.encode());
+    }
+
+    /**
+    * mark session of request as changed, has to be called after {@link com.jukusoft.erp.lib.session.Session#flush()},
+     * so the next request of the client doesnt use an outdated copy of the session
+     *
+     * @param sessionChanged true, if session was changed
+    */
+    public void setSessionChanged (boolean sessionChanged) {
+        this.sessionChanged = sessionChanged;
+    }
+
+    public boolean isSessionChanged () {
+        return this.sessionChanged;
+    }
+
     public RESPONSE_TYPE getType() {
         return this.type;
     }
@@ -127,6 +256,14 @@ public class ApiResponse {
         this.type = type;
     }
 
+    public ReadStream<JsonObject> getStream () {
+        return this.stream;
+    }
+
+    public void setStream (ReadStream<JsonObject> stream) {
+        this.stream = stream;
+    }
+
     public static RESPONSE_TYPE getTypeByString (String str) {
         switch (str.toLowerCase()) {
             case "json":
@@ -135,6 +272,9 @@ public class ApiResponse {
             case "content":
                 return RESPONSE_TYPE.CONTENT;
 
+            case "stream":
+                return RESPONSE_TYPE.STREAM;
+
             default:
                 throw new IllegalArgumentException("Unknown type: " + str);
         }
@@ -142,7 +282,7 @@ public class ApiResponse {
 
     @Override
     public String toString () {
-        return "api response (event: " + eventName + ", messageID: " + messageID + ", statusCode: " + statusCode.name() + ", data: " + this.data.toString() + ")";
+        return "api response (event: " + eventName + ", messageID: " + messageID + ", statusCode: " + statusCode.name() + ", data: " + (this.data != null ? this.data.toString() : this.encodedData.toString("UTF-8")) + ")";
     }
 
 }
@@ -1,63 +1,104 @@
 package com.jukusoft.erp.lib.message.response;
 
 import com.jukusoft.erp.lib.message.StatusCode;
+import com.jukusoft.erp.lib.message.WireFormat;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.eventbus.MessageCodec;
-import io.vertx.core.json.JsonObject;
 
+/**
+* Binary event bus codec of api responses.
+ *
+ * Layout: version (byte), flags (byte), message id (long), status code (byte, ordinal), type (byte, ordinal),
+ * event, ackID, external id, session id (length-prefixed strings), json data (length-prefixed, decoded lazily), optional ETag and its topics.
+ * All nodes of the cluster have to use the same {@link #VERSION}.
+*/
 public class ApiResponseCodec implements MessageCodec<ApiResponse, ApiResponse> {
 
+    //version of binary format, has to be incremented on every change of the layout (or of StatusCode / RESPONSE_TYPE)
+    public static final byte VERSION = 1;
+
+    //flags
+    protected static final byte FLAG_ETAG = 1;
+    protected static final byte FLAG_SESSION_CHANGED = 2;
+
+    protected static final StatusCode[] STATUS_CODES = StatusCode.values();
+    protected static final ApiResponse.RESPONSE_TYPE[] TYPES = ApiResponse.RESPONSE_TYPE.values();
+
     @Override
     public void encodeToWire(Buffer buffer, ApiResponse res) {
-        //create new json object
-        JsonObject json = new JsonObject();
-
-        if (res.data == null) {
+        if (res.data == null && res.encodedData == null) {
             throw new NullPointerException("json data of api response '" + res.getClass().getSimpleName() + "' cannot be null.");
         }
 
-        //put data
-        json.put("event", res.eventName);
-        json.put("data", res.data);
-        json.put("ackID", res.ackID);
-        json.put("statusCode", res.getStatusCode());
-        json.put("cluster-message-id", res.getMessageID());
-        json.put("external-id", res.getExternalID());
-        json.put("session-id", res.getSessionID());
-        json.put("type", res.getType());
-
-        //encode json object to string
-        String jsonToStr = json.toString();
-
-        // Length of JSON: is NOT characters count
-        int length = jsonToStr.getBytes().length;
-
-        // Write data into given buffer
-        buffer.appendInt(length);
-        buffer.appendString(jsonToStr);
+        //header
+        buffer.appendByte(VERSION);
+        buffer.appendByte((byte) ((res.etag != null ? FLAG_ETAG : 0) | (res.sessionChanged ? FLAG_SESSION_CHANGED : 0)));
+
+        //fixed fields
+        buffer.appendLong(res.messageID);
+        buffer.appendByte((byte) res.statusCode.ordinal());
+        buffer.appendByte((byte) res.type.ordinal());
+
+        WireFormat.appendString(buffer, res.eventName);
+        WireFormat.appendString(buffer, res.ackID);
+        WireFormat.appendString(buffer, res.getExternalID());
+        WireFormat.appendString(buffer, res.getSessionID());
+
+        //json payload (length-prefixed), data which wasnt decoded (e.q. forwarded response) isnt encoded again
+        Buffer data = res.getEncodedData();
+        buffer.appendInt(data.length());
+        buffer.appendBuffer(data);
+
+        if (res.etag != null) {
+            WireFormat.appendString(buffer, res.etag);
+            buffer.appendInt(res.etagTopics.length);
+
+            for (String topic : res.etagTopics) {
+                WireFormat.appendString(buffer, topic);
+            }
+        }
     }
 
     @Override
     public ApiResponse decodeFromWire(int position, Buffer buffer) {
-        // My custom message starting from this *position* of buffer
-        int _pos = position;
+        WireFormat.Reader reader = new WireFormat.Reader(buffer, position);
+
+        byte version = reader.readByte();
+
+        if (version != VERSION) {
+            throw new IllegalStateException("unsupported version of api response codec: " + version + " (expected version: " + VERSION + ").");
+        }
 
-        // Length of JSON
-        int length = buffer.getInt(_pos);
+        byte flags = reader.readByte();
+        long messageID = reader.readLong();
+        StatusCode statusCode = STATUS_CODES[reader.readByte()];
+        ApiResponse.RESPONSE_TYPE type = TYPES[reader.readByte()];
 
-        // Get JSON string by it`s length
-        // Jump 4 because getInt() == 4 bytes
-        String jsonStr = buffer.getString(_pos+=4, _pos+=length);
-        JsonObject json = new JsonObject(jsonStr);
+        String event = reader.readString();
+        String ackID = reader.readString();
+        String externalID = reader.readString();
+        String sessionID = reader.readString();
 
-        ApiResponse res = new ApiResponse(json.getLong("cluster-message-id"), json.getString("external-id"), json.getString("session-id"), json.getString("event"));
+        ApiResponse res = new ApiResponse(messageID, externalID, sessionID, event);
 
-        res.eventName = json.getString("event");
-        res.data = json.getJsonObject("data");
-        res.ackID = json.getString("ackID");
-        res.statusCode = StatusCode.getByString(json.getString("statusCode"));
-        res.messageID = json.getLong("cluster-message-id");
-        res.type = ApiResponse.getTypeByString(json.getString("type"));
+        res.ackID = ackID;
+        res.statusCode = statusCode;
+        res.type = type;
+        res.sessionChanged = (flags & FLAG_SESSION_CHANGED) != 0;
+
+        //json data is only decoded, if it's accessed
+        int length = reader.readInt();
+        res.setEncodedData(buffer.getBuffer(reader.getPosition(), reader.getPosition() + length));
+        reader.setPosition(reader.getPosition() + length);
+
+        if ((flags & FLAG_ETAG) != 0) {
+            res.etag = reader.readString();
+            res.etagTopics = new String[reader.readInt()];
+
+            for (int i = 0; i < res.etagTopics.length; i++) {
+                res.etagTopics[i] = reader.readString();
+            }
+        }
 
         return res;
     }
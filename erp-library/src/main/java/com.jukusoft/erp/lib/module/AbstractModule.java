@@ -1,5 +1,6 @@
 package com.jukusoft.erp.lib.module;
 
+import com.jukusoft.erp.lib.annotation.Idempotent;
 import com.jukusoft.erp.lib.annotation.InjectLogger;
 import com.jukusoft.erp.lib.annotation.LoginRequired;
 import com.jukusoft.erp.lib.annotation.PermissionRequired;
@@ -11,6 +12,8 @@ import com.jukusoft.erp.lib.database.*;
 import com.jukusoft.erp.lib.exception.HandlerException;
 import com.jukusoft.erp.lib.exception.RequiredRepositoryNotFoundException;
 import com.jukusoft.erp.lib.exception.RequiredServiceNotFoundException;
+import com.jukusoft.erp.lib.load.LoadRegistry;
+import com.jukusoft.erp.lib.load.LoadReporter;
 import com.jukusoft.erp.lib.logging.ILogging;
 import com.jukusoft.erp.lib.message.StatusCode;
 import com.jukusoft.erp.lib.message.request.ApiRequest;
@@ -18,6 +21,7 @@ import com.jukusoft.erp.lib.message.response.ApiResponse;
 import com.jukusoft.erp.lib.route.Route;
 import com.jukusoft.erp.lib.route.RouteHandler;
 import com.jukusoft.erp.lib.route.RouteHandlerWithoutReturn;
+import com.jukusoft.erp.lib.route.RouteInfo;
 import com.jukusoft.erp.lib.controller.IController;
 import com.jukusoft.erp.lib.service.IService;
 import com.jukusoft.erp.lib.service.InjectService;
@@ -27,11 +31,14 @@ import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
 import io.vertx.core.eventbus.EventBus;
 import io.vertx.core.eventbus.Message;
+import io.vertx.core.eventbus.MessageConsumer;
 import io.vertx.ext.sync.Sync;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -49,6 +56,9 @@ public abstract class AbstractModule implements IModule {
     //map with all services
     protected Map<Class<?>,IService> serviceMap = new ConcurrentHashMap<>();
 
+    //consumers per event name of routes, which are registered by this module
+    protected Map<String,List<MessageConsumer<ApiRequest>>> routeConsumers = new ConcurrentHashMap<>();
+
     @Override
     public Vertx getVertx() {
         return this.vertx;
@@ -430,8 +440,14 @@ public abstract class AbstractModule implements IModule {
     }
 
     private <T extends IController> void registerHandler (String eventName, T page, Method method) {
+        //gateways coalesce requests of idempotent routes and reject requests of guests, if login is required
+        RouteInfo route = new RouteInfo(eventName, method.isAnnotationPresent(Idempotent.class), method.isAnnotationPresent(LoginRequired.class));
+
         //register handler
-        getEventBus().consumer(eventName, Sync.fiberHandler((Message<ApiRequest> event) -> {
+        this.consumeRoute(route, Sync.fiberHandler((Message<ApiRequest> message) -> {
+            //request is in flight, until it is answered
+            Message<ApiRequest> event = this.context.getLoadReporter().track(message);
+
             try {
                 getLogger().debug(event.body().getMessageID(), "consume_message", "consume message: " + event.body());
 
@@ -583,7 +599,10 @@ public abstract class AbstractModule implements IModule {
         }
 
         //register route
-        getEventBus().consumer(eventName, Sync.fiberHandler((Message<ApiRequest> event) -> {
+        this.consumeRoute(new RouteInfo(eventName, false, false), Sync.fiberHandler((Message<ApiRequest> message) -> {
+            //request is in flight, until it is answered
+            Message<ApiRequest> event = this.context.getLoadReporter().track(message);
+
             try {
                 //get message
                 ApiRequest req = event.body();
@@ -631,6 +650,43 @@ public abstract class AbstractModule implements IModule {
         }));
     }
 
+    /**
+    * consume route under its event name and under the address of this node, so load-aware gateways can choose the app server,
+     * and register route in cluster-wide route registry
+     *
+     * @param route route
+     * @param handler handler of route
+    */
+    protected void consumeRoute (RouteInfo route, Handler<Message<ApiRequest>> handler) {
+        LoadReporter loadReporter = this.context.getLoadReporter();
+
+        List<MessageConsumer<ApiRequest>> consumers = this.routeConsumers.computeIfAbsent(route.getEvent(), event -> new ArrayList<>());
+        consumers.add(getEventBus().consumer(route.getEvent(), handler));
+        consumers.add(getEventBus().consumer(LoadRegistry.getNodeAddress(route.getEvent(), loadReporter.getNodeID()), handler));
+
+        //publish route with the next load report
+        loadReporter.addRoute(route.getEvent());
+
+        this.context.getRouteRegistry().register(route);
+    }
+
+    /**
+    * remove routes of this module from cluster and unregister their consumers
+    */
+    protected void unregisterRoutes () {
+        for (Map.Entry<String,List<MessageConsumer<ApiRequest>>> entry : this.routeConsumers.entrySet()) {
+            //gateways shouldnt send new requests, before consumers are unregistered
+            this.context.getRouteRegistry().unregister(entry.getKey());
+            this.context.getLoadReporter().removeRoute(entry.getKey());
+
+            for (MessageConsumer<ApiRequest> consumer : entry.getValue()) {
+                consumer.unregister();
+            }
+        }
+
+        this.routeConsumers.clear();
+    }
+
     /**
     * add route, but dont use an return statement
      *
@@ -674,6 +730,7 @@ public abstract class AbstractModule implements IModule {
     @Override
     public void stop(Handler<Future<Void>> handler) throws Exception {
         try {
+            this.unregisterRoutes();
             this.stop();
             handler.handle(Future.succeededFuture());
         } catch (Exception e) {
@@ -0,0 +1,73 @@
+package com.jukusoft.erp.lib.push;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+
+/**
+* Topics for server push messages.
+ *
+ * Modules publish updates to a topic, every api gateway relays them to the clients, which have subscribed to this topic.
+ * The topics "session" and "user" are private, clients can only subscribe to the topic of their own session / user.
+*/
+public class PushTopics {
+
+    //prefix of event bus addresses of push topics
+    public static final String ADDRESS_PREFIX = "push.";
+
+    //menus were changed
+    public static final String MENUS = "menus";
+
+    //state of a session was changed (login, logout)
+    public static final String SESSION = "session";
+
+    //data of a user was changed (permissions, groups)
+    public static final String USER = "user";
+
+    /**
+    * get event bus address of topic
+     *
+     * @param topic name of topic
+     *
+     * @return event bus address
+    */
+    public static String getAddress (String topic) {
+        return ADDRESS_PREFIX + topic;
+    }
+
+    public static String getSessionTopic (String sessionID) {
+        return SESSION + "." + sessionID;
+    }
+
+    public static String getUserTopic (long userID) {
+        return USER + "." + userID;
+    }
+
+    /**
+    * get name of topic, which is visible for clients (private topics without session id / user id)
+     *
+     * @param topic name of topic
+     *
+     * @return public name of topic
+    */
+    public static String getPublicName (String topic) {
+        if (topic.startsWith(SESSION + ".")) {
+            return SESSION;
+        } else if (topic.startsWith(USER + ".")) {
+            return USER;
+        }
+
+        return topic;
+    }
+
+    /**
+    * publish update to all clients, which have subscribed to the topic
+     *
+     * @param vertx instance of vert.x
+     * @param topic name of topic
+     * @param data update
+    */
+    public static void publish (Vertx vertx, String topic, JsonObject data) {
+        vertx.eventBus().publish(getAddress(topic), data);
+    }
+
+}
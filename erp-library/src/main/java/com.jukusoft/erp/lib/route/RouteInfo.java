@@ -0,0 +1,55 @@
+package com.jukusoft.erp.lib.route;
+
+import com.jukusoft.erp.lib.json.JsonSerializable;
+import io.vertx.core.json.JsonObject;
+
+/**
+* Route, which is registered by an app server in the cluster-wide route registry.
+*/
+public class RouteInfo implements JsonSerializable {
+
+    protected final String event;
+
+    //route is marked with @Idempotent
+    protected final boolean idempotent;
+
+    //route is marked with @LoginRequired
+    protected final boolean loginRequired;
+
+    public RouteInfo (String event, boolean idempotent, boolean loginRequired) {
+        if (event == null || event.isEmpty()) {
+            throw new NullPointerException("event cannot be null or empty.");
+        }
+
+        this.event = event;
+        this.idempotent = idempotent;
+        this.loginRequired = loginRequired;
+    }
+
+    public String getEvent () {
+        return this.event;
+    }
+
+    public boolean isIdempotent () {
+        return this.idempotent;
+    }
+
+    public boolean isLoginRequired () {
+        return this.loginRequired;
+    }
+
+    @Override
+    public JsonObject toJSON() {
+        JsonObject json = new JsonObject();
+        json.put("event", this.event);
+        json.put("idempotent", this.idempotent);
+        json.put("login_required", this.loginRequired);
+
+        return json;
+    }
+
+    public static RouteInfo createFromJSON (JsonObject json) {
+        return new RouteInfo(json.getString("event"), json.getBoolean("idempotent", false), json.getBoolean("login_required", false));
+    }
+
+}
@@ -0,0 +1,49 @@
+package com.jukusoft.erp.lib.route;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.jukusoft.erp.lib.route.impl.HzRouteRegistry;
+
+/**
+* Cluster-wide registry of routes, which are registered by app servers and read by api gateways.
+*/
+public interface RouteRegistry {
+
+    /**
+    * register route of this app server
+     *
+     * @param route route
+    */
+    public void register (RouteInfo route);
+
+    /**
+    * remove route of this app server, e.q. if module is undeployed
+     *
+     * @param event event name of route
+    */
+    public void unregister (String event);
+
+    /**
+    * get route, which is registered by at least one app server.
+     * If app servers registered the route differently (e.q. while a module is updated), the route is only idempotent, if it is idempotent on every app server,
+     * and login is required, if it is required on any app server.
+     *
+     * @param event event name
+     *
+     * @return route or null, if no app server registered the route
+    */
+    public RouteInfo getRoute (String event);
+
+    /**
+    * check, if route is idempotent, so concurrent identical requests can be coalesced
+     *
+     * @param event event name
+     *
+     * @return true, if route is registered and idempotent
+    */
+    public boolean isIdempotent (String event);
+
+    public static RouteRegistry createHzRouteRegistry (HazelcastInstance hazelcastInstance) {
+        return new HzRouteRegistry(hazelcastInstance);
+    }
+
+}
@@ -0,0 +1,152 @@
+package com.jukusoft.erp.lib.route.impl;
+
+import com.hazelcast.core.EntryAdapter;
+import com.hazelcast.core.EntryEvent;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.MembershipAdapter;
+import com.hazelcast.core.MembershipEvent;
+import com.hazelcast.core.ReplicatedMap;
+import com.jukusoft.erp.lib.route.RouteInfo;
+import com.jukusoft.erp.lib.route.RouteRegistry;
+import io.vertx.core.json.JsonObject;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class HzRouteRegistry implements RouteRegistry {
+
+    //encoded route per key "<event>|<nodeID>", every app server only writes its own routes
+    protected ReplicatedMap<String,String> routeMap = null;
+
+    //node ID of this cluster member
+    protected final String nodeID;
+
+    //decoded routes per event name and node ID, updated by entry listener, so requests are checked without decoding json
+    protected final Map<String,Map<String,RouteInfo>> routes = new ConcurrentHashMap<>();
+
+    /**
+    * default constructor
+     *
+     * @param hazelcastInstance instance of hazelcast
+    */
+    public HzRouteRegistry (HazelcastInstance hazelcastInstance) {
+        if (hazelcastInstance == null) {
+            throw new NullPointerException("hazelcast instance cannot be null.");
+        }
+
+        this.routeMap = hazelcastInstance.getReplicatedMap("routes");
+        this.nodeID = hazelcastInstance.getCluster().getLocalMember().getUuid();
+
+        //add listener first, so no route is missed
+        this.routeMap.addEntryListener(new EntryAdapter<String,String>() {
+            @Override
+            public void entryAdded(EntryEvent<String,String> event) {
+                putRoute(event.getKey(), event.getValue());
+            }
+
+            @Override
+            public void entryUpdated(EntryEvent<String,String> event) {
+                putRoute(event.getKey(), event.getValue());
+            }
+
+            @Override
+            public void entryRemoved(EntryEvent<String,String> event) {
+                removeRoute(event.getKey());
+            }
+
+            @Override
+            public void entryEvicted(EntryEvent<String,String> event) {
+                removeRoute(event.getKey());
+            }
+        });
+
+        for (Map.Entry<String,String> entry : this.routeMap.entrySet()) {
+            this.putRoute(entry.getKey(), entry.getValue());
+        }
+
+        //routes of crashed app servers arent removed by themselves
+        hazelcastInstance.getCluster().addMembershipListener(new MembershipAdapter() {
+            @Override
+            public void memberRemoved(MembershipEvent event) {
+                removeNode(event.getMember().getUuid());
+            }
+        });
+    }
+
+    @Override
+    public void register(RouteInfo route) {
+        this.routeMap.put(getKey(route.getEvent(), this.nodeID), route.toJSON().encode());
+    }
+
+    @Override
+    public void unregister(String event) {
+        this.routeMap.remove(getKey(event, this.nodeID));
+    }
+
+    @Override
+    public RouteInfo getRoute(String event) {
+        Map<String,RouteInfo> nodes = this.routes.get(event);
+
+        if (nodes == null || nodes.isEmpty()) {
+            return null;
+        }
+
+        boolean idempotent = true;
+        boolean loginRequired = false;
+
+        for (RouteInfo route : nodes.values()) {
+            idempotent = idempotent && route.isIdempotent();
+            loginRequired = loginRequired || route.isLoginRequired();
+        }
+
+        return new RouteInfo(event, idempotent, loginRequired);
+    }
+
+    @Override
+    public boolean isIdempotent(String event) {
+        RouteInfo route = this.getRoute(event);
+
+        return route != null && route.isIdempotent();
+    }
+
+    protected void putRoute (String key, String value) {
+        RouteInfo route = RouteInfo.createFromJSON(new JsonObject(value));
+
+        this.routes.compute(route.getEvent(), (event, nodes) -> {
+            if (nodes == null) {
+                nodes = new ConcurrentHashMap<>();
+            }
+
+            nodes.put(getNodeID(key), route);
+
+            return nodes;
+        });
+    }
+
+    protected void removeRoute (String key) {
+        String event = key.substring(0, key.lastIndexOf("|"));
+
+        this.routes.computeIfPresent(event, (name, nodes) -> {
+            nodes.remove(getNodeID(key));
+
+            return nodes.isEmpty() ? null : nodes;
+        });
+    }
+
+    protected void removeNode (String nodeID) {
+        for (String key : this.routeMap.keySet()) {
+            if (getNodeID(key).equals(nodeID)) {
+                this.routeMap.remove(key);
+            }
+        }
+    }
+
+    protected static String getKey (String event, String nodeID) {
+        return event + "|" + nodeID;
+    }
+
+    protected static String getNodeID (String key) {
+        return key.substring(key.lastIndexOf("|") + 1);
+    }
+
+}
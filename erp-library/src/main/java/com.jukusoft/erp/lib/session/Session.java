@@ -41,6 +41,22 @@ public class Session implements JsonSerializable, JsonLoadable {
         this.created = System.currentTimeMillis();
     }
 
+    /**
+    * create a guest session, which isnt written to cache until {@link #flush()} is called
+     *
+     * @param sessionID unique session id
+     * @param sessionManager session manager, which stores the session on flush
+    */
+    public Session (String sessionID, ChangeableSessionManager sessionManager) {
+        this(sessionID);
+
+        if (sessionManager == null) {
+            throw new NullPointerException("session manager cannot be null.");
+        }
+
+        this.sessionManager = sessionManager;
+    }
+
     /**
     * get unique ID of session
      *
@@ -3,6 +3,7 @@ package com.jukusoft.erp.lib.session;
 import com.hazelcast.core.HazelcastInstance;
 import com.jukusoft.erp.lib.session.impl.HzJCacheSessionManager;
 import com.jukusoft.erp.lib.session.impl.HzMapSessionManager;
+import io.vertx.core.Handler;
 
 public interface SessionManager {
 
@@ -27,6 +28,35 @@ public interface SessionManager {
     */
     public Session generateNewSession ();
 
+    /**
+    * create a transient guest session with a new session id.
+     * The session isnt written to cache until {@link Session#flush()} is called (e.q. on login),
+     * so anonymous requests dont create cache entries.
+     *
+     * @return instance of new guest session
+    */
+    public Session createGuestSession ();
+
+    /**
+    * create a transient guest session with an existing session id, which was issued by {@link #createGuestSession()}.
+     * The session isnt written to cache until {@link Session#flush()} is called.
+     *
+     * @param ssid session id
+     *
+     * @return instance of guest session
+    */
+    public Session createGuestSession (String ssid);
+
+    /**
+    * add listener, which is called with the session id, if a session was changed or removed anywhere in the cluster (login, logout, flush, expiration).
+     * The listener is called from a non vert.x thread.
+     *
+     * @param handler invalidation handler
+     *
+     * @throws UnsupportedOperationException if session manager cannot notify about changes
+    */
+    public void addInvalidationListener (Handler<String> handler);
+
     public static SessionManager createHzJCacheSessionManager (HazelcastInstance hazelcastInstance) {
         return new HzJCacheSessionManager(hazelcastInstance);
     }
@@ -5,6 +5,7 @@ import com.hazelcast.cache.ICache;
 import com.hazelcast.core.HazelcastInstance;
 import com.jukusoft.erp.lib.session.ChangeableSessionManager;
 import com.jukusoft.erp.lib.session.Session;
+import io.vertx.core.Handler;
 import io.vertx.core.json.JsonObject;
 
 import javax.cache.Cache;
@@ -122,10 +123,35 @@ public class HzJCacheSessionManager implements ChangeableSessionManager {
         return session;
     }
 
+    @Override
+    public Session createGuestSession() {
+        return this.createGuestSession(this.generateNewSessionID());
+    }
+
+    @Override
+    public Session createGuestSession(String ssid) {
+        if (ssid == null) {
+            throw new NullPointerException("ssid cannot be null.");
+        }
+
+        if (ssid.isEmpty()) {
+            throw new IllegalArgumentException("ssid cannot be empty.");
+        }
+
+        //session is only written to cache on flush()
+        return new Session(ssid, this);
+    }
+
     protected String generateNewSessionID () {
         return SessionIDGenerator.generateSessionID();
     }
 
+    @Override
+    public void addInvalidationListener(Handler<String> handler) {
+        //JCache listeners are distributed to all cluster members, so they have to be serializable
+        throw new UnsupportedOperationException("jcache session manager doesnt support invalidation listeners.");
+    }
+
     @Override
     public void putSession(String ssid, Session session) {
         this.sessionCache.put(ssid, session.toJSON().toString());
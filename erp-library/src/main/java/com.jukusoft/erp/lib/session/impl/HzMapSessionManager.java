@@ -1,9 +1,15 @@
 package com.jukusoft.erp.lib.session.impl;
 
+import com.hazelcast.core.EntryEvent;
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.core.IMap;
+import com.hazelcast.map.listener.EntryAddedListener;
+import com.hazelcast.map.listener.EntryEvictedListener;
+import com.hazelcast.map.listener.EntryRemovedListener;
+import com.hazelcast.map.listener.EntryUpdatedListener;
 import com.jukusoft.erp.lib.session.ChangeableSessionManager;
 import com.jukusoft.erp.lib.session.Session;
+import io.vertx.core.Handler;
 import io.vertx.core.json.JsonObject;
 
 public class HzMapSessionManager implements ChangeableSessionManager {
@@ -53,13 +59,73 @@ public class HzMapSessionManager implements ChangeableSessionManager {
         return session;
     }
 
+    @Override
+    public Session createGuestSession() {
+        return this.createGuestSession(this.generateNewSessionID());
+    }
+
+    @Override
+    public Session createGuestSession(String ssid) {
+        if (ssid == null) {
+            throw new NullPointerException("ssid cannot be null.");
+        }
+
+        if (ssid.isEmpty()) {
+            throw new IllegalArgumentException("ssid cannot be empty.");
+        }
+
+        //session is only written to cache on flush()
+        return new Session(ssid, this);
+    }
+
     protected String generateNewSessionID () {
         return SessionIDGenerator.generateSessionID();
     }
 
+    @Override
+    public void addInvalidationListener(Handler<String> handler) {
+        if (handler == null) {
+            throw new NullPointerException("handler cannot be null.");
+        }
+
+        //values arent needed, session is read again on next access
+        this.sessionMap.addEntryListener(new SessionInvalidationListener(handler), false);
+    }
+
     @Override
     public void putSession(String ssid, Session session) {
         this.sessionMap.put(ssid, session.toJSON().toString());
     }
 
+    protected static class SessionInvalidationListener implements EntryAddedListener<String,String>, EntryUpdatedListener<String,String>, EntryRemovedListener<String,String>, EntryEvictedListener<String,String> {
+
+        protected final Handler<String> handler;
+
+        protected SessionInvalidationListener (Handler<String> handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void entryAdded(EntryEvent<String, String> event) {
+            //guest sessions are written to cache the first time on flush (e.q. login)
+            this.handler.handle(event.getKey());
+        }
+
+        @Override
+        public void entryUpdated(EntryEvent<String, String> event) {
+            this.handler.handle(event.getKey());
+        }
+
+        @Override
+        public void entryRemoved(EntryEvent<String, String> event) {
+            this.handler.handle(event.getKey());
+        }
+
+        @Override
+        public void entryEvicted(EntryEvent<String, String> event) {
+            this.handler.handle(event.getKey());
+        }
+
+    }
+
 }
@@ -0,0 +1,232 @@
+package com.jukusoft.erp.lib.stream;
+
+import com.jukusoft.erp.lib.message.request.ApiRequest;
+import com.jukusoft.erp.lib.message.response.ApiResponse;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.WriteStream;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+* Streaming response of a route, rows are sent to the client incrementally (HTTP chunked transfer, TCP parts).
+ *
+ * The api gateway pulls chunks of rows: the route replies to the request with a {@link ApiResponse.RESPONSE_TYPE#STREAM} response,
+ * the gateway answers every message with a request for the next chunk, so only one chunk per stream is on the event bus at the same time.
+ * Rows are buffered until the gateway asks for them, {@link #writeQueueFull()} returns true if too many rows are buffered
+ * (like every vert.x write stream, so rows can be pumped from a read stream).
+ *
+ * This class isnt thread-safe, it has to be used from the context of the route.
+*/
+public class ResponseStream implements WriteStream<JsonObject> {
+
+    //fields of stream messages
+    public static final String ROWS = "rows";
+    public static final String END = "end";
+    public static final String ERROR = "error";
+    public static final String NEXT = "next";
+    public static final String CANCEL = "cancel";
+
+    //time in milliseconds, which gateway and route wait for the next message of a stream
+    public static final long TIMEOUT = 30 * 1000;
+
+    //maximum number of rows of a single chunk
+    public static final int MAX_CHUNK_ROWS = 128;
+
+    protected final DeliveryOptions deliveryOptions = new DeliveryOptions().setSendTimeout(TIMEOUT);
+
+    //buffered rows, which wasnt requested by gateway yet
+    protected final Queue<JsonObject> rows = new ArrayDeque<>();
+
+    //maximum number of buffered rows
+    protected int maxBufferedRows = 256;
+
+    //request of gateway for the next chunk, which wasnt answered yet
+    protected Message<Object> nextRequest = null;
+
+    protected boolean ended = false;
+    protected boolean closed = false;
+    protected String error = null;
+
+    protected Handler<Void> drainHandler = null;
+    protected Handler<Throwable> exceptionHandler = null;
+
+    protected ResponseStream () {
+        //
+    }
+
+    /**
+    * reply to request with a streaming response, rows can be written afterwards
+     *
+     * @param event message of api request
+     * @param response response header (status code, data), which is sent before the rows
+     *
+     * @return response stream
+    */
+    public static ResponseStream open (Message<ApiRequest> event, ApiResponse response) {
+        if (event == null) {
+            throw new NullPointerException("event cannot be null.");
+        }
+
+        if (response == null) {
+            throw new NullPointerException("response cannot be null.");
+        }
+
+        ResponseStream stream = new ResponseStream();
+
+        response.setType(ApiResponse.RESPONSE_TYPE.STREAM);
+        event.reply(response, stream.deliveryOptions, stream::handleGatewayMessage);
+
+        return stream;
+    }
+
+    protected void handleGatewayMessage (AsyncResult<Message<Object>> res) {
+        if (this.closed) {
+            return;
+        }
+
+        if (!res.succeeded()) {
+            //gateway doesnt ask for the next chunk in time (client is gone or too slow)
+            this.close(res.cause());
+
+            return;
+        }
+
+        Message<Object> message = res.result();
+
+        if (!(message.body() instanceof JsonObject) || ((JsonObject) message.body()).getBoolean(CANCEL, false)) {
+            this.close(new IllegalStateException("stream was cancelled by gateway."));
+
+            return;
+        }
+
+        this.nextRequest = message;
+        this.flush();
+    }
+
+    protected void flush () {
+        if (this.nextRequest == null || (this.rows.isEmpty() && !this.ended)) {
+            return;
+        }
+
+        JsonArray chunk = new JsonArray();
+
+        while (!this.rows.isEmpty() && chunk.size() < MAX_CHUNK_ROWS) {
+            chunk.add(this.rows.poll());
+        }
+
+        JsonObject json = new JsonObject().put(ROWS, chunk);
+
+        Message<Object> message = this.nextRequest;
+        this.nextRequest = null;
+
+        if (this.ended && this.rows.isEmpty()) {
+            json.put(END, true);
+
+            if (this.error != null) {
+                json.put(ERROR, this.error);
+            }
+
+            this.closed = true;
+            message.reply(json);
+        } else {
+            message.reply(json, this.deliveryOptions, this::handleGatewayMessage);
+        }
+
+        if (this.drainHandler != null && !this.closed && this.rows.size() <= this.maxBufferedRows / 2) {
+            Handler<Void> handler = this.drainHandler;
+            this.drainHandler = null;
+
+            handler.handle(null);
+        }
+    }
+
+    protected void close (Throwable cause) {
+        this.closed = true;
+        this.rows.clear();
+
+        if (this.exceptionHandler != null) {
+            this.exceptionHandler.handle(cause);
+        }
+    }
+
+    @Override
+    public ResponseStream write (JsonObject row) {
+        if (this.ended) {
+            throw new IllegalStateException("stream was already ended.");
+        }
+
+        if (this.closed) {
+            //client is gone, rows are dropped
+            return this;
+        }
+
+        this.rows.add(row);
+        this.flush();
+
+        return this;
+    }
+
+    @Override
+    public void end () {
+        if (this.ended) {
+            return;
+        }
+
+        this.ended = true;
+        this.flush();
+    }
+
+    /**
+    * end stream with an error, client gets an error status code after the rows, which were already sent
+     *
+     * @param message error message
+    */
+    public void fail (String message) {
+        if (this.ended) {
+            return;
+        }
+
+        this.error = message;
+        this.rows.clear();
+        this.end();
+    }
+
+    /**
+    * check, if stream was closed (ended or cancelled), so no more rows have to be written
+     *
+     * @return true, if stream is closed
+    */
+    public boolean isClosed () {
+        return this.closed;
+    }
+
+    @Override
+    public ResponseStream setWriteQueueMaxSize (int maxSize) {
+        this.maxBufferedRows = maxSize;
+        return this;
+    }
+
+    @Override
+    public boolean writeQueueFull () {
+        return this.rows.size() >= this.maxBufferedRows;
+    }
+
+    @Override
+    public ResponseStream drainHandler (Handler<Void> handler) {
+        this.drainHandler = handler;
+        return this;
+    }
+
+    @Override
+    public ResponseStream exceptionHandler (Handler<Throwable> handler) {
+        this.exceptionHandler = handler;
+        return this;
+    }
+
+}
@@ -1,6 +1,6 @@
 module erp.library {
     requires hazelcast;
-    requires json;
+    requires jackson.core;
     requires vertx.core;
 
     //bouncy castle, for SSL self-signed certificate generation
@@ -27,5 +27,8 @@ module erp.library {
     exports com.jukusoft.erp.lib.exception;
     exports com.jukusoft.erp.lib.permission;
     exports com.jukusoft.erp.lib.json;
+    exports com.jukusoft.erp.lib.push;
+    exports com.jukusoft.erp.lib.stream;
+    exports com.jukusoft.erp.lib.load;
 
 }
\ No newline at end of file
@@ -0,0 +1,52 @@
+package com.jukusoft.erp.lib.json;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class JsonFieldReaderTest {
+
+    @Test
+    public void testReadField () {
+        Buffer json = Buffer.buffer("{\"skip\":{\"a\":[1,{\"b\":2}]},\"str\":\"Übersicht\",\"int\":2,\"long\":5000000000,\"double\":1.5,\"bool\":true,\"null\":null,\"obj\":{\"key\":\"value\"},\"array\":[1,2,3]}");
+
+        assertEquals("Übersicht", JsonFieldReader.readField(json, "str"));
+        assertEquals(2, JsonFieldReader.readField(json, "int"));
+        assertEquals(5000000000L, JsonFieldReader.readField(json, "long"));
+        assertEquals(1.5, JsonFieldReader.readField(json, "double"));
+        assertEquals(true, JsonFieldReader.readField(json, "bool"));
+        assertNull(JsonFieldReader.readField(json, "null"));
+        assertEquals(new JsonObject().put("key", "value"), JsonFieldReader.readField(json, "obj"));
+        assertEquals(new JsonArray().add(1).add(2).add(3), JsonFieldReader.readField(json, "array"));
+
+        //nested fields arent top-level fields
+        assertSame(JsonFieldReader.MISSING, JsonFieldReader.readField(json, "b"));
+    }
+
+    @Test
+    public void testReadFieldOfLargeJson () {
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = 0; i < 5000; i++) {
+            sb.append("abcdefgh");
+        }
+
+        //parser reads buffer in chunks, so values behind the first chunk have to be found too
+        Buffer json = new JsonObject().put("skip", sb.toString()).put("obj", new JsonObject().put("key", "value")).put("str", "test").toBuffer();
+
+        assertEquals("test", JsonFieldReader.readField(json, "str"));
+        assertEquals(new JsonObject().put("key", "value"), JsonFieldReader.readField(json, "obj"));
+    }
+
+    @Test (expected = DecodeException.class)
+    public void testInvalideJson () {
+        JsonFieldReader.readField(Buffer.buffer("[1,2]"), "key");
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.jukusoft.erp.lib.message;
+
+import com.jukusoft.erp.lib.message.request.ApiRequest;
+import com.jukusoft.erp.lib.message.request.ApiRequestCodec;
+import com.jukusoft.erp.lib.message.response.ApiResponse;
+import com.jukusoft.erp.lib.message.response.ApiResponseCodec;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MessageCodecTest {
+
+    @Test
+    public void testRequestCodec () {
+        ApiRequest req = new ApiRequest("/list-menus", new JsonObject().put("menuID", 2).put("name", "Übersicht"), 10, "ext", "session", true, 5);
+        req.getMeta().put("host", "127.0.0.1");
+        req.setPermissions(Arrays.asList("can_see_menus", "can_edit_menus"));
+
+        //message doesnt start at position 0 of event bus buffer
+        Buffer buffer = Buffer.buffer().appendInt(42);
+        new ApiRequestCodec().encodeToWire(buffer, req);
+
+        ApiRequest decoded = new ApiRequestCodec().decodeFromWire(4, buffer);
+
+        assertEquals("/list-menus", decoded.getEvent());
+        assertEquals("Übersicht", decoded.getData().getString("name"));
+        assertEquals(2, decoded.getData().getInteger("menuID").intValue());
+        assertEquals(10, decoded.getMessageID());
+        assertEquals("ext", decoded.getExternalID());
+        assertEquals("session", decoded.getSessionID());
+        assertTrue(decoded.isLoggedIn());
+        assertEquals(5, decoded.getUserID());
+        assertEquals("127.0.0.1", decoded.getIP());
+        assertEquals(2, decoded.getPermissions().size());
+        assertTrue(decoded.hasPermission("can_edit_menus"));
+    }
+
+    @Test
+    public void testLazyRequestData () {
+        ApiRequest req = new ApiRequest("/add_integer", new JsonObject().put("a", "5").put("b", 2).put("rows", new JsonArray().add(1).add(2)), 10, "ext", "session", false, -1);
+
+        Buffer buffer = Buffer.buffer();
+        new ApiRequestCodec().encodeToWire(buffer, req);
+        ApiRequest decoded = new ApiRequestCodec().decodeFromWire(0, buffer);
+
+        //first param is read without decoding data (and only once for checkParam() and getter), HTTP params are strings
+        decoded.checkParam("a");
+        assertEquals(5, decoded.getInt("a"));
+
+        //forwarded data isnt encoded again
+        Buffer forwarded = Buffer.buffer();
+        new ApiRequestCodec().encodeToWire(forwarded, decoded);
+        assertEquals(buffer, forwarded);
+
+        //data is decoded, if a second param is read
+        assertEquals(2, decoded.getInt("b"));
+        assertEquals(2, decoded.getJsonArray("rows").size());
+        assertTrue(decoded.has("b"));
+        assertFalse(decoded.has("c"));
+
+        assertEquals(3, decoded.getData().size());
+    }
+
+    @Test
+    public void testResponseCodec () {
+        ApiResponse res = new ApiResponse(10, "ext", "session", "/list-menus");
+        res.setStatusCode(StatusCode.WRONG_PERMISSIONS);
+        res.setType(ApiResponse.RESPONSE_TYPE.CONTENT);
+        res.getData().put("menu", "test");
+
+        Buffer buffer = Buffer.buffer();
+        new ApiResponseCodec().encodeToWire(buffer, res);
+
+        ApiResponse decoded = new ApiResponseCodec().decodeFromWire(0, buffer);
+
+        assertEquals("/list-menus", decoded.getEvent());
+        assertEquals(StatusCode.WRONG_PERMISSIONS, decoded.getStatusCode());
+        assertEquals(ApiResponse.RESPONSE_TYPE.CONTENT, decoded.getType());
+        assertEquals("test", decoded.getData().getString("menu"));
+        assertEquals(10, decoded.getMessageID());
+        assertEquals("ext", decoded.getExternalID());
+        assertEquals("session", decoded.getSessionID());
+        assertNull(decoded.getETag());
+        assertFalse(decoded.isSessionChanged());
+
+        res.setETag("abc", "menus", "user.5");
+        res.setSessionChanged(true);
+
+        buffer = Buffer.buffer();
+        new ApiResponseCodec().encodeToWire(buffer, res);
+        decoded = new ApiResponseCodec().decodeFromWire(0, buffer);
+
+        assertEquals("abc", decoded.getETag());
+        assertArrayEquals(new String[] {"menus", "user.5"}, decoded.getETagTopics());
+        assertTrue(decoded.isSessionChanged());
+    }
+
+}
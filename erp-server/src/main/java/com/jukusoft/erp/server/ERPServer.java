@@ -9,35 +9,37 @@ import com.jukusoft.erp.lib.database.DatabaseManager;
 import com.jukusoft.erp.lib.database.MySQLDatabase;
 import com.jukusoft.erp.lib.database.impl.DatabaseManagerImpl;
 import com.jukusoft.erp.lib.gateway.ApiGateway;
-import com.jukusoft.erp.lib.gateway.ResponseHandler;
 import com.jukusoft.erp.lib.keystore.KeyStoreGenerator;
 import com.jukusoft.erp.lib.logging.ILogging;
-import com.jukusoft.erp.lib.message.StatusCode;
-import com.jukusoft.erp.lib.message.request.ApiRequest;
-import com.jukusoft.erp.lib.message.response.ApiResponse;
+import com.jukusoft.erp.lib.load.LoadRegistry;
+import com.jukusoft.erp.lib.route.RouteRegistry;
 import com.jukusoft.erp.lib.session.SessionManager;
-import com.jukusoft.erp.lib.session.Session;
+import com.jukusoft.erp.server.context.GatewayContext;
+import com.jukusoft.erp.server.context.GatewayContextImpl;
 import com.jukusoft.erp.server.gateway.DefaultApiGateway;
+import com.jukusoft.erp.server.gateway.ETagCache;
+import com.jukusoft.erp.server.gateway.LoadBalancer;
+import com.jukusoft.erp.server.gateway.RequestCoalescer;
+import com.jukusoft.erp.server.gateway.RequestHedger;
+import com.jukusoft.erp.server.gateway.RouteMonitor;
 import com.jukusoft.erp.lib.logger.HzLogger;
-import com.jukusoft.erp.server.message.ResponseGenerator;
+import com.jukusoft.erp.server.config.GatewayConfig;
+import com.jukusoft.erp.server.http.HttpServerVerticle;
+import com.jukusoft.erp.server.push.SubscriptionManager;
+import com.jukusoft.erp.server.connection.AbstractConnection;
+import com.jukusoft.erp.server.tcp.TcpServerVerticle;
+import io.vertx.core.DeploymentOptions;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
 import io.vertx.core.VertxOptions;
-import io.vertx.core.http.HttpMethod;
-import io.vertx.core.http.HttpServer;
-import io.vertx.core.http.HttpServerOptions;
-import io.vertx.core.http.HttpServerResponse;
-import io.vertx.core.net.NetServer;
-import io.vertx.core.net.NetServerOptions;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
 import io.vertx.core.spi.cluster.ClusterManager;
 import io.vertx.spi.cluster.hazelcast.HazelcastClusterManager;
-import org.json.JSONObject;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.util.Map;
 
 public class ERPServer implements IServer {
 
@@ -47,9 +49,6 @@ public class ERPServer implements IServer {
     //instance of vert.x
     protected Vertx vertx = null;
 
-    //vert.x network server
-    protected NetServer netServer = null;
-
     //instance of hazelcast
     protected HazelcastInstance hazelcastInstance = null;
 
@@ -59,6 +58,18 @@ public class ERPServer implements IServer {
     //api gateway
     protected ApiGateway gateway = null;
 
+    //coalesces concurrent identical requests of idempotent routes
+    protected RequestCoalescer requestCoalescer = null;
+
+    //timeouts and circuit breakers per route
+    protected RouteMonitor routeMonitor = null;
+
+    //sends second copies of slow requests of idempotent routes
+    protected RequestHedger requestHedger = null;
+
+    //chooses least loaded app server of a route
+    protected LoadBalancer loadBalancer = null;
+
     protected ILogging logger = null;
 
     //hazelcast ID generator for cluster-wide unique IDs
@@ -73,11 +84,25 @@ public class ERPServer implements IServer {
     //database manager
     protected DatabaseManager dbManager = null;
 
+    //gateway configuration
+    protected GatewayConfig config = null;
+
+    //shared state of all front-end instances
+    protected GatewayContext context = null;
+
     //number of threads
-    protected int eventLoopPoolSize = 1;
-    protected int workerPoolSize = 1;
+    protected int eventLoopPoolSize = VertxOptions.DEFAULT_EVENT_LOOP_POOL_SIZE;
+    protected int workerPoolSize = VertxOptions.DEFAULT_WORKER_POOL_SIZE;
 
     public void start() {
+        //load gateway configuration
+        try {
+            this.config = GatewayConfig.load("./config/gateway.cfg");
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+
         //create an new hazelcast instance
         Config config = new Config();
 
@@ -115,6 +140,10 @@ public class ERPServer implements IServer {
         this.vertxOptions.setEventLoopPoolSize(this.eventLoopPoolSize);
         this.vertxOptions.setWorkerPoolSize(this.workerPoolSize);
 
+        //use native transport (epoll) if available and tune sockets of clustered event bus
+        this.vertxOptions.setPreferNativeTransport(this.config.isNativeTransport());
+        this.config.applySocketOptions(this.vertxOptions.getEventBusOptions());
+
         //create clustered vertx. instance
         Vertx.clusteredVertx(this.vertxOptions, res -> {
             if (res.succeeded()) {
@@ -123,6 +152,10 @@ public class ERPServer implements IServer {
                 //create logger
                 this.logger = new HzLogger(this.hazelcastInstance, this.clusterManager.getNodeID());
 
+                if (this.config.isNativeTransport() && !this.vertx.isNativeTransportEnabled()) {
+                    logger.warn("native_transport", "native transport isnt available, use NIO transport instead.");
+                }
+
                 //create database client and connect to database
                 try {
                     this.connectToMySQL(res1 -> {
@@ -162,158 +195,42 @@ public class ERPServer implements IServer {
 
     protected void postStart () {
         //create api gateway
-        this.gateway = new DefaultApiGateway(this.vertx, this.logger);
-
-        //create options for TCP network server
-        NetServerOptions netServerOptions = new NetServerOptions();
-
-        //TODO: replace this later
-        int port = 2200;
-
-        //set port
-        netServerOptions.setPort(port);
-
-        //create new instance of TCP network server
-        this.netServer = this.vertx.createNetServer(netServerOptions);
-
-        //add connection handler
-        netServer.connectHandler(socket -> {
-            System.out.println("new connection accepted, ip: " + socket.remoteAddress().host() + ", port: " + socket.remoteAddress().port());
-
-            logger.debug("new_tcp_connection", "ip: " + socket.remoteAddress().host() + ", port: " + socket.remoteAddress().port());
-
-            //set close handler
-            socket.closeHandler(v -> {
-                logger.debug("close_tcp_connection", "ip: " + socket.remoteAddress().host() + ", port: " + socket.remoteAddress().port());
-            });
-
-            //set message handler
-            socket.handler(buffer -> {
-                //convert to string and json object
-                String str = buffer.toString(StandardCharsets.UTF_8);
-
-                //generate cluster-wide unique message id
-                final long messageID = generateMessageID();
-
-                //remove whitespaces at begin and end
-                str = str.trim();
-
-                //check, if message is an json message
-                if (!str.startsWith("{") || !str.endsWith("}")) {
-                    //no json message
-                    logger.warn(messageID, "bad_request", "invalide json message: " + str);
-
-                    //generate response string
-                    String str1 = ResponseGenerator.generateResponse("error", "", "none", StatusCode.BAD_REQUEST);
-
-                    //write to the response and end it
-                    socket.write(str1);
-
-                    return;
-                }
-
-                JSONObject json = new JSONObject(str);
+        RouteRegistry routeRegistry = RouteRegistry.createHzRouteRegistry(this.hazelcastInstance);
 
-                //get external ID, if available
-                String externalID = "";
-
-                if (json.has("messageID")) {
-                    externalID = json.getString("messageID");
-                }
-
-                //check, if event name exists
-                if (!json.has("event")) {
-                    logger.warn(messageID, "bad_request", "event doesnt exists in message: " + json.toString());
-
-                    //generate response string
-                    String str1 = ResponseGenerator.generateResponse("error", "", externalID, StatusCode.BAD_REQUEST);
-
-                    //write to the response and end it
-                    socket.write(str1);
-
-                    return;
-                }
-
-                //get event name
-                String event = json.getString("event");
-
-                //get data
-                JSONObject data = json.getJSONObject("data");
-
-                String sessionID = "";
-
-                if (data.has("ssid")) {
-                    sessionID = data.getString("ssid");
-                }
-
-                Session session = null;
-
-                if (sessionID.isEmpty()) {
-                    //create new session
-                    session = this.sessionManager.generateNewSession();
-                } else {
-                    //get session by session manager
-                    session = this.sessionManager.getSession(sessionID);
-
-                    if (session == null) {
-                        //generate response string
-                        String str1 = ResponseGenerator.generateResponse(event, sessionID, externalID, StatusCode.BAD_REQUEST);
-
-                        //write to the response and end it
-                        socket.write(str1);
-
-                        logger.warn(messageID, "wrong_session_id", "Couldnt find session ID: " + sessionID + " (IP: " + socket.remoteAddress().host() + ":"  + socket.remoteAddress().port() + ").");
-
-                        throw new IllegalStateException("cannot find session ID: " + sessionID);
-                    }
-                }
-
-                sessionID = session.getSessionID();
-
-                //create api request
-                ApiRequest req = new ApiRequest(event, data, messageID, externalID, sessionID, session.isLoggedIn(), session.getUserID());
+        if (this.config.isRequestCoalescing()) {
+            this.requestCoalescer = new RequestCoalescer(routeRegistry);
+        }
 
-                //add meta information
-                req.getMeta().put("host", socket.remoteAddress().host());
-                req.getMeta().put("port", socket.remoteAddress().port());
+        this.routeMonitor = new RouteMonitor(this.config);
 
-                //log request
-                this.logger.debug(messageID, "new_tcp_request", req.toString());
+        if (this.config.isHedgedRequests()) {
+            this.requestHedger = new RequestHedger(this.vertx, routeRegistry, this.routeMonitor, this.config);
+        }
 
-                this.gateway.handleRequestAsync(req, new ResponseHandler() {
-                    @Override
-                    public void handleResponse(ApiResponse res) {
-                        if (res.getType() == ApiResponse.RESPONSE_TYPE.JSON) {
-                            //send response
-                            String str = ResponseGenerator.generateResponse(res.getEvent(), res.getData(), res.getSessionID(), res.getExternalID(), res.getStatusCode());
+        if (this.config.isLoadBalancing()) {
+            this.loadBalancer = new LoadBalancer(LoadRegistry.createHzLoadRegistry(this.hazelcastInstance), this.config);
+            this.loadBalancer.start(this.vertx);
+        }
 
-                            //write to the response and end it
-                            socket.write(str);
+        this.gateway = new DefaultApiGateway(this.vertx, this.logger, this.config.isRejectUnknownRoutes() ? routeRegistry : null, this.requestCoalescer, this.routeMonitor, this.requestHedger, this.loadBalancer);
 
-                            logger.debug(messageID, "request_succedded", res.toString());
-                        } else {
-                            socket.write(res.getData().getString("content"));
-                        }
-                    }
+        //create context, which is shared by all front-end instances
+        this.context = new GatewayContextImpl(this.logger, this.config, this.gateway, this.sessionManager, this.idGenerator, new SubscriptionManager(this.vertx, this.config.getMaxSubscriptions(), this.config.getPushHistorySize()), new ETagCache(this.vertx, this.config.getETagCacheSize(), this.config.getETagCacheTTL()));
 
-                    @Override
-                    public void responseFailed() {
-                        //generate response string
-                        String str = ResponseGenerator.generateResponse(event, req.getSessionID(), req.getExternalID(), StatusCode.SERVICE_UNAVAILABLE);
+        //answer metrics requests of this gateway node
+        this.vertx.eventBus().consumer("gateway-metrics." + this.clusterManager.getNodeID(), message -> {
+            message.reply(this.getMetrics());
+        });
 
-                        //write to the response and end it
-                        socket.write(str);
+        //generate key store once, before http server instances are started
+        this.createKeyStoreIfAbsent(this.config.getKeyStorePath(), this.config.getKeyStorePassword());
 
-                        logger.warn(messageID, "request_failed", req.toString() + ", cause: " + StatusCode.SERVICE_UNAVAILABLE.name() + ".");
-                    }
-                });
-            });
-        });
+        //start TCP network server instances, every instance gets its own event loop
+        DeploymentOptions tcpOptions = new DeploymentOptions().setInstances(this.config.getTcpInstances());
 
-        //start network server
-        this.netServer.listen(res -> {
+        this.vertx.deployVerticle(() -> new TcpServerVerticle(this.context), tcpOptions, res -> {
             if (res.succeeded()) {
-                System.out.println("ERP Server is now listening on port " + res.result().actualPort());
+                System.out.println("ERP Server is now listening on port " + this.config.getTcpPort() + " (" + this.config.getTcpInstances() + " instances)");
             } else {
                 System.err.println("Couldnt start network server: " + res.cause());
 
@@ -321,21 +238,21 @@ public class ERPServer implements IServer {
             }
         });
 
-        //start http server (for debugging and rest api)
-        this.startHTTPServer(8080);
-    }
-
-    public void startHTTPServer (int port) {
-        HttpServerOptions options = new HttpServerOptions();
-        options.setPort(port);
+        //start http server instances (for debugging and rest api)
+        DeploymentOptions httpOptions = new DeploymentOptions().setInstances(this.config.getHttpInstances());
 
-        //use application layer protocol negotiation (only HTTP/2!)
-        //https://de.wikipedia.org/wiki/Application-Layer_Protocol_Negotiation
-        //options.setUseAlpn(true);
+        this.vertx.deployVerticle(() -> new HttpServerVerticle(this.context), httpOptions, res -> {
+            if (res.succeeded()) {
+                System.out.println("HTTP Server is now listening on port " + this.config.getHttpPort() + " (" + this.config.getHttpInstances() + " instances)");
+            } else {
+                System.err.println("Couldnt start HTTP server: " + res.cause());
 
-        String certPassword = "test";
-        String certPath = ".keystore.jks";
+                System.exit(1);
+            }
+        });
+    }
 
+    protected void createKeyStoreIfAbsent (String certPath, String certPassword) {
         //check if certificate exists
         if (!new File(certPath).exists()) {
             //generate new certificate
@@ -347,194 +264,56 @@ public class ERPServer implements IServer {
                 System.exit(1);
             }
         }
+    }
 
-        //use SSL encryption
-        //options.setKeyCertOptions(new JksOptions().setPath(certPath).setPassword(certPath));
-        //options.setSsl(true);
-
-        //use gzip compression
-        options.setCompressionSupported(true);
-        options.setCompressionLevel(9);
-
-        //create new http server
-        HttpServer server = vertx.createHttpServer(options);
-
-        server.requestHandler(request -> {
-            final long startTime = System.currentTimeMillis();
-
-            request.setExpectMultipart(true);
-            request.endHandler(handler -> {
-                // This handler gets called for each request that arrives on the server
-                HttpServerResponse response = request.response();
-
-                response.putHeader("content-type", "application/json");
-
-                //do not allow proxies to cache the data
-                response.putHeader("Cache-Control", "no-store, no-cache");
-                // prevents Internet Explorer from MIME - sniffing a
-                //response away from the declared content-type
-                response.putHeader("X-Content-Type-Options", "nosniff");
-                // Strict HTTPS (for about ~6Months)
-                //.putHeader("Strict-Transport-Security", "max-age=" + 15768000)
-                // IE8+ do not allow opening of attachments in the context of this resource
-                response.putHeader("X-Download-Options", "noopen");
-                // enable XSS for IE
-                response.putHeader("X-XSS-Protection", "1; mode=block");
-                // deny frames
-                response.putHeader("X-FRAME-OPTIONS", "DENY");
-
-                //get event name
-                String event = request.path();
-
-                JSONObject data = new JSONObject();
-
-                if (request.method() == HttpMethod.POST) {
-                    if (request.formAttributes().contains("event")) {
-                        event = request.formAttributes().get("event");
-                    }
-                }
-
-                final String eventName = event;
-
-                //generate cluster-wide unique message id
-                final long messageID = generateMessageID();
-
-                String sessionID = "";
-
-                //check for cookies
-                if (request.headers().contains("Cookie")) {
-                    for (String str : request.headers().getAll("Cookie")) {
-                        logger.info(messageID, "cookie_found", "cookie found: " + str);
-
-                        String[] array = str.split("=");
-
-                        if (array[0].equals("sessionid")) {
-                            //session ID found
-                            sessionID = array[1];
-
-                            logger.info(messageID, "session", "session ID found: " + sessionID);
-                        }
-                    }
-                }
-
-                //parse GET attributes
-                String[] array1 = request.absoluteURI().split("\\?");
-
-                if (array1.length > 1) {
-                    //request has GET attributes
-
-                    for (String str : array1[1].split("&")) {
-                        String[] array2 = str.split("=");
-
-                        if (array2.length < 2) {
-                            //there is a key, but no value set
-                            continue;
-                        }
-
-                        String key = array2[0];
-                        String value = array2[1];
-
-                        //TODO: find a better solution
-                        request.formAttributes().add(key, value);
-                    }
-                }
-
-                //converts all form attributes to json object
-                for (Map.Entry<String,String> entry : request.formAttributes().entries()) {
-                    data.put(entry.getKey(), entry.getValue());
-                }
-
-                //check, if session ID exists
-                if (request.formAttributes().contains("ssid")) {
-                    sessionID = request.formAttributes().get("ssid");
-                }
-
-                Session session = null;
-
-                if (sessionID.isEmpty()) {
-                    //generate new session
-                    session = this.sessionManager.generateNewSession();
-                } else {
-                    session = this.sessionManager.getSession(sessionID);
-
-                    if (session == null) {
-                        //generate new session
-                        session = this.sessionManager.generateNewSession();
-                    }
-                }
-
-                sessionID = session.getSessionID();
-
-                //HTTP requests doesnt use external IDs (ack IDs)
-                String externalID = "none";
-
-                response.putHeader("Set-Cookie", "sessionid=" + sessionID + "; HttpOnly; Path=/");
-
-                //create api request
-                ApiRequest req = new ApiRequest(event, data, messageID, externalID, sessionID, session.isLoggedIn(), session.getUserID());
-
-                //add meta information
-                req.getMeta().put("host", request.remoteAddress().host());
-                req.getMeta().put("port", request.remoteAddress().port());
-                //req.getMeta().put("path", request.remoteAddress().path());
-
-                //log request
-                this.logger.debug(messageID, "new_http_request", req.toString());
-
-                this.gateway.handleRequestAsync(req, new ResponseHandler() {
-                    @Override
-                    public void handleResponse(ApiResponse res) {
-                        if (res.getType() == ApiResponse.RESPONSE_TYPE.JSON) {
-                            //send response
-                            String str = ResponseGenerator.generateResponse(res.getEvent(), res.getData(), res.getSessionID(), res.getExternalID(), res.getStatusCode());
-
-                            response.putHeader("content-type", "application/json");
+    /**
+    * get metrics of this gateway node
+     *
+     * @return json object with metrics
+    */
+    public JsonObject getMetrics () {
+        JsonObject json = new JsonObject();
+        json.put("nodeID", this.clusterManager.getNodeID());
 
-                            //write to the response and end it
-                            response.end(str);
+        JsonArray connections = new JsonArray();
+        long queuedBytes = 0;
 
-                            logger.debug(messageID, "request_succedded", res.toString());
-                        } else {
-                            response.putHeader("content-type", "text/html; charset=utf-8");
+        for (AbstractConnection connection : this.context.getConnections()) {
+            JsonObject metrics = connection.getMetrics();
+            queuedBytes += metrics.getLong("queued_bytes");
 
-                            response.end(res.getData().getString("content"));
+            connections.add(metrics);
+        }
 
-                            logger.debug(messageID, "request_succedded", res.getData().getString("content"));
-                        }
+        json.put("connection_count", connections.size());
+        json.put("queued_bytes", queuedBytes);
+        json.put("connections", connections);
 
-                        long endTime = System.currentTimeMillis();
-                        long diff = endTime - startTime;
-                        logger.debug(req.getMessageID(), "execution_time", "request needed " + diff + "ms to execute.");
-                    }
+        //add push metrics
+        json.mergeIn(this.context.getSubscriptionManager().getMetrics());
 
-                    @Override
-                    public void responseFailed() {
-                        //generate response string
-                        String str = ResponseGenerator.generateResponse(eventName, req.getSessionID(), req.getExternalID(), StatusCode.SERVICE_UNAVAILABLE);
+        //add metrics of conditional requests
+        json.mergeIn(this.context.getETagCache().getMetrics());
 
-                        //write to the response and end it
-                        response.end(str);
+        //add timeouts and circuit breaker states of routes
+        json.mergeIn(this.routeMonitor.getMetrics());
 
-                        logger.warn(messageID, "request_failed", req.toString() + ", cause: " + StatusCode.SERVICE_UNAVAILABLE.name() + ".");
+        //add metrics of request coalescing
+        if (this.requestCoalescer != null) {
+            json.mergeIn(this.requestCoalescer.getMetrics());
+        }
 
-                        long endTime = System.currentTimeMillis();
-                        long diff = endTime - startTime;
-                        logger.debug(req.getMessageID(), "execution_time", "request needed " + diff + "ms to execute.");
-                    }
-                });
-            });
-        });
+        //add metrics of hedged requests
+        if (this.requestHedger != null) {
+            json.mergeIn(this.requestHedger.getMetrics());
+        }
 
-        //start http server
-        server.listen(res -> {
-            if (res.succeeded()) {
-                System.out.println("HTTP Server is now listening on port " + res.result().actualPort());
-            } else {
-                System.err.println("Couldnt start HTTP server: " + res.cause());
+        //add load of app servers
+        if (this.loadBalancer != null) {
+            json.mergeIn(this.loadBalancer.getMetrics());
+        }
 
-                System.exit(1);
-            }
-        });
+        return json;
     }
 
     protected long generateMessageID () {
@@ -551,13 +330,10 @@ public class ERPServer implements IServer {
     }
 
     public void stutdown() {
-        //close network server
-        netServer.close(res -> {
+        //close vertx.io, this undeploys all front-end instances and closes their servers
+        vertx.close(res -> {
             if (res.succeeded()) {
                 System.out.println("Server was shutdown now.");
-
-                //close vertx.io
-                vertx.close();
             } else {
                 System.out.println("Server couldnt be closed.");
             }
@@ -0,0 +1,565 @@
+package com.jukusoft.erp.server.config;
+
+import com.jukusoft.erp.lib.json.JsonLoadable;
+import com.jukusoft.erp.lib.utils.FileUtils;
+import io.vertx.core.eventbus.EventBusOptions;
+import io.vertx.core.http.Http2Settings;
+import io.vertx.core.http.HttpServerOptions;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.net.NetServerOptions;
+import io.vertx.core.net.TCPSSLOptions;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class GatewayConfig implements JsonLoadable {
+
+    //port of TCP network server
+    protected int tcpPort = 2200;
+
+    //port of HTTP server
+    protected int httpPort = 8080;
+
+    //maximum number of requests, which a single TCP connection can have in flight at the same time
+    protected int maxInFlightRequests = 128;
+
+    //maximum size of a single TCP frame in bytes
+    protected int maxFrameSize = 1024 * 1024;
+
+    //maximum number of bytes, which can be queued for a slow client, before the gateway stops reading from the connection
+    protected int writeQueueMaxSize = 512 * 1024;
+
+    //path of websocket endpoint on HTTP server
+    protected String webSocketPath = "/websocket";
+
+    //origins of other sites, which can open a websocket (same origin is always allowed), e.q. "https://example.com"
+    protected List<String> webSocketAllowedOrigins = new ArrayList<>();
+
+    //maximum number of sub-requests of a batch request
+    protected int maxBatchSize = 32;
+
+    //maximum number of push topics, which a single connection can subscribe
+    protected int maxSubscriptions = 32;
+
+    //number of last push messages, which are kept to replay them after reconnect of a client (server-sent events)
+    protected int pushHistorySize = 256;
+
+    //path of server-sent events endpoint on HTTP server and interval of heartbeats in milliseconds
+    protected String ssePath = "/events";
+    protected long sseHeartbeatInterval = 15 * 1000;
+
+    //number of TCP and HTTP server instances (verticles), every instance runs on its own event loop
+    protected int tcpInstances = Runtime.getRuntime().availableProcessors();
+    protected int httpInstances = Runtime.getRuntime().availableProcessors();
+
+    //use native epoll transport on linux, falls back to NIO transport, if native transport isnt available
+    protected boolean nativeTransport = true;
+
+    //socket options, low latency defaults (TCP_FASTOPEN, SO_REUSEPORT and TCP_QUICKACK require native transport).
+    //SO_REUSEPORT is only needed, if multiple gateway processes share a port, instances of one process share the server socket anyway
+    protected boolean tcpNoDelay = true;
+    protected boolean reusePort = false;
+    protected boolean tcpFastOpen = true;
+    protected boolean tcpQuickAck = true;
+
+    //socket buffer sizes and accept backlog, -1 means operating system default
+    protected int receiveBufferSize = -1;
+    protected int sendBufferSize = -1;
+    protected int acceptBacklog = -1;
+
+    //HTTP/2 over TLS (ALPN), cleartext HTTP/2 (h2c) is always accepted by HTTP server
+    protected boolean http2 = true;
+
+    //use TLS on HTTP server, disabled if TLS is terminated by load balancer
+    protected boolean ssl = false;
+    protected String keyStorePath = ".keystore.jks";
+    protected String keyStorePassword = "test";
+
+    //maximum number of concurrent streams (requests) of a single HTTP/2 connection
+    protected long http2MaxConcurrentStreams = 256;
+
+    //HTTP/2 flow-control windows in bytes, -1 means default of HTTP/2 (64 KiB)
+    protected int http2InitialWindowSize = -1;
+    protected int http2ConnectionWindowSize = -1;
+
+    //compression of HTTP responses, small responses and other content types arent compressed
+    protected boolean compression = true;
+    protected int compressionLevel = 6;
+    protected int compressionMinSize = 1024;
+    protected List<String> compressibleTypes = Arrays.asList("application/json", "text/html", "text/plain", "text/css", "application/javascript");
+
+    //maximum number of compressed CONTENT responses, which are cached per HTTP server instance
+    protected int precompressedCacheSize = 64;
+
+    //maximum number of response versions (ETags) and their time to live in milliseconds, gateway answers conditional requests with them
+    protected int etagCacheSize = 10000;
+    protected long etagCacheTTL = 60 * 1000;
+
+    //send concurrent identical requests of idempotent routes only once into the cluster
+    protected boolean requestCoalescing = true;
+
+    //timeout of a route is derived from its 99th latency percentile (multiplied), limited by min and max timeout in milliseconds.
+    //max timeout is also used, until enough latencies of a route were observed. Fixed timeouts per route can be configured (event -> timeout)
+    protected long routeTimeoutMin = 250;
+    protected long routeTimeoutMax = 5 * 1000;
+    protected double routeTimeoutMultiplier = 4;
+    protected Map<String,Long> routeTimeouts = new HashMap<>();
+
+    //number of consecutive failures, after which the circuit breaker of a route opens and time in milliseconds, after which a trial request is sent
+    protected int circuitBreakerThreshold = 5;
+    protected long circuitBreakerResetTimeout = 10 * 1000;
+
+    //send a second copy of requests of idempotent routes, if they take longer than the latency percentile of the route (at least min delay in milliseconds).
+    //Budget is the maximum percentage of requests, which are hedged
+    protected boolean hedgedRequests = false;
+    protected double hedgePercentile = 0.95;
+    protected long hedgeMinDelay = 10;
+    protected double hedgeBudget = 5;
+
+    //send requests to the least loaded app server of a route (based on load, which app servers publish periodically)
+    protected boolean loadBalancing = true;
+
+    //send requests of a user (or session) to the same app server (consistent hashing), so local caches of app servers stay warm.
+    //An app server is skipped, if its load is higher than load factor times average load (requires load balancing)
+    protected boolean stickyRouting = false;
+    protected double stickyLoadFactor = 1.25;
+
+    //answer requests of events, which no app server registered, with NOT_FOUND (and requests of guests to routes with @LoginRequired with FORBIDDEN) without sending them into the cluster
+    protected boolean rejectUnknownRoutes = true;
+
+    public int getTcpPort () {
+        return this.tcpPort;
+    }
+
+    public int getHttpPort () {
+        return this.httpPort;
+    }
+
+    public int getMaxInFlightRequests () {
+        return this.maxInFlightRequests;
+    }
+
+    public int getMaxFrameSize () {
+        return this.maxFrameSize;
+    }
+
+    public int getWriteQueueMaxSize () {
+        return this.writeQueueMaxSize;
+    }
+
+    public String getWebSocketPath () {
+        return this.webSocketPath;
+    }
+
+    public List<String> getWebSocketAllowedOrigins () {
+        return this.webSocketAllowedOrigins;
+    }
+
+    public int getMaxBatchSize () {
+        return this.maxBatchSize;
+    }
+
+    public int getMaxSubscriptions () {
+        return this.maxSubscriptions;
+    }
+
+    public int getPushHistorySize () {
+        return this.pushHistorySize;
+    }
+
+    public String getSsePath () {
+        return this.ssePath;
+    }
+
+    public long getSseHeartbeatInterval () {
+        return this.sseHeartbeatInterval;
+    }
+
+    public int getTcpInstances () {
+        return this.tcpInstances;
+    }
+
+    public int getHttpInstances () {
+        return this.httpInstances;
+    }
+
+    public boolean isNativeTransport () {
+        return this.nativeTransport;
+    }
+
+    public boolean isHttp2 () {
+        return this.http2;
+    }
+
+    public boolean isSsl () {
+        return this.ssl;
+    }
+
+    public String getKeyStorePath () {
+        return this.keyStorePath;
+    }
+
+    public String getKeyStorePassword () {
+        return this.keyStorePassword;
+    }
+
+    public boolean isCompression () {
+        return this.compression;
+    }
+
+    public int getCompressionLevel () {
+        return this.compressionLevel;
+    }
+
+    public int getCompressionMinSize () {
+        return this.compressionMinSize;
+    }
+
+    public List<String> getCompressibleTypes () {
+        return this.compressibleTypes;
+    }
+
+    public int getPrecompressedCacheSize () {
+        return this.precompressedCacheSize;
+    }
+
+    public int getETagCacheSize () {
+        return this.etagCacheSize;
+    }
+
+    public long getETagCacheTTL () {
+        return this.etagCacheTTL;
+    }
+
+    public boolean isRequestCoalescing () {
+        return this.requestCoalescing;
+    }
+
+    public long getRouteTimeoutMin () {
+        return this.routeTimeoutMin;
+    }
+
+    public long getRouteTimeoutMax () {
+        return this.routeTimeoutMax;
+    }
+
+    public double getRouteTimeoutMultiplier () {
+        return this.routeTimeoutMultiplier;
+    }
+
+    public Map<String,Long> getRouteTimeouts () {
+        return this.routeTimeouts;
+    }
+
+    public int getCircuitBreakerThreshold () {
+        return this.circuitBreakerThreshold;
+    }
+
+    public long getCircuitBreakerResetTimeout () {
+        return this.circuitBreakerResetTimeout;
+    }
+
+    public boolean isHedgedRequests () {
+        return this.hedgedRequests;
+    }
+
+    public double getHedgePercentile () {
+        return this.hedgePercentile;
+    }
+
+    public long getHedgeMinDelay () {
+        return this.hedgeMinDelay;
+    }
+
+    public double getHedgeBudget () {
+        return this.hedgeBudget;
+    }
+
+    public boolean isLoadBalancing () {
+        return this.loadBalancing;
+    }
+
+    public boolean isStickyRouting () {
+        return this.stickyRouting;
+    }
+
+    public double getStickyLoadFactor () {
+        return this.stickyLoadFactor;
+    }
+
+    public boolean isRejectUnknownRoutes () {
+        return this.rejectUnknownRoutes;
+    }
+
+    /**
+    * apply HTTP/2 settings (stream concurrency and flow-control windows) to options of HTTP server
+     *
+     * @param options HTTP server options
+    */
+    public void applyHttp2Options (HttpServerOptions options) {
+        Http2Settings settings = options.getInitialSettings();
+        settings.setMaxConcurrentStreams(this.http2MaxConcurrentStreams);
+
+        if (this.http2InitialWindowSize > 0) {
+            settings.setInitialWindowSize(this.http2InitialWindowSize);
+        }
+
+        if (this.http2ConnectionWindowSize > 0) {
+            options.setHttp2ConnectionWindowSize(this.http2ConnectionWindowSize);
+        }
+    }
+
+    /**
+    * apply socket options to options of TCP or HTTP server
+     *
+     * @param options server options
+    */
+    public void applySocketOptions (NetServerOptions options) {
+        this.applyTcpOptions(options);
+
+        if (this.acceptBacklog > 0) {
+            options.setAcceptBacklog(this.acceptBacklog);
+        }
+    }
+
+    /**
+    * apply socket options to options of clustered event bus
+     *
+     * @param options event bus options
+    */
+    public void applySocketOptions (EventBusOptions options) {
+        this.applyTcpOptions(options);
+
+        if (this.acceptBacklog > 0) {
+            options.setAcceptBacklog(this.acceptBacklog);
+        }
+    }
+
+    protected void applyTcpOptions (TCPSSLOptions options) {
+        options.setTcpNoDelay(this.tcpNoDelay);
+        options.setReusePort(this.reusePort);
+        options.setTcpFastOpen(this.tcpFastOpen);
+        options.setTcpQuickAck(this.tcpQuickAck);
+
+        if (this.receiveBufferSize > 0) {
+            options.setReceiveBufferSize(this.receiveBufferSize);
+        }
+
+        if (this.sendBufferSize > 0) {
+            options.setSendBufferSize(this.sendBufferSize);
+        }
+    }
+
+    @Override
+    public void loadFromJSON(JsonObject json) {
+        this.tcpPort = json.getInteger("tcp_port", this.tcpPort);
+        this.httpPort = json.getInteger("http_port", this.httpPort);
+        this.maxInFlightRequests = json.getInteger("max_in_flight_requests", this.maxInFlightRequests);
+        this.maxFrameSize = json.getInteger("max_frame_size", this.maxFrameSize);
+        this.writeQueueMaxSize = json.getInteger("write_queue_max_size", this.writeQueueMaxSize);
+        this.webSocketPath = json.getString("websocket_path", this.webSocketPath);
+        this.maxBatchSize = json.getInteger("max_batch_size", this.maxBatchSize);
+        this.maxSubscriptions = json.getInteger("max_subscriptions", this.maxSubscriptions);
+        this.pushHistorySize = json.getInteger("push_history_size", this.pushHistorySize);
+        this.ssePath = json.getString("sse_path", this.ssePath);
+        this.sseHeartbeatInterval = json.getLong("sse_heartbeat_interval", this.sseHeartbeatInterval);
+        this.tcpInstances = json.getInteger("tcp_instances", this.tcpInstances);
+        this.httpInstances = json.getInteger("http_instances", this.httpInstances);
+        this.nativeTransport = json.getBoolean("native_transport", this.nativeTransport);
+        this.tcpNoDelay = json.getBoolean("tcp_no_delay", this.tcpNoDelay);
+        this.reusePort = json.getBoolean("reuse_port", this.reusePort);
+        this.tcpFastOpen = json.getBoolean("tcp_fast_open", this.tcpFastOpen);
+        this.tcpQuickAck = json.getBoolean("tcp_quick_ack", this.tcpQuickAck);
+        this.receiveBufferSize = json.getInteger("receive_buffer_size", this.receiveBufferSize);
+        this.sendBufferSize = json.getInteger("send_buffer_size", this.sendBufferSize);
+        this.acceptBacklog = json.getInteger("accept_backlog", this.acceptBacklog);
+        this.http2 = json.getBoolean("http2", this.http2);
+        this.ssl = json.getBoolean("ssl", this.ssl);
+        this.keyStorePath = json.getString("key_store_path", this.keyStorePath);
+        this.keyStorePassword = json.getString("key_store_password", this.keyStorePassword);
+        this.http2MaxConcurrentStreams = json.getLong("http2_max_concurrent_streams", this.http2MaxConcurrentStreams);
+        this.http2InitialWindowSize = json.getInteger("http2_initial_window_size", this.http2InitialWindowSize);
+        this.http2ConnectionWindowSize = json.getInteger("http2_connection_window_size", this.http2ConnectionWindowSize);
+        this.compression = json.getBoolean("compression", this.compression);
+        this.compressionLevel = json.getInteger("compression_level", this.compressionLevel);
+        this.compressionMinSize = json.getInteger("compression_min_size", this.compressionMinSize);
+        this.precompressedCacheSize = json.getInteger("precompressed_cache_size", this.precompressedCacheSize);
+        this.etagCacheSize = json.getInteger("etag_cache_size", this.etagCacheSize);
+        this.etagCacheTTL = json.getLong("etag_cache_ttl", this.etagCacheTTL);
+        this.requestCoalescing = json.getBoolean("request_coalescing", this.requestCoalescing);
+        this.routeTimeoutMin = json.getLong("route_timeout_min", this.routeTimeoutMin);
+        this.routeTimeoutMax = json.getLong("route_timeout_max", this.routeTimeoutMax);
+        this.routeTimeoutMultiplier = json.getDouble("route_timeout_multiplier", this.routeTimeoutMultiplier);
+        this.circuitBreakerThreshold = json.getInteger("circuit_breaker_threshold", this.circuitBreakerThreshold);
+        this.circuitBreakerResetTimeout = json.getLong("circuit_breaker_reset_timeout", this.circuitBreakerResetTimeout);
+        this.hedgedRequests = json.getBoolean("hedged_requests", this.hedgedRequests);
+        this.hedgePercentile = json.getDouble("hedge_percentile", this.hedgePercentile);
+        this.hedgeMinDelay = json.getLong("hedge_min_delay", this.hedgeMinDelay);
+        this.hedgeBudget = json.getDouble("hedge_budget", this.hedgeBudget);
+        this.loadBalancing = json.getBoolean("load_balancing", this.loadBalancing);
+        this.stickyRouting = json.getBoolean("sticky_routing", this.stickyRouting);
+        this.stickyLoadFactor = json.getDouble("sticky_load_factor", this.stickyLoadFactor);
+        this.rejectUnknownRoutes = json.getBoolean("reject_unknown_routes", this.rejectUnknownRoutes);
+
+        if (json.containsKey("route_timeouts")) {
+            Map<String,Long> map = new HashMap<>();
+            JsonObject timeouts = json.getJsonObject("route_timeouts");
+
+            for (String event : timeouts.fieldNames()) {
+                map.put(event, timeouts.getLong(event));
+            }
+
+            this.routeTimeouts = map;
+        }
+
+        if (json.containsKey("websocket_allowed_origins")) {
+            List<String> list = new ArrayList<>();
+
+            for (Object origin : json.getJsonArray("websocket_allowed_origins")) {
+                list.add(((String) origin).toLowerCase());
+            }
+
+            this.webSocketAllowedOrigins = list;
+        }
+
+        if (json.containsKey("compressible_types")) {
+            List<String> list = new ArrayList<>();
+
+            for (Object type : json.getJsonArray("compressible_types")) {
+                list.add(((String) type).toLowerCase());
+            }
+
+            this.compressibleTypes = list;
+        }
+
+        if (this.maxInFlightRequests <= 0) {
+            throw new IllegalArgumentException("max_in_flight_requests has to be greater than 0.");
+        }
+
+        if (this.maxFrameSize <= 0) {
+            throw new IllegalArgumentException("max_frame_size has to be greater than 0.");
+        }
+
+        if (this.writeQueueMaxSize <= 0) {
+            throw new IllegalArgumentException("write_queue_max_size has to be greater than 0.");
+        }
+
+        if (this.maxBatchSize <= 0) {
+            throw new IllegalArgumentException("max_batch_size has to be greater than 0.");
+        }
+
+        if (this.maxSubscriptions <= 0) {
+            throw new IllegalArgumentException("max_subscriptions has to be greater than 0.");
+        }
+
+        if (this.pushHistorySize < 0) {
+            throw new IllegalArgumentException("push_history_size cannot be negative.");
+        }
+
+        if (this.sseHeartbeatInterval <= 0) {
+            throw new IllegalArgumentException("sse_heartbeat_interval has to be greater than 0.");
+        }
+
+        if (this.tcpInstances <= 0) {
+            throw new IllegalArgumentException("tcp_instances has to be greater than 0.");
+        }
+
+        if (this.httpInstances <= 0) {
+            throw new IllegalArgumentException("http_instances has to be greater than 0.");
+        }
+
+        if (this.http2MaxConcurrentStreams <= 0) {
+            throw new IllegalArgumentException("http2_max_concurrent_streams has to be greater than 0.");
+        }
+
+        if (this.compressionLevel < 1 || this.compressionLevel > 9) {
+            throw new IllegalArgumentException("compression_level has to be between 1 and 9.");
+        }
+
+        if (this.compressionMinSize < 0) {
+            throw new IllegalArgumentException("compression_min_size cannot be negative.");
+        }
+
+        if (this.precompressedCacheSize < 0) {
+            throw new IllegalArgumentException("precompressed_cache_size cannot be negative.");
+        }
+
+        if (this.etagCacheSize < 0) {
+            throw new IllegalArgumentException("etag_cache_size cannot be negative.");
+        }
+
+        if (this.routeTimeoutMin <= 0 || this.routeTimeoutMax < this.routeTimeoutMin) {
+            throw new IllegalArgumentException("route_timeout_min has to be greater than 0 and route_timeout_max cannot be less than route_timeout_min.");
+        }
+
+        if (this.routeTimeoutMultiplier < 1) {
+            throw new IllegalArgumentException("route_timeout_multiplier has to be at least 1.");
+        }
+
+        for (Map.Entry<String,Long> entry : this.routeTimeouts.entrySet()) {
+            if (entry.getValue() == null || entry.getValue() <= 0) {
+                throw new IllegalArgumentException("timeout of route " + entry.getKey() + " has to be greater than 0.");
+            }
+        }
+
+        if (this.circuitBreakerThreshold <= 0) {
+            throw new IllegalArgumentException("circuit_breaker_threshold has to be greater than 0.");
+        }
+
+        if (this.circuitBreakerResetTimeout <= 0) {
+            throw new IllegalArgumentException("circuit_breaker_reset_timeout has to be greater than 0.");
+        }
+
+        if (this.hedgePercentile <= 0 || this.hedgePercentile >= 1) {
+            throw new IllegalArgumentException("hedge_percentile has to be between 0 and 1.");
+        }
+
+        if (this.hedgeMinDelay <= 0) {
+            throw new IllegalArgumentException("hedge_min_delay has to be greater than 0.");
+        }
+
+        if (this.hedgeBudget < 0 || this.hedgeBudget > 100) {
+            throw new IllegalArgumentException("hedge_budget has to be between 0 and 100.");
+        }
+
+        if (this.hedgedRequests && !this.loadBalancing) {
+            throw new IllegalArgumentException("hedged_requests requires load_balancing.");
+        }
+
+        if (this.stickyRouting && !this.loadBalancing) {
+            throw new IllegalArgumentException("sticky_routing requires load_balancing.");
+        }
+
+        if (this.stickyLoadFactor < 1) {
+            throw new IllegalArgumentException("sticky_load_factor has to be greater than or equal to 1.");
+        }
+    }
+
+    /**
+    * load gateway configuration, default values are used if config file doesnt exists
+     *
+     * @param configFile path to config file
+     *
+     * @return instance of gateway config
+    */
+    public static GatewayConfig load (String configFile) throws IOException {
+        GatewayConfig config = new GatewayConfig();
+
+        //check, if config file exists
+        if (new File(configFile).exists()) {
+            //read file content
+            String content = FileUtils.readFile(configFile, StandardCharsets.UTF_8);
+
+            config.loadFromJSON(new JsonObject(content));
+        }
+
+        return config;
+    }
+
+}
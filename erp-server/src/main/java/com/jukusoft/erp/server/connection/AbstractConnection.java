@@ -0,0 +1,477 @@
+package com.jukusoft.erp.server.connection;
+
+import com.jukusoft.erp.lib.session.Session;
+import com.jukusoft.erp.server.config.GatewayConfig;
+import com.jukusoft.erp.server.push.PushMessage;
+import com.jukusoft.erp.server.push.PushSubscriber;
+import com.jukusoft.erp.server.tcp.protocol.JsonWireProtocol;
+import com.jukusoft.erp.server.tcp.protocol.WireProtocol;
+import io.vertx.core.Context;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.net.SocketAddress;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.core.streams.WriteStream;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+/**
+* State of a persistent client connection (TCP or websocket).
+ *
+ * Clients can pipeline requests, so multiple requests can be in flight at the same time.
+ * Replies are written in the order they arrive from the cluster, clients match them by their messageID.
+ * If the in-flight window is full, reading from the connection is paused until replies were sent.
+ * Reading is also paused, while the write queue of the connection is full (slow client), so memory of the gateway stays bounded.
+ * The session of the connection is cached, until it is invalidated by the cluster.
+ * Push messages of subscribed topics are written between replies, they dont use a slot of the in-flight window.
+ *
+ * All methods (except session and push methods) have to be called from the event loop of the connection.
+*/
+public abstract class AbstractConnection implements PushSubscriber {
+
+    //stream of incoming messages
+    protected final ReadStream<Buffer> readStream;
+
+    //stream of outgoing messages
+    protected final WriteStream<Buffer> writeStream;
+
+    //vert.x context (event loop) of the connection
+    protected final Context vertxContext;
+
+    //maximum number of requests, which can be in flight at the same time
+    protected final int maxInFlightRequests;
+
+    //number of requests, which wasnt answered yet
+    protected int inFlightRequests = 0;
+
+    //frames, which were received while the in-flight window was full
+    protected final Queue<Buffer> pendingFrames = new ArrayDeque<>();
+
+    //handler which processes a single request frame
+    protected Handler<Buffer> requestHandler = null;
+
+    //flag, if reading from connection is paused
+    protected boolean paused = false;
+
+    //flag, if write queue of connection is full and we wait for the drain handler
+    protected boolean writeQueueFull = false;
+
+    //metrics
+    protected long bytesWritten = 0;
+    protected long queuedBytes = 0;
+    protected long writeQueueFullCount = 0;
+    protected long droppedPushMessages = 0;
+
+    //flag, if pending frames are processed at the moment (avoids recursion for synchronous replies)
+    protected boolean processing = false;
+
+    //flag, if connection was closed
+    protected boolean closed = false;
+
+    //wire protocol of this connection
+    protected WireProtocol protocol = JsonWireProtocol.INSTANCE;
+
+    //handler which is called, if connection was closed
+    protected Handler<Void> closeHandler = null;
+
+    //handlers which are called once, if write queue was drained or connection was closed (streaming responses)
+    protected final List<Handler<Void>> drainHandlers = new ArrayList<>();
+
+    //session which is bound to this connection, so it doesnt have to be read from cluster for every request
+    protected Session session = null;
+
+    //id of session, which is used by this connection
+    protected String sessionID = null;
+
+    //incremented every time the session of this connection is invalidated
+    protected long sessionStamp = 0;
+
+    //id of transient guest session, which was issued by gateway for this connection (isnt written to cache until login)
+    protected String guestSessionID = null;
+
+    /**
+    * default constructor
+     *
+     * @param readStream stream of incoming messages
+     * @param writeStream stream of outgoing messages
+     * @param config gateway configuration
+    */
+    protected AbstractConnection (ReadStream<Buffer> readStream, WriteStream<Buffer> writeStream, GatewayConfig config) {
+        if (readStream == null) {
+            throw new NullPointerException("read stream cannot be null.");
+        }
+
+        if (writeStream == null) {
+            throw new NullPointerException("write stream cannot be null.");
+        }
+
+        if (config == null) {
+            throw new NullPointerException("config cannot be null.");
+        }
+
+        this.readStream = readStream;
+        this.writeStream = writeStream;
+        this.vertxContext = Vertx.currentContext();
+        this.maxInFlightRequests = config.getMaxInFlightRequests();
+
+        //set maximum size of write queue, writeQueueFull() returns true, if more bytes are queued
+        this.writeStream.setWriteQueueMaxSize(config.getWriteQueueMaxSize());
+    }
+
+    /**
+    * set handler which is called for every request frame. Every request has to be answered with exactly one reply.
+     *
+     * @param handler request handler
+    */
+    public void requestHandler (Handler<Buffer> handler) {
+        this.requestHandler = handler;
+    }
+
+    protected void handleFrame (Buffer frame) {
+        this.pendingFrames.add(frame);
+
+        this.processPendingFrames();
+    }
+
+    protected void processPendingFrames () {
+        if (this.processing) {
+            return;
+        }
+
+        this.processing = true;
+
+        try {
+            while (!this.closed && !this.pendingFrames.isEmpty() && this.inFlightRequests < this.maxInFlightRequests && !this.writeQueueFull) {
+                Buffer frame = this.pendingFrames.poll();
+
+                this.inFlightRequests++;
+
+                this.requestHandler.handle(frame);
+            }
+        } finally {
+            this.processing = false;
+        }
+
+        this.updateReadState();
+    }
+
+    protected void updateReadState () {
+        if (this.closed) {
+            return;
+        }
+
+        boolean pause = this.inFlightRequests >= this.maxInFlightRequests || this.writeQueueFull;
+
+        if (pause && !this.paused) {
+            this.readStream.pause();
+            this.paused = true;
+        } else if (!pause && this.paused) {
+            this.readStream.resume();
+            this.paused = false;
+        }
+    }
+
+    /**
+    * encode reply envelope with wire protocol of connection, write it to client and release its slot in the in-flight window
+     *
+     * @param json reply envelope
+    */
+    public void reply (JsonObject json) {
+        this.reply(this.protocol.encodeResponse(json));
+    }
+
+    /**
+    * write raw reply of a request to client and release its slot in the in-flight window
+     *
+     * @param str reply
+    */
+    public void reply (String str) {
+        this.reply(Buffer.buffer(str));
+    }
+
+    /**
+     * write reply of a request to client and release its slot in the in-flight window
+     *
+     * @param payload reply
+     */
+    public void reply (Buffer payload) {
+        if (!this.closed) {
+            this.write(payload);
+        }
+
+        this.inFlightRequests--;
+
+        this.processPendingFrames();
+    }
+
+    /**
+    * write part of a streaming response to client, the slot in the in-flight window is released by the last part ({@link #reply(JsonObject)})
+     *
+     * @param json part envelope
+    */
+    public void writePart (JsonObject json) {
+        if (!this.closed) {
+            this.write(this.protocol.encodeResponse(json));
+        }
+    }
+
+    /**
+    * add handler, which is called once, if write queue was drained or connection was closed
+     *
+     * @param handler drain handler
+    */
+    public void addDrainHandler (Handler<Void> handler) {
+        this.drainHandlers.add(handler);
+    }
+
+    protected void callDrainHandlers () {
+        if (this.drainHandlers.isEmpty()) {
+            return;
+        }
+
+        List<Handler<Void>> handlers = new ArrayList<>(this.drainHandlers);
+        this.drainHandlers.clear();
+
+        for (Handler<Void> handler : handlers) {
+            handler.handle(null);
+        }
+    }
+
+    /**
+    * write a single encoded message to the client
+     *
+     * @param payload encoded message
+    */
+    protected abstract void writeMessage (Buffer payload);
+
+    protected void write (Buffer payload) {
+        this.writeMessage(payload);
+        this.bytesWritten += payload.length();
+
+        if (this.writeQueueFull) {
+            //write stream doesnt report, when a message was sent, so count bytes until write queue is drained
+            this.queuedBytes += payload.length();
+        } else if (this.writeStream.writeQueueFull()) {
+            //client doesnt read fast enough, stop reading new requests until write queue is drained
+            this.writeQueueFull = true;
+            this.writeQueueFullCount++;
+            this.queuedBytes = payload.length();
+
+            this.writeStream.drainHandler(v -> {
+                this.writeQueueFull = false;
+                this.queuedBytes = 0;
+
+                this.callDrainHandlers();
+                this.processPendingFrames();
+            });
+        }
+    }
+
+    @Override
+    public void push (PushMessage message) {
+        if (this.vertxContext == null || Vertx.currentContext() == this.vertxContext) {
+            this.writePushMessage(message);
+        } else {
+            this.vertxContext.runOnContext(v -> this.writePushMessage(message));
+        }
+    }
+
+    protected void writePushMessage (PushMessage message) {
+        if (this.closed) {
+            return;
+        }
+
+        if (this.writeQueueFull) {
+            //client doesnt read fast enough, drop push message instead of queueing it
+            this.droppedPushMessages++;
+            return;
+        }
+
+        this.write(message.getPayload(this.protocol));
+    }
+
+    /**
+    * has to be called by subclasses, if the underlying connection was closed
+    */
+    protected void handleClose () {
+        this.closed = true;
+        this.pendingFrames.clear();
+        this.callDrainHandlers();
+
+        if (this.closeHandler != null) {
+            this.closeHandler.handle(null);
+        }
+    }
+
+    /**
+    * set handler which is called, if connection was closed
+     *
+     * @param handler close handler
+    */
+    public void closeHandler (Handler<Void> handler) {
+        this.closeHandler = handler;
+    }
+
+    public void close () {
+        this.closed = true;
+        this.pendingFrames.clear();
+        this.callDrainHandlers();
+
+        this.doClose();
+    }
+
+    protected abstract void doClose ();
+
+    /**
+    * get session which is bound to this connection
+     *
+     * @param ssid session id of request
+     *
+     * @return bound session or null, if no session with this id is bound (or it was invalidated)
+    */
+    public synchronized Session getBoundSession (String ssid) {
+        if (this.session != null && this.session.getSessionID().equals(ssid)) {
+            return this.session;
+        }
+
+        return null;
+    }
+
+    /**
+    * has to be called before session is read from cluster, so invalidations during the read are recognized
+     *
+     * @param ssid session id
+     *
+     * @return stamp, which has to be passed to {@link #bindSession(Session, long)}
+    */
+    public synchronized long watchSession (String ssid) {
+        if (!ssid.equals(this.sessionID)) {
+            this.session = null;
+            this.sessionID = ssid;
+        }
+
+        return this.sessionStamp;
+    }
+
+    /**
+    * bind session to connection, if it wasnt invalidated since {@link #watchSession(String)} was called
+     *
+     * @param session session
+     * @param stamp stamp returned by watchSession()
+    */
+    public synchronized void bindSession (Session session, long stamp) {
+        if (stamp == this.sessionStamp && session.getSessionID().equals(this.sessionID)) {
+            this.session = session;
+        }
+    }
+
+    /**
+    * get id of session, which is used by this connection
+     *
+     * @return session id or null, if connection hasnt used a session yet
+    */
+    public synchronized String getSessionID () {
+        return this.sessionID;
+    }
+
+    /**
+    * remember transient guest session, which was issued by gateway for this connection
+     *
+     * @param ssid id of guest session
+    */
+    public synchronized void setGuestSessionID (String ssid) {
+        this.guestSessionID = ssid;
+    }
+
+    /**
+    * check, if session id belongs to the transient guest session of this connection
+     *
+     * @param ssid session id
+     *
+     * @return true, if session id was issued by gateway for this connection
+    */
+    public synchronized boolean isGuestSession (String ssid) {
+        return this.guestSessionID != null && this.guestSessionID.equals(ssid);
+    }
+
+    /**
+    * invalidate session of connection, if session id matches. Can be called from any thread.
+     *
+     * @param ssid id of changed session
+     *
+     * @return true, if connection uses this session
+    */
+    public synchronized boolean invalidateSession (String ssid) {
+        if (ssid.equals(this.sessionID)) {
+            this.session = null;
+            this.sessionStamp++;
+
+            return true;
+        }
+
+        return false;
+    }
+
+    public WireProtocol getProtocol () {
+        return this.protocol;
+    }
+
+    public boolean isWriteQueueFull () {
+        return this.writeQueueFull;
+    }
+
+    public boolean isClosed () {
+        return this.closed;
+    }
+
+    public int getInFlightRequests () {
+        return this.inFlightRequests;
+    }
+
+    /**
+    * get name of transport for logging and metrics
+     *
+     * @return name of transport
+    */
+    public abstract String getTransport ();
+
+    /**
+    * get number of bytes, which were written to the connection since its write queue is full (0, if client reads fast enough)
+     *
+     * @return number of queued bytes
+    */
+    public long getQueuedBytes () {
+        return this.queuedBytes;
+    }
+
+    /**
+    * get metrics of connection
+     *
+     * @return json object with connection metrics
+    */
+    public JsonObject getMetrics () {
+        JsonObject json = new JsonObject();
+
+        json.put("transport", this.getTransport());
+        json.put("host", this.remoteAddress().host());
+        json.put("port", this.remoteAddress().port());
+        json.put("protocol", this.protocol.getClass().getSimpleName());
+        json.put("in_flight_requests", this.inFlightRequests);
+        json.put("pending_frames", this.pendingFrames.size());
+        json.put("queued_bytes", this.getQueuedBytes());
+        json.put("bytes_written", this.bytesWritten);
+        json.put("write_queue_full_count", this.writeQueueFullCount);
+        json.put("dropped_push_messages", this.droppedPushMessages);
+        json.put("paused", this.paused);
+
+        return json;
+    }
+
+    public abstract SocketAddress remoteAddress ();
+
+}
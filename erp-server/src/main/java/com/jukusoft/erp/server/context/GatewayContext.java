@@ -0,0 +1,78 @@
+package com.jukusoft.erp.server.context;
+
+import com.jukusoft.erp.lib.gateway.ApiGateway;
+import com.jukusoft.erp.lib.logging.ILogging;
+import com.jukusoft.erp.lib.session.SessionManager;
+import com.jukusoft.erp.server.config.GatewayConfig;
+import com.jukusoft.erp.server.gateway.ETagCache;
+import com.jukusoft.erp.server.push.SubscriptionManager;
+import com.jukusoft.erp.server.connection.AbstractConnection;
+
+import java.util.Set;
+
+/**
+* Shared state of a gateway node, which is used by all front-end server instances (verticles).
+ *
+ * All front-end instances run on different event loops, so implementations have to be thread-safe.
+*/
+public interface GatewayContext {
+
+    public ILogging getLogger ();
+
+    /**
+    * get gateway configuration
+     *
+     * @return gateway configuration
+    */
+    public GatewayConfig getConfig ();
+
+    /**
+    * get api gateway, which sends requests to the cluster
+     *
+     * @return instance of api gateway
+    */
+    public ApiGateway getApiGateway ();
+
+    /**
+    * get instance of session manager
+     *
+     * @return instance of session manager
+    */
+    public SessionManager getSessionManager ();
+
+    /**
+    * get manager of push subscriptions
+     *
+     * @return subscription manager
+    */
+    public SubscriptionManager getSubscriptionManager ();
+
+    /**
+    * get versions (ETags) of responses, to answer conditional requests
+     *
+     * @return ETag cache
+    */
+    public ETagCache getETagCache ();
+
+    /**
+    * get open persistent connections (TCP, websocket) of all front-end instances
+     *
+     * @return thread-safe set of open connections
+    */
+    public Set<AbstractConnection> getConnections ();
+
+    /**
+    * check, if sessions can be cached per connection (session manager notifies about changed sessions)
+     *
+     * @return true, if sessions can be cached
+    */
+    public boolean isSessionCacheEnabled ();
+
+    /**
+    * generate cluster-wide unique message id
+     *
+     * @return message id
+    */
+    public long generateMessageID ();
+
+}
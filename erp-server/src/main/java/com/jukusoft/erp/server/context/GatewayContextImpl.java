@@ -0,0 +1,155 @@
+package com.jukusoft.erp.server.context;
+
+import com.hazelcast.core.IdGenerator;
+import com.jukusoft.erp.lib.gateway.ApiGateway;
+import com.jukusoft.erp.lib.logging.ILogging;
+import com.jukusoft.erp.lib.session.Session;
+import com.jukusoft.erp.lib.session.SessionManager;
+import com.jukusoft.erp.server.config.GatewayConfig;
+import com.jukusoft.erp.server.gateway.ETagCache;
+import com.jukusoft.erp.server.push.SubscriptionManager;
+import com.jukusoft.erp.server.connection.AbstractConnection;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class GatewayContextImpl implements GatewayContext {
+
+    //instance of logger
+    protected ILogging logger = null;
+
+    //gateway configuration
+    protected GatewayConfig config = null;
+
+    //api gateway
+    protected ApiGateway gateway = null;
+
+    //instance of session manager
+    protected SessionManager sessionManager = null;
+
+    //hazelcast ID generator for cluster-wide unique IDs
+    protected IdGenerator idGenerator = null;
+
+    //manager of push subscriptions
+    protected SubscriptionManager subscriptionManager = null;
+
+    //versions (ETags) of responses
+    protected ETagCache etagCache = null;
+
+    //open persistent connections (TCP, websocket) of all front-end instances
+    protected Set<AbstractConnection> connections = ConcurrentHashMap.newKeySet();
+
+    //flag, if sessions can be cached per connection
+    protected boolean sessionCacheEnabled = false;
+
+    public GatewayContextImpl (ILogging logger, GatewayConfig config, ApiGateway gateway, SessionManager sessionManager, IdGenerator idGenerator, SubscriptionManager subscriptionManager, ETagCache etagCache) {
+        if (logger == null) {
+            throw new NullPointerException("logger cannot be null.");
+        }
+
+        if (config == null) {
+            throw new NullPointerException("config cannot be null.");
+        }
+
+        if (gateway == null) {
+            throw new NullPointerException("gateway cannot be null.");
+        }
+
+        if (sessionManager == null) {
+            throw new NullPointerException("session manager cannot be null.");
+        }
+
+        if (idGenerator == null) {
+            throw new NullPointerException("id generator cannot be null.");
+        }
+
+        if (subscriptionManager == null) {
+            throw new NullPointerException("subscription manager cannot be null.");
+        }
+
+        if (etagCache == null) {
+            throw new NullPointerException("etag cache cannot be null.");
+        }
+
+        this.logger = logger;
+        this.config = config;
+        this.gateway = gateway;
+        this.sessionManager = sessionManager;
+        this.idGenerator = idGenerator;
+        this.subscriptionManager = subscriptionManager;
+        this.etagCache = etagCache;
+
+        //invalidate sessions which are bound to connections, if they were changed in cluster (login, logout)
+        try {
+            this.sessionManager.addInvalidationListener(this::invalidateSession);
+            this.sessionCacheEnabled = true;
+        } catch (UnsupportedOperationException e) {
+            logger.warn("session_cache", "sessions arent cached per connection: " + e.getMessage());
+        }
+    }
+
+    protected void invalidateSession (String ssid) {
+        //changed session is only read, if a connection with subscriptions uses it
+        Session session = null;
+        boolean sessionRead = false;
+
+        //sessions are changed rarely (login, logout), so iterating over all connections is ok here
+        for (AbstractConnection connection : this.connections) {
+            if (connection.invalidateSession(ssid) && !this.subscriptionManager.getTopics(connection).isEmpty()) {
+                if (!sessionRead) {
+                    session = this.sessionManager.getSession(ssid);
+                    sessionRead = true;
+                }
+
+                //private topics were resolved on subscription, so they could belong to a logged out user
+                this.subscriptionManager.updatePrivateTopics(connection, ssid, session != null && session.isLoggedIn() ? session.getUserID() : -1);
+            }
+        }
+    }
+
+    @Override
+    public ILogging getLogger() {
+        return this.logger;
+    }
+
+    @Override
+    public GatewayConfig getConfig() {
+        return this.config;
+    }
+
+    @Override
+    public ApiGateway getApiGateway() {
+        return this.gateway;
+    }
+
+    @Override
+    public SessionManager getSessionManager() {
+        return this.sessionManager;
+    }
+
+    @Override
+    public SubscriptionManager getSubscriptionManager() {
+        return this.subscriptionManager;
+    }
+
+    @Override
+    public ETagCache getETagCache() {
+        return this.etagCache;
+    }
+
+    @Override
+    public Set<AbstractConnection> getConnections() {
+        return this.connections;
+    }
+
+    @Override
+    public boolean isSessionCacheEnabled() {
+        return this.sessionCacheEnabled;
+    }
+
+    @Override
+    public long generateMessageID() {
+        return this.idGenerator.newId();
+    }
+
+}
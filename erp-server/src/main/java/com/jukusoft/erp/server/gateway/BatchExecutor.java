@@ -0,0 +1,197 @@
+package com.jukusoft.erp.server.gateway;
+
+import com.jukusoft.erp.lib.gateway.ResponseHandler;
+import com.jukusoft.erp.lib.message.StatusCode;
+import com.jukusoft.erp.lib.message.request.ApiRequest;
+import com.jukusoft.erp.lib.message.response.ApiResponse;
+import com.jukusoft.erp.server.context.GatewayContext;
+import io.vertx.core.Handler;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.util.Arrays;
+
+/**
+* Executes a batch request, which contains multiple sub-requests.
+ *
+ * All sub-requests share the session of the batch request and are sent into the cluster at the same time.
+ * The batch is answered with one combined response, which contains the responses of all sub-requests (in the same order) with their own status codes.
+ *
+ * Request data: {"requests": [{"event": "/list-menus", "data": {...}}, ...]}
+ * Response data: {"responses": [{"event": "/list-menus", "statusCode": 200, "status": "ok", "data": {...}}, ...]}
+*/
+public class BatchExecutor {
+
+    //event name of batch requests
+    public static final String EVENT_NAME = "/batch";
+
+    //shared state of gateway node
+    protected final GatewayContext context;
+
+    /**
+    * default constructor
+     *
+     * @param context gateway context
+    */
+    public BatchExecutor (GatewayContext context) {
+        if (context == null) {
+            throw new NullPointerException("context cannot be null.");
+        }
+
+        this.context = context;
+    }
+
+    /**
+    * check, if request is a batch request
+     *
+     * @param event event name
+     *
+     * @return true, if request is a batch request
+    */
+    public static boolean isBatchRequest (String event) {
+        return EVENT_NAME.equals(event);
+    }
+
+    /**
+    * execute batch request. Handler is called on the event loop of the caller.
+     *
+     * @param batchRequest batch request with session information
+     * @param handler handler which is called with the response data and status code of the batch
+    */
+    public void execute (ApiRequest batchRequest, BatchResponseHandler handler) {
+        JsonArray requests = null;
+
+        try {
+            requests = parseRequests(batchRequest);
+        } catch (IllegalArgumentException e) {
+            this.context.getLogger().warn(batchRequest.getMessageID(), "bad_batch_request", e.getMessage());
+
+            handler.handle(new JsonObject(), StatusCode.BAD_REQUEST);
+            return;
+        }
+
+        if (requests.size() > this.context.getConfig().getMaxBatchSize()) {
+            this.context.getLogger().warn(batchRequest.getMessageID(), "bad_batch_request", "batch contains " + requests.size() + " requests, but only " + this.context.getConfig().getMaxBatchSize() + " are allowed.");
+
+            handler.handle(new JsonObject(), StatusCode.BAD_REQUEST);
+            return;
+        }
+
+        if (requests.size() == 0) {
+            handler.handle(new JsonObject().put("responses", new JsonArray()), StatusCode.OK);
+            return;
+        }
+
+        JsonObject[] responses = new JsonObject[requests.size()];
+        int[] remaining = new int[] {requests.size()};
+
+        //all responses arrive on the event loop of the caller, so no synchronization is needed
+        Handler<Void> itemDoneHandler = v -> {
+            remaining[0]--;
+
+            if (remaining[0] == 0) {
+                handler.handle(new JsonObject().put("responses", new JsonArray(Arrays.asList((Object[]) responses))), StatusCode.OK);
+            }
+        };
+
+        for (int i = 0; i < requests.size(); i++) {
+            final int index = i;
+
+            JsonObject item = requests.getValue(i) instanceof JsonObject ? requests.getJsonObject(i) : null;
+            Object eventName = item != null ? item.getValue("event") : null;
+
+            if (!(eventName instanceof String) || isBatchRequest((String) eventName)) {
+                //invalide item or nested batch
+                responses[index] = generateItemResponse(eventName instanceof String ? (String) eventName : "", new JsonObject(), StatusCode.BAD_REQUEST);
+                itemDoneHandler.handle(null);
+
+                continue;
+            }
+
+            String event = (String) eventName;
+            JsonObject data = item.getValue("data") instanceof JsonObject ? item.getJsonObject("data") : new JsonObject();
+            data.put("ssid", batchRequest.getSessionID());
+
+            //create sub-request with session of batch request
+            ApiRequest req = new ApiRequest(event, data, this.context.generateMessageID(), batchRequest.getExternalID(), batchRequest.getSessionID(), batchRequest.isLoggedIn(), batchRequest.getUserID());
+
+            //copy meta information
+            for (String key : batchRequest.getMeta().fieldNames()) {
+                req.getMeta().put(key, batchRequest.getMeta().getValue(key));
+            }
+
+            this.context.getApiGateway().handleRequestAsync(req, new ResponseHandler() {
+                @Override
+                public void handleResponse(ApiResponse res) {
+                    if (res.getType() == ApiResponse.RESPONSE_TYPE.STREAM) {
+                        //streaming responses cannot be part of a batch response
+                        ((ResponseStreamReader) res.getStream()).cancel();
+                        responses[index] = generateItemResponse(res.getEvent(), new JsonObject(), StatusCode.BAD_REQUEST);
+                        itemDoneHandler.handle(null);
+
+                        return;
+                    }
+
+                    responses[index] = generateItemResponse(res.getEvent(), res.getData(), res.getStatusCode());
+                    itemDoneHandler.handle(null);
+                }
+
+                @Override
+                public void responseFailed() {
+                    responses[index] = generateItemResponse(event, new JsonObject(), StatusCode.SERVICE_UNAVAILABLE);
+                    itemDoneHandler.handle(null);
+
+                    context.getLogger().warn(req.getMessageID(), "request_failed", req.toString() + ", cause: " + StatusCode.SERVICE_UNAVAILABLE.name() + ".");
+                }
+            });
+        }
+    }
+
+    /**
+    * get sub-requests from batch data. HTTP clients send the sub-requests as json string (form attribute).
+     *
+     * @param req batch request
+     *
+     * @return json array with sub-requests
+    */
+    protected static JsonArray parseRequests (ApiRequest req) {
+        if (!req.has("requests")) {
+            throw new IllegalArgumentException("batch request doesnt contains requests.");
+        }
+
+        Object requests = req.getData().getValue("requests");
+
+        if (requests instanceof JsonArray) {
+            return (JsonArray) requests;
+        }
+
+        if (requests instanceof String) {
+            try {
+                return new JsonArray((String) requests);
+            } catch (DecodeException e) {
+                throw new IllegalArgumentException("requests of batch request isnt a valide json array: " + e.getMessage());
+            }
+        }
+
+        throw new IllegalArgumentException("requests of batch request isnt a json array.");
+    }
+
+    protected static JsonObject generateItemResponse (String event, JsonObject data, StatusCode statusCode) {
+        JsonObject json = new JsonObject();
+
+        json.put("event", event);
+        json.put("statusCode", statusCode.getValue());
+        json.put("status", statusCode.name().toLowerCase());
+        json.put("data", data);
+
+        return json;
+    }
+
+    public interface BatchResponseHandler {
+
+        public void handle (JsonObject data, StatusCode statusCode);
+
+    }
+
+}
@@ -0,0 +1,79 @@
+package com.jukusoft.erp.server.gateway;
+
+import com.jukusoft.erp.lib.message.StatusCode;
+import com.jukusoft.erp.lib.message.response.ApiResponse;
+import com.jukusoft.erp.server.connection.AbstractConnection;
+import com.jukusoft.erp.server.message.ResponseGenerator;
+import io.vertx.core.Handler;
+import io.vertx.core.json.JsonObject;
+
+/**
+* Writes a streaming response to a persistent connection (TCP or websocket), every row is a separate part (frame / message).
+ *
+ * The stream keeps its slot in the in-flight window until the end message was written.
+*/
+public class ConnectionStreamWriter extends ResponseStreamWriter {
+
+    protected final AbstractConnection connection;
+
+    /**
+    * default constructor
+     *
+     * @param connection client connection
+     * @param response streaming response of route
+    */
+    public ConnectionStreamWriter (AbstractConnection connection, ApiResponse response) {
+        super(response);
+
+        if (connection == null) {
+            throw new NullPointerException("connection cannot be null.");
+        }
+
+        this.connection = connection;
+    }
+
+    @Override
+    protected void writeHeader () {
+        this.connection.writePart(ResponseGenerator.generateResponseJSON(this.response.getEvent(), this.response.getData(), this.response.getSessionID(), this.response.getExternalID(), this.response.getStatusCode()).put("stream", true));
+    }
+
+    @Override
+    protected void writeRow (JsonObject row) {
+        JsonObject json = new JsonObject();
+        json.put("event", this.response.getEvent());
+        json.put("messageID", this.response.getExternalID());
+        json.put("row", row);
+
+        this.connection.writePart(json);
+    }
+
+    @Override
+    protected void writeEnd (StatusCode statusCode) {
+        //release slot in in-flight window
+        this.connection.reply(this.generateEnd(statusCode));
+    }
+
+    @Override
+    protected boolean isClosed () {
+        return this.connection.isClosed();
+    }
+
+    @Override
+    public boolean writeQueueFull () {
+        return this.connection.isWriteQueueFull();
+    }
+
+    @Override
+    public ConnectionStreamWriter drainHandler (Handler<Void> handler) {
+        this.connection.addDrainHandler(v -> {
+            if (this.connection.isClosed()) {
+                //client is gone, so route can stop producing rows
+                this.reader.cancel();
+            } else {
+                handler.handle(v);
+            }
+        });
+        return this;
+    }
+
+}
@@ -2,15 +2,20 @@ package com.jukusoft.erp.server.gateway;
 
 import com.jukusoft.erp.lib.gateway.ApiGateway;
 import com.jukusoft.erp.lib.gateway.ResponseHandler;
+import com.jukusoft.erp.lib.load.LoadRegistry;
 import com.jukusoft.erp.lib.logging.ILogging;
+import com.jukusoft.erp.lib.message.StatusCode;
 import com.jukusoft.erp.lib.message.request.ApiRequest;
 import com.jukusoft.erp.lib.message.request.ApiRequestCodec;
 import com.jukusoft.erp.lib.message.response.ApiResponse;
 import com.jukusoft.erp.lib.message.response.ApiResponseCodec;
+import com.jukusoft.erp.lib.route.RouteInfo;
+import com.jukusoft.erp.lib.route.RouteRegistry;
 import io.vertx.core.Vertx;
 import io.vertx.core.eventbus.DeliveryOptions;
 import io.vertx.core.eventbus.EventBus;
-import org.json.JSONObject;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.eventbus.ReplyFailure;
 
 public class DefaultApiGateway implements ApiGateway {
 
@@ -25,14 +30,49 @@ public class DefaultApiGateway implements ApiGateway {
 
     protected DeliveryOptions deliveryOptions = null;
 
+    //cluster-wide route registry to reject requests of unknown routes, can be null
+    protected RouteRegistry routeRegistry = null;
+
+    //coalesces concurrent identical requests of idempotent routes, can be null
+    protected RequestCoalescer requestCoalescer = null;
+
+    //timeouts and circuit breakers per route, can be null (fixed timeout of 5 seconds)
+    protected RouteMonitor routeMonitor = null;
+
+    //sends second copies of slow requests of idempotent routes, can be null
+    protected RequestHedger requestHedger = null;
+
+    //chooses least loaded app server of a route, can be null (round-robin)
+    protected LoadBalancer loadBalancer = null;
+
     /**
     * default constructor
      *
      * @param vertx instance of vert.x
     */
     public DefaultApiGateway (Vertx vertx, ILogging logger) {
+        this(vertx, logger, null, null, null, null, null);
+    }
+
+    /**
+    * default constructor
+     *
+     * @param vertx instance of vert.x
+     * @param logger logger
+     * @param routeRegistry route registry or null, if requests of unknown routes should be sent into the cluster
+     * @param requestCoalescer request coalescer or null, if requests shouldnt be coalesced
+     * @param routeMonitor route monitor or null, if all routes should use the default timeout
+     * @param requestHedger request hedger or null, if requests shouldnt be hedged
+     * @param loadBalancer load balancer or null, if requests should be sent round-robin
+    */
+    public DefaultApiGateway (Vertx vertx, ILogging logger, RouteRegistry routeRegistry, RequestCoalescer requestCoalescer, RouteMonitor routeMonitor, RequestHedger requestHedger, LoadBalancer loadBalancer) {
         this.vertx = vertx;
         this.logger = logger;
+        this.routeRegistry = routeRegistry;
+        this.requestCoalescer = requestCoalescer;
+        this.routeMonitor = routeMonitor;
+        this.requestHedger = requestHedger;
+        this.loadBalancer = loadBalancer;
 
         this.deliveryOptions = new DeliveryOptions();
 
@@ -49,10 +89,135 @@ public class DefaultApiGateway implements ApiGateway {
 
     @Override
     public void handleRequestAsync(ApiRequest request, ResponseHandler handler) {
+        if (this.routeRegistry != null) {
+            RouteInfo route = this.routeRegistry.getRoute(request.getEvent());
+
+            if (route == null) {
+                //no app server consumes this event, so caller doesnt have to wait for the timeout
+                this.logger.debug(request.getMessageID(), "unknown_route", "reject request, because no app server registered route: " + request.getEvent());
+                handler.handleResponse(this.createErrorResponse(request, StatusCode.NOT_FOUND));
+
+                return;
+            }
+
+            if (route.isLoginRequired() && !request.isLoggedIn()) {
+                //app server would answer with the same status code
+                handler.handleResponse(this.createErrorResponse(request, StatusCode.FORBIDDEN));
+
+                return;
+            }
+        }
+
+        if (this.requestCoalescer != null && this.requestCoalescer.isCoalescable(request)) {
+            //identical requests, which are in flight, share the response
+            this.requestCoalescer.handleRequest(request, handler, this::dispatchRequest);
+
+            return;
+        }
+
+        this.dispatchRequest(request, handler);
+    }
+
+    protected ApiResponse createErrorResponse (ApiRequest request, StatusCode statusCode) {
+        ApiResponse response = new ApiResponse(request.getMessageID(), request.getExternalID(), request.getSessionID(), request.getEvent());
+        response.setStatusCode(statusCode);
+
+        return response;
+    }
+
+    protected void dispatchRequest (ApiRequest request, ResponseHandler handler) {
+        if (this.requestHedger != null && this.requestHedger.isHedgeable(request)) {
+            //every copy is sent separately, so timeouts and circuit breakers apply to both
+            this.requestHedger.handleRequest(request, handler, this::sendRequest);
+
+            return;
+        }
+
+        this.sendRequest(request, handler, null);
+    }
+
+    protected String sendRequest (ApiRequest request, ResponseHandler handler, String excludedNodeID) {
+        String nodeID = null;
+
+        if (this.loadBalancer != null) {
+            //choose least loaded app server of route (or app server of user, if sticky routing is enabled).
+            //Second copies of hedged requests arent sent sticky, because they have to reach another app server
+            String affinityKey = excludedNodeID == null ? this.loadBalancer.getAffinityKey(request) : null;
+            nodeID = this.loadBalancer.selectNode(request.getEvent(), affinityKey, excludedNodeID);
+        }
+
+        if (excludedNodeID != null && nodeID == null) {
+            //no other app server of route is known
+            handler.responseFailed();
+
+            return null;
+        }
+
+        DeliveryOptions options = this.deliveryOptions;
+
+        if (this.routeMonitor != null) {
+            long timeout = this.routeMonitor.acquire(request.getEvent());
+
+            if (timeout < 0) {
+                if (nodeID != null) {
+                    this.loadBalancer.onComplete(nodeID);
+                }
+
+                //circuit breaker of route is open, so caller doesnt have to wait for the timeout
+                this.logger.debug(request.getMessageID(), "circuit_breaker_open", "reject request, because circuit breaker of route is open: " + request.getEvent());
+                handler.responseFailed();
+
+                return null;
+            }
+
+            options = new DeliveryOptions(this.deliveryOptions).setSendTimeout(timeout);
+        }
+
+        this.send(request, nodeID, excludedNodeID == null, options, System.nanoTime(), handler);
+
+        return nodeID;
+    }
+
+    protected void send (ApiRequest request, String nodeID, boolean fallback, DeliveryOptions options, long startTime, ResponseHandler handler) {
+        String address = nodeID != null ? LoadRegistry.getNodeAddress(request.getEvent(), nodeID) : request.getEvent();
+
         //send message into cluster
-        this.eventBus.send(request.getEvent(), request, this.deliveryOptions, reply -> {
+        this.eventBus.send(address, request, options, reply -> {
+            if (nodeID != null) {
+                this.loadBalancer.onComplete(nodeID);
+
+                if (reply.failed() && reply.cause() instanceof ReplyException && ((ReplyException) reply.cause()).failureType() == ReplyFailure.NO_HANDLERS) {
+                    //app server left the cluster or doesnt consume the route anymore
+                    this.loadBalancer.removeNode(nodeID);
+
+                    if (fallback) {
+                        //send request to any other app server (second copies of hedged requests arent sent round-robin, they could reach the app server of the first copy)
+                        this.send(request, null, false, options, startTime, handler);
+
+                        return;
+                    }
+                }
+            }
+
+            if (this.routeMonitor != null) {
+                long latency = (System.nanoTime() - startTime) / 1000000;
+
+                if (reply.succeeded()) {
+                    this.routeMonitor.onSuccess(request.getEvent(), latency);
+                } else {
+                    this.routeMonitor.onFailure(request.getEvent(), latency);
+                }
+            }
+
             if (reply.succeeded()) {
-                handler.handleResponse((ApiResponse) reply.result().body());
+                ApiResponse response = (ApiResponse) reply.result().body();
+
+                if (response.getType() == ApiResponse.RESPONSE_TYPE.STREAM) {
+                    //rows are pulled chunk by chunk from route
+                    response.setStream(new ResponseStreamReader(reply.result()));
+                }
+
+                handler.handleResponse(response);
             } else {
                 handler.responseFailed();
             }
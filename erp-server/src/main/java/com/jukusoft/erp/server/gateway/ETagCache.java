@@ -0,0 +1,258 @@
+package com.jukusoft.erp.server.gateway;
+
+import com.jukusoft.erp.lib.message.StatusCode;
+import com.jukusoft.erp.lib.message.request.ApiRequest;
+import com.jukusoft.erp.lib.message.response.ApiResponse;
+import com.jukusoft.erp.lib.push.PushTopics;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.json.JsonObject;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+* Versions (ETags) of responses, which were sent by the gateway node.
+ *
+ * Routes declare an ETag and the push topics, which invalidate it. Until one of these topics is published
+ * (or the entry expires), the gateway can answer conditional requests with NOT_MODIFIED without asking the app server.
+*/
+public class ETagCache {
+
+    //name of meta field, which contains the version known by the client (only read by the gateway, app servers dont check it)
+    public static final String META_KNOWN_ETAG = "if_none_match";
+
+    //instance of vert.x
+    protected final Vertx vertx;
+
+    //maximum number of entries
+    protected final int maxSize;
+
+    //time to live of an entry in milliseconds
+    protected final long ttl;
+
+    //cached versions per request key (least recently used entry is removed first)
+    protected final Map<String,Entry> entries;
+
+    //request keys per invalidation topic
+    protected final Map<String,Set<String>> keysByTopic = new HashMap<>();
+
+    //event bus consumer per invalidation topic
+    protected final Map<String,MessageConsumer<Object>> consumers = new HashMap<>();
+
+    //number of conditional requests, which were answered without app server
+    protected long hits = 0;
+
+    /**
+    * default constructor
+     *
+     * @param vertx instance of vert.x
+     * @param maxSize maximum number of cached versions
+     * @param ttl time to live of a cached version in milliseconds
+    */
+    public ETagCache (Vertx vertx, int maxSize, long ttl) {
+        if (vertx == null) {
+            throw new NullPointerException("vertx cannot be null.");
+        }
+
+        this.vertx = vertx;
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+
+        this.entries = new LinkedHashMap<String,Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String,Entry> eldest) {
+                if (this.size() <= maxSize) {
+                    return false;
+                }
+
+                //entry is removed by map, but other entries can still depend on its topics
+                removeTopics(eldest.getKey(), eldest.getValue());
+
+                return true;
+            }
+        };
+    }
+
+    /**
+    * check, if client already has the current version of the response, so gateway can answer with NOT_MODIFIED
+     *
+     * @param req api request
+     * @param knownETag version known by client (value of If-None-Match header or known version field)
+     *
+     * @return current version, if client already has it, otherwise null
+    */
+    public synchronized String getMatchingETag (ApiRequest req, String knownETag) {
+        String key = getKey(req);
+        Entry entry = this.entries.get(key);
+
+        if (entry == null) {
+            return null;
+        }
+
+        if (entry.expires < System.currentTimeMillis()) {
+            this.remove(key);
+
+            return null;
+        }
+
+        if (matches(knownETag, entry.etag)) {
+            this.hits++;
+
+            return entry.etag;
+        }
+
+        return null;
+    }
+
+    /**
+    * remember version of response, if route has declared an ETag
+     *
+     * @param req api request
+     * @param res api response
+    */
+    public synchronized void update (ApiRequest req, ApiResponse res) {
+        if (res.getETag() == null || res.getStatusCode() != StatusCode.OK) {
+            return;
+        }
+
+        String key = getKey(req);
+
+        //remove old entry (also from topics)
+        this.remove(key);
+
+        if (this.maxSize <= 0 || res.getETagTopics().length == 0) {
+            //without invalidation topics the gateway cannot know, when version changes
+            return;
+        }
+
+        this.entries.put(key, new Entry(res.getETag(), res.getETagTopics(), System.currentTimeMillis() + this.ttl));
+
+        for (String topic : res.getETagTopics()) {
+            Set<String> keys = this.keysByTopic.get(topic);
+
+            if (keys == null) {
+                keys = new HashSet<>();
+                this.keysByTopic.put(topic, keys);
+
+                //one consumer per topic, every publication invalidates all versions of this topic
+                this.consumers.put(topic, this.vertx.eventBus().consumer(PushTopics.getAddress(topic), message -> this.invalidate(topic)));
+            }
+
+            keys.add(key);
+        }
+    }
+
+    /**
+    * invalidate all versions, which depend on topic
+     *
+     * @param topic name of push topic
+    */
+    public synchronized void invalidate (String topic) {
+        Set<String> keys = this.keysByTopic.get(topic);
+
+        if (keys == null) {
+            return;
+        }
+
+        for (String key : new HashSet<>(keys)) {
+            this.remove(key);
+        }
+    }
+
+    protected void remove (String key) {
+        Entry entry = this.entries.remove(key);
+
+        if (entry == null) {
+            return;
+        }
+
+        this.removeTopics(key, entry);
+    }
+
+    protected void removeTopics (String key, Entry entry) {
+        for (String topic : entry.topics) {
+            Set<String> keys = this.keysByTopic.get(topic);
+
+            if (keys != null) {
+                keys.remove(key);
+
+                if (keys.isEmpty()) {
+                    //nobody depends on topic anymore
+                    this.keysByTopic.remove(topic);
+                    this.consumers.remove(topic).unregister();
+                }
+            }
+        }
+    }
+
+    public synchronized JsonObject getMetrics () {
+        JsonObject json = new JsonObject();
+        json.put("etag_entries", this.entries.size());
+        json.put("etag_hits", this.hits);
+
+        return json;
+    }
+
+    /**
+    * check, if ETag matches value of If-None-Match header (list of ETags, can contain weak ETags and quotes)
+     *
+     * @param ifNoneMatch value of If-None-Match header or known version
+     * @param etag current ETag
+     *
+     * @return true, if ETag matches
+    */
+    public static boolean matches (String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+
+        for (String str : ifNoneMatch.split(",")) {
+            str = str.trim();
+
+            if (str.startsWith("W/")) {
+                str = str.substring(2);
+            }
+
+            if (str.length() >= 2 && str.startsWith("\"") && str.endsWith("\"")) {
+                str = str.substring(1, str.length() - 1);
+            }
+
+            if (str.equals(etag) || str.equals("*")) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+    * get key of request, responses of same event, user and parameters have the same version
+    */
+    protected static String getKey (ApiRequest req) {
+        //sort parameters, session id isnt part of the key
+        TreeMap<String,Object> params = new TreeMap<>(req.getData().getMap());
+        params.remove("ssid");
+
+        return req.getEvent() + "|" + req.getUserID() + "|" + params.toString();
+    }
+
+    protected static class Entry {
+
+        protected final String etag;
+        protected final String[] topics;
+        protected final long expires;
+
+        protected Entry (String etag, String[] topics, long expires) {
+            this.etag = etag;
+            this.topics = topics;
+            this.expires = expires;
+        }
+
+    }
+
+}
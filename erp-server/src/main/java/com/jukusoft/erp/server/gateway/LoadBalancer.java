@@ -0,0 +1,320 @@
+package com.jukusoft.erp.server.gateway;
+
+import com.jukusoft.erp.lib.load.LoadRegistry;
+import com.jukusoft.erp.lib.load.NodeLoad;
+import com.jukusoft.erp.lib.message.request.ApiRequest;
+import com.jukusoft.erp.server.config.GatewayConfig;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+* Chooses the least loaded app server of a route, based on the load signals which app servers publish periodically
+ * (requests in flight, event loop lag and delay of worker queue) and the requests which this gateway sent since then.
+ *
+ * If sticky routing is enabled, requests of a user (or session) are sent to the same app server (consistent hashing with bounded load),
+ * so local caches of app servers stay warm. An app server is skipped, if its load exceeds the load factor times the average load of the route.
+ *
+ * If no app server of the route published its load yet, the request is sent to the event name (round-robin).
+*/
+public class LoadBalancer {
+
+    //interval in milliseconds, in which the local copy of the load registry is refreshed
+    protected static final long REFRESH_INTERVAL = 500;
+
+    //number of points per app server on the hash ring, so keys are distributed evenly
+    protected static final int VIRTUAL_NODES = 64;
+
+    protected final LoadRegistry loadRegistry;
+
+    protected final boolean stickyRouting;
+    protected final double stickyLoadFactor;
+
+    //hash ring of all app servers, replaced on every refresh (one ring for all routes, so a user is sent to the same app server for every route)
+    protected volatile TreeMap<Long,String> hashRing = new TreeMap<>();
+
+    //app servers per event name, replaced on every refresh
+    protected volatile Map<String,List<NodeLoad>> routeNodes = Collections.emptyMap();
+
+    //requests per node ID, which were sent by this gateway and arent answered yet
+    protected final Map<String,AtomicInteger> pendingRequests = new ConcurrentHashMap<>();
+
+    //number of requests, which were sent to a chosen app server
+    protected final AtomicLong balancedRequests = new AtomicLong(0);
+
+    /**
+    * default constructor
+     *
+     * @param loadRegistry cluster-wide load registry
+     * @param config gateway configuration
+    */
+    public LoadBalancer (LoadRegistry loadRegistry, GatewayConfig config) {
+        if (loadRegistry == null) {
+            throw new NullPointerException("load registry cannot be null.");
+        }
+
+        this.loadRegistry = loadRegistry;
+        this.stickyRouting = config.isStickyRouting();
+        this.stickyLoadFactor = config.getStickyLoadFactor();
+    }
+
+    /**
+    * refresh load of app servers periodically
+     *
+     * @param vertx instance of vert.x
+    */
+    public void start (Vertx vertx) {
+        this.refresh();
+
+        vertx.setPeriodic(REFRESH_INTERVAL, id -> this.refresh());
+    }
+
+    /**
+    * read current load of app servers from load registry
+    */
+    public void refresh () {
+        Map<String,List<NodeLoad>> routeNodes = new HashMap<>();
+        Set<String> nodes = new HashSet<>();
+        TreeMap<Long,String> hashRing = new TreeMap<>();
+
+        for (NodeLoad load : this.loadRegistry.listNodes()) {
+            nodes.add(load.getNodeID());
+
+            for (String event : load.getRoutes()) {
+                routeNodes.computeIfAbsent(event, key -> new ArrayList<>()).add(load);
+            }
+
+            if (this.stickyRouting) {
+                for (int i = 0; i < VIRTUAL_NODES; i++) {
+                    hashRing.put(hash(load.getNodeID() + "#" + i), load.getNodeID());
+                }
+            }
+        }
+
+        this.routeNodes = routeNodes;
+        this.hashRing = hashRing;
+
+        //remove counters of app servers, which left the cluster
+        this.pendingRequests.keySet().removeIf(nodeID -> !nodes.contains(nodeID));
+    }
+
+    /**
+    * get key, which identifies the app server of sticky routing
+     *
+     * @param req api request
+     *
+     * @return user ID (or session ID of guests) or null, if sticky routing is disabled
+    */
+    public String getAffinityKey (ApiRequest req) {
+        if (!this.stickyRouting) {
+            return null;
+        }
+
+        if (req.isLoggedIn()) {
+            return "user." + req.getUserID();
+        }
+
+        return req.getSessionID() != null && !req.getSessionID().isEmpty() ? req.getSessionID() : null;
+    }
+
+    /**
+    * choose least loaded app server of route and count request as pending, until {@link #onComplete(String)} is called
+     *
+     * @param event event name
+     *
+     * @return node ID of app server or null, if no app server of route published its load
+    */
+    public String selectNode (String event) {
+        return this.selectNode(event, null);
+    }
+
+    /**
+    * choose app server of route and count request as pending, until {@link #onComplete(String)} is called
+     *
+     * @param event event name
+     * @param affinityKey key of sticky routing or null, if least loaded app server should be chosen
+     *
+     * @return node ID of app server or null, if no app server of route published its load
+    */
+    public String selectNode (String event, String affinityKey) {
+        return this.selectNode(event, affinityKey, null);
+    }
+
+    /**
+    * choose app server of route and count request as pending, until {@link #onComplete(String)} is called
+     *
+     * @param event event name
+     * @param affinityKey key of sticky routing or null, if least loaded app server should be chosen
+     * @param excludedNodeID node ID of app server, which shouldnt be chosen (e.q. app server of first copy of a hedged request), or null
+     *
+     * @return node ID of app server or null, if no (other) app server of route published its load
+    */
+    public String selectNode (String event, String affinityKey, String excludedNodeID) {
+        List<NodeLoad> nodes = this.routeNodes.get(event);
+
+        if (nodes == null || nodes.isEmpty()) {
+            return null;
+        }
+
+        if (excludedNodeID != null) {
+            nodes = new ArrayList<>(nodes);
+            nodes.removeIf(node -> node.getNodeID().equals(excludedNodeID));
+
+            if (nodes.isEmpty()) {
+                return null;
+            }
+        }
+
+        NodeLoad selectedNode = affinityKey != null ? this.selectStickyNode(nodes, affinityKey) : null;
+
+        if (selectedNode == null) {
+            long minScore = Long.MAX_VALUE;
+
+            for (NodeLoad node : nodes) {
+                long score = this.getScore(node);
+
+                if (score < minScore) {
+                    selectedNode = node;
+                    minScore = score;
+                }
+            }
+        }
+
+        this.pendingRequests.computeIfAbsent(selectedNode.getNodeID(), key -> new AtomicInteger(0)).incrementAndGet();
+        this.balancedRequests.incrementAndGet();
+
+        return selectedNode.getNodeID();
+    }
+
+    /**
+    * choose first app server on hash ring (clockwise from key), which consumes the route and isnt overloaded
+    */
+    protected NodeLoad selectStickyNode (List<NodeLoad> nodes, String affinityKey) {
+        Map<String,NodeLoad> nodeMap = new HashMap<>();
+        long totalScore = 0;
+
+        for (NodeLoad node : nodes) {
+            nodeMap.put(node.getNodeID(), node);
+            totalScore += this.getScore(node);
+        }
+
+        //bounded load: app server has to stay below load factor times average load (including the new request)
+        long maxScore = (long) Math.ceil(this.stickyLoadFactor * (totalScore + 1) / nodes.size());
+
+        TreeMap<Long,String> hashRing = this.hashRing;
+        long hash = hash(affinityKey);
+
+        for (Map<Long,String> part : Arrays.asList(hashRing.tailMap(hash, true), hashRing.headMap(hash, false))) {
+            for (String nodeID : part.values()) {
+                NodeLoad node = nodeMap.get(nodeID);
+
+                if (node != null && this.getScore(node) + 1 <= maxScore) {
+                    return node;
+                }
+            }
+        }
+
+        //app server was removed after refresh of hash ring
+        return null;
+    }
+
+    /**
+    * request to app server was answered or failed
+     *
+     * @param nodeID node ID of app server
+    */
+    public void onComplete (String nodeID) {
+        AtomicInteger counter = this.pendingRequests.get(nodeID);
+
+        if (counter != null) {
+            counter.decrementAndGet();
+        }
+    }
+
+    /**
+    * dont choose app server until next refresh, e.q. because it doesnt consume the route anymore
+     *
+     * @param nodeID node ID of app server
+    */
+    public void removeNode (String nodeID) {
+        Map<String,List<NodeLoad>> routeNodes = new HashMap<>();
+
+        for (Map.Entry<String,List<NodeLoad>> entry : this.routeNodes.entrySet()) {
+            List<NodeLoad> nodes = new ArrayList<>(entry.getValue());
+            nodes.removeIf(node -> node.getNodeID().equals(nodeID));
+
+            routeNodes.put(entry.getKey(), nodes);
+        }
+
+        this.routeNodes = routeNodes;
+    }
+
+    /**
+    * get load score of app server, 1 millisecond of lag counts like 1 request in flight
+    */
+    protected long getScore (NodeLoad node) {
+        AtomicInteger pending = this.pendingRequests.get(node.getNodeID());
+
+        //reported requests contain the requests of this gateway, which were pending at the time of the report
+        long inFlightRequests = Math.max(node.getInFlightRequests(), pending != null ? pending.get() : 0);
+
+        return inFlightRequests + node.getEventLoopLag() + node.getWorkerQueueDelay();
+    }
+
+    /**
+    * 64 bit FNV-1a hash with murmur3 finalizer, so similar keys (e.q. "nodeID#1" and "nodeID#2") are spread over the hash ring
+    */
+    protected static long hash (String key) {
+        long hash = 0xcbf29ce484222325L;
+
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+
+        return hash;
+    }
+
+    public JsonObject getMetrics () {
+        JsonObject appServers = new JsonObject();
+
+        for (List<NodeLoad> nodes : this.routeNodes.values()) {
+            for (NodeLoad node : nodes) {
+                AtomicInteger pending = this.pendingRequests.get(node.getNodeID());
+
+                JsonObject json = new JsonObject();
+                json.put("in_flight_requests", node.getInFlightRequests());
+                json.put("event_loop_lag", node.getEventLoopLag());
+                json.put("worker_queue_delay", node.getWorkerQueueDelay());
+                json.put("pending_requests", pending != null ? pending.get() : 0);
+
+                appServers.put(node.getNodeID(), json);
+            }
+        }
+
+        JsonObject json = new JsonObject();
+        json.put("load_balanced_requests", this.balancedRequests.get());
+        json.put("app_servers", appServers);
+
+        return json;
+    }
+
+}
@@ -0,0 +1,172 @@
+package com.jukusoft.erp.server.gateway;
+
+import com.jukusoft.erp.lib.gateway.ApiGateway;
+import com.jukusoft.erp.lib.gateway.ResponseHandler;
+import com.jukusoft.erp.lib.message.request.ApiRequest;
+import com.jukusoft.erp.lib.message.response.ApiResponse;
+import com.jukusoft.erp.lib.route.RouteRegistry;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+* Coalesces concurrent identical requests of idempotent routes (marked with {@link com.jukusoft.erp.lib.annotation.Idempotent}).
+ *
+ * The first request is sent into the cluster, identical requests which arrive before its response wait for it
+ * and get a copy of the response. Requests are identical, if event, data (without session id), known version and permission fingerprint are equal.
+*/
+public class RequestCoalescer {
+
+    //registry of routes, which are idempotent
+    protected final RouteRegistry routeRegistry;
+
+    //waiting requests per key of in-flight request
+    protected final Map<String,List<Waiter>> inFlightRequests = new HashMap<>();
+
+    //number of requests, which were answered with the response of another request
+    protected long coalescedRequests = 0;
+
+    /**
+    * default constructor
+     *
+     * @param routeRegistry cluster-wide route registry
+    */
+    public RequestCoalescer (RouteRegistry routeRegistry) {
+        if (routeRegistry == null) {
+            throw new NullPointerException("route registry cannot be null.");
+        }
+
+        this.routeRegistry = routeRegistry;
+    }
+
+    /**
+    * check, if request can be coalesced with identical requests
+     *
+     * @param req api request
+     *
+     * @return true, if route of request is idempotent
+    */
+    public boolean isCoalescable (ApiRequest req) {
+        return this.routeRegistry.isIdempotent(req.getEvent());
+    }
+
+    /**
+    * send request into cluster, if no identical request is in flight, otherwise wait for response of in-flight request.
+     * Handlers are called on the context of their caller.
+     *
+     * @param req api request
+     * @param handler response handler
+     * @param gateway api gateway, which sends requests into the cluster
+    */
+    public void handleRequest (ApiRequest req, ResponseHandler handler, ApiGateway gateway) {
+        String key = getKey(req);
+
+        synchronized (this) {
+            List<Waiter> waiters = this.inFlightRequests.get(key);
+
+            if (waiters != null) {
+                waiters.add(new Waiter(req, handler, Vertx.currentContext()));
+                this.coalescedRequests++;
+
+                return;
+            }
+
+            this.inFlightRequests.put(key, new ArrayList<>());
+        }
+
+        gateway.handleRequestAsync(req, new ResponseHandler() {
+            @Override
+            public void handleResponse(ApiResponse res) {
+                List<Waiter> waiters = complete(key);
+
+                for (Waiter waiter : waiters) {
+                    if (res.getType() == ApiResponse.RESPONSE_TYPE.STREAM) {
+                        //rows of a stream can only be read once, so waiting requests are sent separately
+                        waiter.run(() -> gateway.handleRequestAsync(waiter.req, waiter.handler));
+                    } else {
+                        //copy before response is used, so encoded data is shared and not encoded again
+                        ApiResponse copy = res.copy(waiter.req.getMessageID(), waiter.req.getExternalID(), waiter.req.getSessionID());
+                        waiter.run(() -> waiter.handler.handleResponse(copy));
+                    }
+                }
+
+                handler.handleResponse(res);
+            }
+
+            @Override
+            public void responseFailed() {
+                List<Waiter> waiters = complete(key);
+
+                for (Waiter waiter : waiters) {
+                    waiter.run(waiter.handler::responseFailed);
+                }
+
+                handler.responseFailed();
+            }
+        });
+    }
+
+    protected synchronized List<Waiter> complete (String key) {
+        return this.inFlightRequests.remove(key);
+    }
+
+    public synchronized JsonObject getMetrics () {
+        JsonObject json = new JsonObject();
+        json.put("coalesced_requests", this.coalescedRequests);
+        json.put("coalescable_requests_in_flight", this.inFlightRequests.size());
+
+        return json;
+    }
+
+    /**
+    * get key of request, identical requests have the same key
+    */
+    protected static String getKey (ApiRequest req) {
+        //sort parameters, session id isnt part of the key
+        TreeMap<String,Object> params = new TreeMap<>(req.getData().getMap());
+        params.remove("ssid");
+
+        //conditional requests can be answered with NOT_MODIFIED, so version known by client is part of the key
+        String knownETag = req.getMeta().getString(ETagCache.META_KNOWN_ETAG, "");
+
+        return req.getEvent() + "|" + getPermissionFingerprint(req) + "|" + knownETag + "|" + params.toString();
+    }
+
+    /**
+    * permissions are loaded by the app server per user id, so the user identifies the permissions (all guests have the same permissions)
+    */
+    protected static String getPermissionFingerprint (ApiRequest req) {
+        return req.isLoggedIn() ? "user." + req.getUserID() : "guest";
+    }
+
+    protected static class Waiter {
+
+        protected final ApiRequest req;
+        protected final ResponseHandler handler;
+
+        //context of caller, can be null
+        protected final Context context;
+
+        protected Waiter (ApiRequest req, ResponseHandler handler, Context context) {
+            this.req = req;
+            this.handler = handler;
+            this.context = context;
+        }
+
+        protected void run (Runnable runnable) {
+            if (this.context == null || this.context == Vertx.currentContext()) {
+                runnable.run();
+            } else {
+                this.context.runOnContext(v -> runnable.run());
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,255 @@
+package com.jukusoft.erp.server.gateway;
+
+import com.jukusoft.erp.lib.gateway.ResponseHandler;
+import com.jukusoft.erp.lib.message.request.ApiRequest;
+import com.jukusoft.erp.lib.message.response.ApiResponse;
+import com.jukusoft.erp.lib.route.RouteRegistry;
+import com.jukusoft.erp.server.config.GatewayConfig;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+* Sends a second copy (hedge) of requests of idempotent routes, if the first copy takes longer than the latency percentile of the route.
+ *
+ * The copy is sent to the least loaded app server of the route except the app server of the first copy (without sticky routing), so a single slow app server doesnt delay the response.
+ * Requests are only hedged, if the load balancer knows the app servers of the route, otherwise the copy could reach the same app server.
+ * Whichever response arrives first is used, the other one is dropped (streams are cancelled). The number of hedges is limited by a budget (percentage of requests).
+*/
+public class RequestHedger {
+
+    //counters of budget are halved after this number of requests, so budget follows the current traffic
+    protected static final long BUDGET_WINDOW = 10000;
+
+    protected final Vertx vertx;
+    protected final RouteRegistry routeRegistry;
+    protected final RouteMonitor routeMonitor;
+
+    protected final double percentile;
+    protected final long minDelay;
+    protected final double budget;
+
+    //requests and hedges of current budget window
+    protected long windowRequests = 0;
+    protected long windowHedges = 0;
+
+    //statistics
+    protected final AtomicLong hedgedRequests = new AtomicLong(0);
+    protected final AtomicLong hedgeWins = new AtomicLong(0);
+
+    /**
+    * default constructor
+     *
+     * @param vertx instance of vert.x
+     * @param routeRegistry registry of idempotent routes
+     * @param routeMonitor route monitor, which observes latencies of routes
+     * @param config gateway configuration
+    */
+    public RequestHedger (Vertx vertx, RouteRegistry routeRegistry, RouteMonitor routeMonitor, GatewayConfig config) {
+        if (vertx == null) {
+            throw new NullPointerException("vertx cannot be null.");
+        }
+
+        if (routeRegistry == null) {
+            throw new NullPointerException("route registry cannot be null.");
+        }
+
+        if (routeMonitor == null) {
+            throw new NullPointerException("route monitor cannot be null.");
+        }
+
+        this.vertx = vertx;
+        this.routeRegistry = routeRegistry;
+        this.routeMonitor = routeMonitor;
+        this.percentile = config.getHedgePercentile();
+        this.minDelay = config.getHedgeMinDelay();
+        this.budget = config.getHedgeBudget();
+    }
+
+    /**
+    * check, if request can be hedged (only requests of idempotent routes are sent twice)
+     *
+     * @param req api request
+     *
+     * @return true, if route of request is idempotent
+    */
+    public boolean isHedgeable (ApiRequest req) {
+        return this.routeRegistry.isIdempotent(req.getEvent());
+    }
+
+    /**
+    * send request and send a second copy, if no response was received after hedge delay of route
+     *
+     * @param req api request
+     * @param handler response handler, which is called exactly once
+     * @param sender sends copies of request into the cluster
+    */
+    public void handleRequest (ApiRequest req, ResponseHandler handler, RequestSender sender) {
+        long delay = this.getHedgeDelay(req.getEvent());
+
+        synchronized (this) {
+            this.windowRequests++;
+
+            if (this.windowRequests >= BUDGET_WINDOW) {
+                this.windowRequests /= 2;
+                this.windowHedges /= 2;
+            }
+        }
+
+        if (delay < 0) {
+            //latencies of route arent known yet
+            sender.send(req, handler, null);
+            return;
+        }
+
+        HedgedRequest hedgedRequest = new HedgedRequest(handler);
+        String nodeID = sender.send(req, hedgedRequest.createHandler(false), null);
+
+        if (nodeID == null) {
+            //app server of first copy isnt known, so second copy could be sent to the same app server
+            return;
+        }
+
+        hedgedRequest.setTimer(this.vertx.setTimer(delay, id -> {
+            if (hedgedRequest.isDone() || !this.tryAcquireHedge()) {
+                return;
+            }
+
+            if (sender.send(req, hedgedRequest.createHandler(true), nodeID) == null) {
+                //no other app server of route is known or circuit breaker is open
+                this.releaseHedge();
+                return;
+            }
+
+            this.hedgedRequests.incrementAndGet();
+        }));
+    }
+
+    /**
+    * get delay, after which a second copy of a request is sent
+     *
+     * @param event event name
+     *
+     * @return delay in milliseconds or -1, if latencies of route arent known yet
+    */
+    public long getHedgeDelay (String event) {
+        long latency = this.routeMonitor.getLatencyPercentile(event, this.percentile);
+
+        if (latency < 0) {
+            return -1;
+        }
+
+        return Math.max(this.minDelay, latency);
+    }
+
+    protected synchronized boolean tryAcquireHedge () {
+        if ((this.windowHedges + 1) * 100 > this.budget * this.windowRequests) {
+            //budget is exhausted
+            return false;
+        }
+
+        this.windowHedges++;
+
+        return true;
+    }
+
+    protected synchronized void releaseHedge () {
+        this.windowHedges = Math.max(0, this.windowHedges - 1);
+    }
+
+    public JsonObject getMetrics () {
+        JsonObject json = new JsonObject();
+        json.put("hedged_requests", this.hedgedRequests.get());
+        json.put("hedge_wins", this.hedgeWins.get());
+
+        return json;
+    }
+
+    protected class HedgedRequest {
+
+        protected final ResponseHandler handler;
+
+        //number of copies, which are in flight
+        protected int pending = 0;
+
+        protected boolean done = false;
+        protected long timerID = -1;
+
+        protected HedgedRequest (ResponseHandler handler) {
+            this.handler = handler;
+        }
+
+        protected synchronized void setTimer (long timerID) {
+            if (this.done) {
+                vertx.cancelTimer(timerID);
+            } else {
+                this.timerID = timerID;
+            }
+        }
+
+        protected synchronized boolean isDone () {
+            return this.done;
+        }
+
+        protected synchronized ResponseHandler createHandler (boolean hedge) {
+            this.pending++;
+
+            return new ResponseHandler() {
+                @Override
+                public void handleResponse(ApiResponse res) {
+                    if (!complete(hedge)) {
+                        //other copy was faster, rows of losing stream arent needed
+                        if (res.getType() == ApiResponse.RESPONSE_TYPE.STREAM) {
+                            ((ResponseStreamReader) res.getStream()).cancel();
+                        }
+
+                        return;
+                    }
+
+                    handler.handleResponse(res);
+                }
+
+                @Override
+                public void responseFailed() {
+                    if (fail()) {
+                        handler.responseFailed();
+                    }
+                }
+            };
+        }
+
+        protected synchronized boolean complete (boolean hedge) {
+            this.pending--;
+
+            if (this.done) {
+                return false;
+            }
+
+            this.done = true;
+            vertx.cancelTimer(this.timerID);
+
+            if (hedge) {
+                hedgeWins.incrementAndGet();
+            }
+
+            return true;
+        }
+
+        protected synchronized boolean fail () {
+            this.pending--;
+
+            if (this.done || this.pending > 0) {
+                //response of other copy is used
+                return false;
+            }
+
+            this.done = true;
+            vertx.cancelTimer(this.timerID);
+
+            return true;
+        }
+
+    }
+
+}
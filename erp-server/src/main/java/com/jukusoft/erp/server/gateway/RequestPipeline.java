@@ -0,0 +1,275 @@
+package com.jukusoft.erp.server.gateway;
+
+import com.jukusoft.erp.lib.gateway.ResponseHandler;
+import com.jukusoft.erp.lib.logging.ILogging;
+import com.jukusoft.erp.lib.message.StatusCode;
+import com.jukusoft.erp.lib.message.request.ApiRequest;
+import com.jukusoft.erp.lib.message.response.ApiResponse;
+import com.jukusoft.erp.lib.session.Session;
+import com.jukusoft.erp.server.connection.AbstractConnection;
+import com.jukusoft.erp.server.context.GatewayContext;
+import com.jukusoft.erp.server.message.ResponseGenerator;
+import com.jukusoft.erp.server.push.SubscriptionManager;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+
+/**
+* Request pipeline of persistent client connections (TCP and websocket).
+ *
+ * Decodes request frames, resolves the session (bound to the connection), handles subscription and batch requests
+ * and sends all other requests into the cluster.
+*/
+public class RequestPipeline {
+
+    //shared state of gateway node
+    protected final GatewayContext context;
+
+    protected final ILogging logger;
+
+    //executes batch requests
+    protected final BatchExecutor batchExecutor;
+
+    /**
+    * default constructor
+     *
+     * @param context gateway context
+    */
+    public RequestPipeline (GatewayContext context) {
+        if (context == null) {
+            throw new NullPointerException("context cannot be null.");
+        }
+
+        this.context = context;
+        this.logger = context.getLogger();
+        this.batchExecutor = new BatchExecutor(context);
+    }
+
+    /**
+    * handle a single request frame of a persistent connection, every frame is answered with exactly one reply
+     *
+     * @param connection client connection
+     * @param frame request frame
+    */
+    public void handle (AbstractConnection connection, Buffer frame) {
+        //generate cluster-wide unique message id
+        final long messageID = this.context.generateMessageID();
+
+        JsonObject json = null;
+
+        try {
+            //decode message with wire protocol of connection
+            json = connection.getProtocol().decodeRequest(frame);
+        } catch (IllegalArgumentException e) {
+            //no valide message
+            logger.warn(messageID, "bad_request", e.getMessage());
+
+            //write error response
+            connection.reply(ResponseGenerator.generateResponseJSON("error", "", "none", StatusCode.BAD_REQUEST));
+
+            return;
+        }
+
+        //get external ID, if available
+        String externalID = "";
+
+        if (json.getValue("messageID") instanceof String) {
+            externalID = json.getString("messageID");
+        }
+
+        //check, if event name exists
+        if (!(json.getValue("event") instanceof String)) {
+            logger.warn(messageID, "bad_request", "event doesnt exists in message: " + json.encode());
+
+            //write error response
+            connection.reply(ResponseGenerator.generateResponseJSON("error", "", externalID, StatusCode.BAD_REQUEST));
+
+            return;
+        }
+
+        //get event name
+        String event = json.getString("event");
+
+        //get data
+        JsonObject data = json.getValue("data") instanceof JsonObject ? json.getJsonObject("data") : new JsonObject();
+
+        //fields, which have to be strings (json.getString() would throw an ClassCastException, so the request wouldnt be answered)
+        if ((json.containsKey("messageID") && !(json.getValue("messageID") instanceof String)) || (json.containsKey("knownVersion") && !(json.getValue("knownVersion") instanceof String))
+                || (data.containsKey("ssid") && !(data.getValue("ssid") instanceof String))) {
+            logger.warn(messageID, "bad_request", "messageID, knownVersion and ssid have to be strings: " + json.encode());
+
+            //write error response
+            connection.reply(ResponseGenerator.generateResponseJSON(event, "", externalID, StatusCode.BAD_REQUEST));
+
+            return;
+        }
+
+        //version (ETag) of response, which client already has
+        final String knownVersion = json.containsKey("knownVersion") ? json.getString("knownVersion") : null;
+
+        String sessionID = "";
+
+        //flag, if client has sent a session id, otherwise the session of the connection is used
+        boolean explicitSessionID = data.containsKey("ssid");
+
+        if (explicitSessionID) {
+            sessionID = data.getString("ssid");
+        } else if (connection.getSessionID() != null) {
+            sessionID = connection.getSessionID();
+        }
+
+        Session session = null;
+
+        //flag, if session is bound to connection (its private topics were already checked)
+        boolean bound = false;
+
+        if (!sessionID.isEmpty()) {
+            //use session which is bound to connection, so cluster doesnt have to be asked for every request
+            if (this.context.isSessionCacheEnabled()) {
+                session = connection.getBoundSession(sessionID);
+                bound = session != null;
+            }
+
+            if (session == null) {
+                long stamp = connection.watchSession(sessionID);
+
+                //get session by session manager
+                session = this.context.getSessionManager().getSession(sessionID);
+
+                if (session == null && connection.isGuestSession(sessionID)) {
+                    //guest session of this connection wasnt written to cache yet
+                    session = this.context.getSessionManager().createGuestSession(sessionID);
+                }
+
+                if (session == null && explicitSessionID) {
+                    //write error response
+                    connection.reply(ResponseGenerator.generateResponseJSON(event, sessionID, externalID, StatusCode.BAD_REQUEST));
+
+                    logger.warn(messageID, "wrong_session_id", "Couldnt find session ID: " + sessionID + " (IP: " + connection.remoteAddress().host() + ":"  + connection.remoteAddress().port() + ").");
+
+                    return;
+                }
+
+                if (session != null && this.context.isSessionCacheEnabled()) {
+                    connection.bindSession(session, stamp);
+                }
+            }
+        }
+
+        if (session == null) {
+            //create transient guest session, which is used for all following requests of this connection (only written to cache on login)
+            session = this.context.getSessionManager().createGuestSession();
+            connection.setGuestSessionID(session.getSessionID());
+
+            long stamp = connection.watchSession(session.getSessionID());
+
+            if (this.context.isSessionCacheEnabled()) {
+                connection.bindSession(session, stamp);
+            }
+        }
+
+        sessionID = session.getSessionID();
+
+        if (!bound) {
+            //subscribed private topics could belong to another session or user
+            this.updatePrivateTopics(connection, sessionID, session);
+        }
+
+        //create api request
+        ApiRequest req = new ApiRequest(event, data, messageID, externalID, sessionID, session.isLoggedIn(), session.getUserID());
+
+        //add meta information
+        req.getMeta().put("host", connection.remoteAddress().host());
+        req.getMeta().put("port", connection.remoteAddress().port());
+
+        //log request
+        this.logger.debug(messageID, "new_" + connection.getTransport() + "_request", req.toString());
+
+        if (SubscriptionManager.isSubscriptionRequest(event)) {
+            //subscriptions are handled by gateway itself
+            ApiResponse res = this.context.getSubscriptionManager().handleRequest(connection, req);
+            connection.reply(ResponseGenerator.generateResponseJSON(res.getEvent(), res.getData(), res.getSessionID(), res.getExternalID(), res.getStatusCode()));
+
+            return;
+        }
+
+        if (BatchExecutor.isBatchRequest(event)) {
+            //execute all sub-requests in parallel and send one combined response
+            this.batchExecutor.execute(req, (responseData, statusCode) -> {
+                connection.reply(ResponseGenerator.generateResponseJSON(event, responseData, req.getSessionID(), req.getExternalID(), statusCode));
+            });
+
+            return;
+        }
+
+        if (knownVersion != null) {
+            String etag = this.context.getETagCache().getMatchingETag(req, knownVersion);
+
+            if (etag != null) {
+                //client has the current version, so app server doesnt have to build the response
+                connection.reply(ResponseGenerator.generateResponseJSON(event, sessionID, externalID, StatusCode.NOT_MODIFIED).put("version", etag));
+
+                return;
+            }
+
+            //remember version known by client in request meta (e.q. part of the key of coalesced requests), response is compared by the gateway
+            req.getMeta().put(ETagCache.META_KNOWN_ETAG, knownVersion);
+        }
+
+        this.context.getApiGateway().handleRequestAsync(req, new ResponseHandler() {
+            @Override
+            public void handleResponse(ApiResponse res) {
+                if (res.isSessionChanged()) {
+                    //invalidation listener of session manager is called asynchronous, so client could send the next request before it
+                    connection.invalidateSession(req.getSessionID());
+
+                    //pushes of logged out user arent sent to this connection anymore
+                    updatePrivateTopics(connection, req.getSessionID(), context.getSessionManager().getSession(req.getSessionID()));
+                }
+
+                if (res.getType() == ApiResponse.RESPONSE_TYPE.JSON && res.getETag() != null) {
+                    //remember version, so following conditional requests can be answered by gateway
+                    context.getETagCache().update(req, res);
+
+                    if (res.getStatusCode() == StatusCode.OK && ETagCache.matches(knownVersion, res.getETag())) {
+                        //client has the current version, so body isnt sent again
+                        connection.reply(ResponseGenerator.generateResponseJSON(res.getEvent(), res.getSessionID(), res.getExternalID(), StatusCode.NOT_MODIFIED).put("version", res.getETag()));
+                    } else {
+                        connection.reply(connection.getProtocol().encodeResponse(res, res.getETag()));
+                    }
+
+                    logger.debug(messageID, "request_succedded", res.toString());
+                } else if (res.getType() == ApiResponse.RESPONSE_TYPE.STREAM) {
+                    //write every row as separate part
+                    new ConnectionStreamWriter(connection, res).start();
+                } else {
+                    //send response, encoded with wire protocol of connection (json data is passed through without parsing, content of CONTENT responses is part of data)
+                    connection.reply(connection.getProtocol().encodeResponse(res, null));
+
+                    logger.debug(messageID, "request_succedded", res.toString());
+                }
+            }
+
+            @Override
+            public void responseFailed() {
+                //write error response
+                connection.reply(ResponseGenerator.generateResponseJSON(event, req.getSessionID(), req.getExternalID(), StatusCode.SERVICE_UNAVAILABLE));
+
+                logger.warn(messageID, "request_failed", req.toString() + ", cause: " + StatusCode.SERVICE_UNAVAILABLE.name() + ".");
+            }
+        });
+    }
+
+    /**
+    * unsubscribe private topics of connection, which dont belong to its current session
+     *
+     * @param connection client connection
+     * @param sessionID current session id of connection
+     * @param session current session or null, if it doesnt exists anymore
+    */
+    protected void updatePrivateTopics (AbstractConnection connection, String sessionID, Session session) {
+        long userID = session != null && session.isLoggedIn() ? session.getUserID() : -1;
+
+        this.context.getSubscriptionManager().updatePrivateTopics(connection, sessionID, userID);
+    }
+
+}
@@ -0,0 +1,23 @@
+package com.jukusoft.erp.server.gateway;
+
+import com.jukusoft.erp.lib.gateway.ResponseHandler;
+import com.jukusoft.erp.lib.message.request.ApiRequest;
+
+/**
+* Sends a request into the cluster, optionally to any app server except one (e.q. second copy of a hedged request).
+*/
+@FunctionalInterface
+public interface RequestSender {
+
+    /**
+    * send request into cluster
+     *
+     * @param req api request
+     * @param handler response handler
+     * @param excludedNodeID node ID of app server, which shouldnt receive the request, or null
+     *
+     * @return node ID of app server, which receives the request, or null if app server isnt known (round-robin) or request wasnt sent
+    */
+    public String send (ApiRequest req, ResponseHandler handler, String excludedNodeID);
+
+}
@@ -0,0 +1,188 @@
+package com.jukusoft.erp.server.gateway;
+
+import com.jukusoft.erp.lib.stream.ResponseStream;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.ReadStream;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+* Gateway side of a streaming response ({@link ResponseStream}).
+ *
+ * The next chunk is only requested, if all rows of the previous chunk were delivered and the stream isnt paused,
+ * so the gateway buffers at most one chunk per stream.
+*/
+public class ResponseStreamReader implements ReadStream<JsonObject> {
+
+    protected final DeliveryOptions deliveryOptions = new DeliveryOptions().setSendTimeout(ResponseStream.TIMEOUT);
+
+    //last message of route, which wasnt answered yet
+    protected Message<Object> message = null;
+
+    //rows of current chunk, which wasnt delivered yet
+    protected final Queue<JsonObject> rows = new ArrayDeque<>();
+
+    protected Handler<JsonObject> handler = null;
+    protected Handler<Void> endHandler = null;
+    protected Handler<Throwable> exceptionHandler = null;
+
+    protected boolean paused = false;
+    protected boolean ended = false;
+    protected boolean closed = false;
+    protected String error = null;
+
+    //number of delivered rows
+    protected long rowCount = 0;
+
+    /**
+    * default constructor
+     *
+     * @param message streaming response of route
+    */
+    public ResponseStreamReader (Message<Object> message) {
+        if (message == null) {
+            throw new NullPointerException("message cannot be null.");
+        }
+
+        this.message = message;
+    }
+
+    protected void requestNextChunk () {
+        Message<Object> message = this.message;
+        this.message = null;
+
+        message.reply(new JsonObject().put(ResponseStream.NEXT, true), this.deliveryOptions, this::handleChunk);
+    }
+
+    protected void handleChunk (AsyncResult<Message<Object>> res) {
+        if (this.closed) {
+            return;
+        }
+
+        if (!res.succeeded()) {
+            this.fail(res.cause());
+
+            return;
+        }
+
+        Message<Object> message = res.result();
+        JsonObject json = (JsonObject) message.body();
+
+        JsonArray chunk = json.getJsonArray(ResponseStream.ROWS, new JsonArray());
+
+        for (int i = 0; i < chunk.size(); i++) {
+            this.rows.add(chunk.getJsonObject(i));
+        }
+
+        if (json.getBoolean(ResponseStream.END, false)) {
+            this.ended = true;
+            this.error = json.getString(ResponseStream.ERROR);
+        } else {
+            this.message = message;
+        }
+
+        this.deliver();
+    }
+
+    protected void deliver () {
+        while (!this.paused && !this.closed && !this.rows.isEmpty()) {
+            this.rowCount++;
+            this.handler.handle(this.rows.poll());
+        }
+
+        if (this.paused || this.closed || !this.rows.isEmpty()) {
+            return;
+        }
+
+        if (this.ended) {
+            this.closed = true;
+
+            if (this.error != null) {
+                this.fail(new IllegalStateException(this.error));
+            } else if (this.endHandler != null) {
+                this.endHandler.handle(null);
+            }
+        } else if (this.message != null) {
+            this.requestNextChunk();
+        }
+    }
+
+    protected void fail (Throwable cause) {
+        this.closed = true;
+        this.rows.clear();
+
+        if (this.exceptionHandler != null) {
+            this.exceptionHandler.handle(cause);
+        }
+    }
+
+    /**
+    * cancel stream (e.q. client has closed connection), so route stops producing rows
+    */
+    public void cancel () {
+        if (this.closed) {
+            return;
+        }
+
+        this.closed = true;
+        this.rows.clear();
+
+        if (this.message != null) {
+            this.message.reply(new JsonObject().put(ResponseStream.CANCEL, true));
+            this.message = null;
+        }
+    }
+
+    public long getRowCount () {
+        return this.rowCount;
+    }
+
+    @Override
+    public ResponseStreamReader handler (Handler<JsonObject> handler) {
+        this.handler = handler;
+
+        if (handler != null) {
+            this.deliver();
+        }
+
+        return this;
+    }
+
+    @Override
+    public ResponseStreamReader pause () {
+        this.paused = true;
+        return this;
+    }
+
+    @Override
+    public ResponseStreamReader resume () {
+        if (this.paused) {
+            this.paused = false;
+
+            if (this.handler != null) {
+                this.deliver();
+            }
+        }
+
+        return this;
+    }
+
+    @Override
+    public ResponseStreamReader endHandler (Handler<Void> handler) {
+        this.endHandler = handler;
+        return this;
+    }
+
+    @Override
+    public ResponseStreamReader exceptionHandler (Handler<Throwable> handler) {
+        this.exceptionHandler = handler;
+        return this;
+    }
+
+}
@@ -0,0 +1,119 @@
+package com.jukusoft.erp.server.gateway;
+
+import com.jukusoft.erp.lib.message.StatusCode;
+import com.jukusoft.erp.lib.message.response.ApiResponse;
+import io.vertx.core.Handler;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.Pump;
+import io.vertx.core.streams.WriteStream;
+
+/**
+* Writes the rows of a streaming response to a client.
+ *
+ * Rows are pumped from the {@link ResponseStreamReader}, so reading from the event bus is paused while the client connection is full.
+ * Every transport writes a header (response envelope of the route), the rows and an end message with the final status code.
+*/
+public abstract class ResponseStreamWriter implements WriteStream<JsonObject> {
+
+    //streaming response of route
+    protected final ApiResponse response;
+
+    protected final ResponseStreamReader reader;
+
+    //number of written rows
+    protected long rowCount = 0;
+
+    /**
+    * default constructor
+     *
+     * @param response streaming response of route
+    */
+    public ResponseStreamWriter (ApiResponse response) {
+        if (response == null) {
+            throw new NullPointerException("response cannot be null.");
+        }
+
+        if (!(response.getStream() instanceof ResponseStreamReader)) {
+            throw new IllegalArgumentException("response isnt a streaming response.");
+        }
+
+        this.response = response;
+        this.reader = (ResponseStreamReader) response.getStream();
+    }
+
+    /**
+    * write header and forward all rows of the stream to client
+    */
+    public void start () {
+        this.writeHeader();
+
+        this.reader.endHandler(v -> this.writeEnd(StatusCode.OK));
+        this.reader.exceptionHandler(e -> this.writeEnd(StatusCode.INTERNAL_SERVER_ERROR));
+
+        Pump.pump(this.reader, this).start();
+    }
+
+    protected abstract void writeHeader ();
+
+    protected abstract void writeRow (JsonObject row);
+
+    protected abstract void writeEnd (StatusCode statusCode);
+
+    /**
+    * check, if client connection was closed
+     *
+     * @return true, if connection was closed
+    */
+    protected abstract boolean isClosed ();
+
+    /**
+    * generate end message of stream
+     *
+     * @param statusCode final status code
+     *
+     * @return end message
+    */
+    protected JsonObject generateEnd (StatusCode statusCode) {
+        JsonObject json = new JsonObject();
+        json.put("event", this.response.getEvent());
+        json.put("messageID", this.response.getExternalID());
+        json.put("end", true);
+        json.put("rows", this.rowCount);
+        json.put("statusCode", statusCode.getValue());
+        json.put("status", statusCode.name().toLowerCase());
+
+        return json;
+    }
+
+    @Override
+    public ResponseStreamWriter write (JsonObject row) {
+        if (this.isClosed()) {
+            //client is gone, so route can stop producing rows
+            this.reader.cancel();
+
+            return this;
+        }
+
+        this.rowCount++;
+        this.writeRow(row);
+
+        return this;
+    }
+
+    @Override
+    public void end () {
+        this.writeEnd(StatusCode.OK);
+    }
+
+    @Override
+    public ResponseStreamWriter setWriteQueueMaxSize (int maxSize) {
+        //write queue size is set by transport
+        return this;
+    }
+
+    @Override
+    public ResponseStreamWriter exceptionHandler (Handler<Throwable> handler) {
+        return this;
+    }
+
+}
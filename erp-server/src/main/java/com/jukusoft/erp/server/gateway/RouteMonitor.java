@@ -0,0 +1,323 @@
+package com.jukusoft.erp.server.gateway;
+
+import com.jukusoft.erp.server.config.GatewayConfig;
+import io.vertx.core.json.JsonObject;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+* Observes latencies and failures of every route (event) and derives the send timeout of the route from them.
+ *
+ * Every route has a circuit breaker: after too many consecutive failures (timeouts, no handlers, failed handlers) the breaker opens
+ * and requests of this route are rejected immediately. After the reset timeout a single trial request is sent, if it succeeds, the breaker closes again.
+*/
+public class RouteMonitor {
+
+    //number of last latencies per route, which are used to calculate the percentiles
+    protected static final int SAMPLE_SIZE = 256;
+
+    //minimum number of latencies, before the timeout of a route is derived from them
+    protected static final int MIN_SAMPLES = 20;
+
+    //timeout isnt calculated on every request, only after this number of new latencies
+    protected static final int RECALCULATE_INTERVAL = 16;
+
+    //maximum number of observed routes, clients can send arbitrary event names
+    protected static final int MAX_ROUTES = 4096;
+
+    public enum BreakerState {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    protected final long minTimeout;
+    protected final long maxTimeout;
+    protected final double timeoutMultiplier;
+    protected final Map<String,Long> fixedTimeouts;
+
+    protected final int breakerThreshold;
+    protected final long breakerResetTimeout;
+
+    //statistics per event name
+    protected final Map<String,RouteStats> routes = new ConcurrentHashMap<>();
+
+    /**
+    * default constructor
+     *
+     * @param config gateway configuration
+    */
+    public RouteMonitor (GatewayConfig config) {
+        if (config == null) {
+            throw new NullPointerException("config cannot be null.");
+        }
+
+        this.minTimeout = config.getRouteTimeoutMin();
+        this.maxTimeout = config.getRouteTimeoutMax();
+        this.timeoutMultiplier = config.getRouteTimeoutMultiplier();
+        this.fixedTimeouts = config.getRouteTimeouts();
+        this.breakerThreshold = config.getCircuitBreakerThreshold();
+        this.breakerResetTimeout = config.getCircuitBreakerResetTimeout();
+    }
+
+    /**
+    * check circuit breaker of route, before request is sent
+     *
+     * @param event event name
+     *
+     * @return send timeout in milliseconds or -1, if request should be rejected (circuit breaker is open)
+    */
+    public long acquire (String event) {
+        RouteStats stats = this.getStats(event);
+
+        synchronized (stats) {
+            if (stats.state == BreakerState.OPEN) {
+                if (this.now() - stats.openedAt < this.breakerResetTimeout) {
+                    stats.rejected++;
+                    return -1;
+                }
+
+                //send a single trial request
+                stats.state = BreakerState.HALF_OPEN;
+                stats.trialInFlight = false;
+            }
+
+            if (stats.state == BreakerState.HALF_OPEN) {
+                if (stats.trialInFlight) {
+                    stats.rejected++;
+                    return -1;
+                }
+
+                stats.trialInFlight = true;
+            }
+
+            stats.requests++;
+
+            return stats.timeout;
+        }
+    }
+
+    /**
+    * record successful request
+     *
+     * @param event event name
+     * @param latency latency in milliseconds
+    */
+    public void onSuccess (String event, long latency) {
+        RouteStats stats = this.getStats(event);
+
+        synchronized (stats) {
+            this.addSample(stats, latency);
+
+            stats.consecutiveFailures = 0;
+            stats.state = BreakerState.CLOSED;
+            stats.trialInFlight = false;
+        }
+    }
+
+    /**
+    * record failed request (timeout, no handlers or failed handler)
+     *
+     * @param event event name
+     * @param latency time in milliseconds until request failed
+    */
+    public void onFailure (String event, long latency) {
+        RouteStats stats = this.getStats(event);
+
+        synchronized (stats) {
+            //timeouts are recorded, so timeout of slow routes grows
+            this.addSample(stats, latency);
+
+            stats.failures++;
+            stats.consecutiveFailures++;
+            stats.trialInFlight = false;
+
+            if (stats.state == BreakerState.HALF_OPEN || stats.consecutiveFailures >= this.breakerThreshold) {
+                if (stats.state != BreakerState.OPEN) {
+                    stats.opened++;
+                }
+
+                stats.state = BreakerState.OPEN;
+                stats.openedAt = this.now();
+            }
+        }
+    }
+
+    /**
+    * get current send timeout of route
+     *
+     * @param event event name
+     *
+     * @return timeout in milliseconds
+    */
+    public long getTimeout (String event) {
+        RouteStats stats = this.getStats(event);
+
+        synchronized (stats) {
+            return stats.timeout;
+        }
+    }
+
+    /**
+    * get latency percentile of route, which is updated periodically
+     *
+     * @param event event name
+     * @param percentile percentile (0 - 1)
+     *
+     * @return latency in milliseconds or -1, if not enough latencies were observed yet
+    */
+    public long getLatencyPercentile (String event, double percentile) {
+        RouteStats stats = this.getStats(event);
+
+        synchronized (stats) {
+            return stats.sortedSamples != null ? percentile(stats.sortedSamples, percentile) : -1;
+        }
+    }
+
+    /**
+    * get state of circuit breaker of route
+     *
+     * @param event event name
+     *
+     * @return state of circuit breaker
+    */
+    public BreakerState getState (String event) {
+        RouteStats stats = this.getStats(event);
+
+        synchronized (stats) {
+            return stats.state;
+        }
+    }
+
+    /**
+    * get metrics per route (breaker state, timeout, latency percentiles, requests, failures and rejected requests)
+     *
+     * @return json object with metrics
+    */
+    public JsonObject getMetrics () {
+        JsonObject routes = new JsonObject();
+        int openBreakers = 0;
+
+        for (Map.Entry<String,RouteStats> entry : this.routes.entrySet()) {
+            RouteStats stats = entry.getValue();
+
+            synchronized (stats) {
+                long[] sorted = stats.getSortedSamples();
+
+                JsonObject json = new JsonObject();
+                json.put("breaker_state", stats.state.name().toLowerCase());
+                json.put("timeout", stats.timeout);
+                json.put("latency_p50", percentile(sorted, 0.5));
+                json.put("latency_p99", percentile(sorted, 0.99));
+                json.put("requests", stats.requests);
+                json.put("failures", stats.failures);
+                json.put("rejected", stats.rejected);
+                json.put("breaker_opened", stats.opened);
+
+                if (stats.state != BreakerState.CLOSED) {
+                    openBreakers++;
+                }
+
+                routes.put(entry.getKey(), json);
+            }
+        }
+
+        JsonObject json = new JsonObject();
+        json.put("open_circuit_breakers", openBreakers);
+        json.put("routes", routes);
+
+        return json;
+    }
+
+    protected RouteStats getStats (String event) {
+        RouteStats stats = this.routes.get(event);
+
+        if (stats != null) {
+            return stats;
+        }
+
+        Long fixedTimeout = this.fixedTimeouts.get(event);
+        stats = new RouteStats(fixedTimeout != null ? fixedTimeout : this.maxTimeout, fixedTimeout != null);
+
+        if (this.routes.size() >= MAX_ROUTES) {
+            //statistics of this route arent kept
+            return stats;
+        }
+
+        RouteStats existing = this.routes.putIfAbsent(event, stats);
+
+        return existing != null ? existing : stats;
+    }
+
+    protected void addSample (RouteStats stats, long latency) {
+        stats.samples[stats.sampleIndex] = latency;
+        stats.sampleIndex = (stats.sampleIndex + 1) % SAMPLE_SIZE;
+        stats.sampleCount = Math.min(stats.sampleCount + 1, SAMPLE_SIZE);
+        stats.newSamples++;
+
+        if (stats.sampleCount < MIN_SAMPLES || stats.newSamples < RECALCULATE_INTERVAL) {
+            return;
+        }
+
+        stats.newSamples = 0;
+        stats.sortedSamples = stats.getSortedSamples();
+
+        if (!stats.fixedTimeout) {
+            long p99 = percentile(stats.sortedSamples, 0.99);
+            stats.timeout = Math.max(this.minTimeout, Math.min(this.maxTimeout, (long) Math.ceil(p99 * this.timeoutMultiplier)));
+        }
+    }
+
+    protected long now () {
+        return System.currentTimeMillis();
+    }
+
+    protected static long percentile (long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    protected static class RouteStats {
+
+        //last latencies in milliseconds (ring buffer)
+        protected final long[] samples = new long[SAMPLE_SIZE];
+        protected int sampleIndex = 0;
+        protected int sampleCount = 0;
+        protected int newSamples = 0;
+
+        //sorted latencies of last recalculation, null until enough latencies were observed
+        protected long[] sortedSamples = null;
+
+        protected long timeout;
+        protected final boolean fixedTimeout;
+
+        protected BreakerState state = BreakerState.CLOSED;
+        protected int consecutiveFailures = 0;
+        protected long openedAt = 0;
+        protected boolean trialInFlight = false;
+
+        protected long requests = 0;
+        protected long failures = 0;
+        protected long rejected = 0;
+        protected long opened = 0;
+
+        protected RouteStats (long timeout, boolean fixedTimeout) {
+            this.timeout = timeout;
+            this.fixedTimeout = fixedTimeout;
+        }
+
+        protected long[] getSortedSamples () {
+            long[] sorted = Arrays.copyOf(this.samples, this.sampleCount);
+            Arrays.sort(sorted);
+
+            return sorted;
+        }
+
+    }
+
+}
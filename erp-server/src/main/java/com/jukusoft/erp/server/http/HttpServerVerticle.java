@@ -0,0 +1,498 @@
+package com.jukusoft.erp.server.http;
+
+import com.jukusoft.erp.lib.gateway.ResponseHandler;
+import com.jukusoft.erp.lib.logging.ILogging;
+import com.jukusoft.erp.lib.message.StatusCode;
+import com.jukusoft.erp.lib.message.request.ApiRequest;
+import com.jukusoft.erp.lib.message.response.ApiResponse;
+import com.jukusoft.erp.lib.session.Session;
+import com.jukusoft.erp.server.context.GatewayContext;
+import com.jukusoft.erp.server.gateway.BatchExecutor;
+import com.jukusoft.erp.server.gateway.ETagCache;
+import com.jukusoft.erp.server.gateway.RequestPipeline;
+import com.jukusoft.erp.server.push.SubscriptionManager;
+import com.jukusoft.erp.server.tcp.protocol.JsonWireProtocol;
+import com.jukusoft.erp.server.websocket.WebSocketConnection;
+import com.jukusoft.erp.server.message.ResponseGenerator;
+import io.netty.handler.ssl.OpenSsl;
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Future;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.http.HttpServerOptions;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.net.JdkSSLEngineOptions;
+import io.vertx.core.net.JksOptions;
+import io.vertx.core.net.OpenSSLEngineOptions;
+
+/**
+* HTTP front-end of the gateway (for debugging and rest api).
+ * Browsers can upgrade to a websocket, which uses the same request pipeline like TCP connections.
+ *
+ * Multiple instances of this verticle can be deployed, vert.x distributes the connections of the shared port over all instances (round robin).
+*/
+public class HttpServerVerticle extends AbstractVerticle {
+
+    //shared state of gateway node
+    protected final GatewayContext context;
+
+    protected final ILogging logger;
+
+    //vert.x http server
+    protected HttpServer httpServer = null;
+
+    //executes batch requests
+    protected final BatchExecutor batchExecutor;
+
+    //request pipeline of websocket connections
+    protected final RequestPipeline pipeline;
+
+    //decides which responses are compressed, caches compressed CONTENT responses
+    protected final ResponseCompression compression;
+
+    /**
+    * default constructor
+     *
+     * @param context gateway context
+    */
+    public HttpServerVerticle (GatewayContext context) {
+        if (context == null) {
+            throw new NullPointerException("context cannot be null.");
+        }
+
+        this.context = context;
+        this.logger = context.getLogger();
+        this.batchExecutor = new BatchExecutor(context);
+        this.pipeline = new RequestPipeline(context);
+        this.compression = new ResponseCompression(context.getConfig());
+    }
+
+    @Override
+    public void start (Future<Void> startFuture) {
+        HttpServerOptions options = new HttpServerOptions();
+        options.setPort(this.context.getConfig().getHttpPort());
+
+        //set socket options (TCP_NODELAY, SO_REUSEPORT, buffer sizes, ...)
+        this.context.getConfig().applySocketOptions(options);
+
+        //stream concurrency and flow-control windows of HTTP/2 connections (TLS and h2c)
+        this.context.getConfig().applyHttp2Options(options);
+
+        if (this.context.getConfig().isSsl()) {
+            //use SSL encryption
+            options.setSsl(true);
+            options.setKeyStoreOptions(new JksOptions().setPath(this.context.getConfig().getKeyStorePath()).setPassword(this.context.getConfig().getKeyStorePassword()));
+
+            if (this.context.getConfig().isHttp2()) {
+                //use application layer protocol negotiation, so clients can select HTTP/2
+                //https://de.wikipedia.org/wiki/Application-Layer_Protocol_Negotiation
+                this.configureAlpn(options);
+            }
+        }
+
+        //use gzip compression, small responses are excluded by sendResponse()
+        options.setCompressionSupported(this.context.getConfig().isCompression());
+        options.setCompressionLevel(this.context.getConfig().getCompressionLevel());
+
+        //websocket messages have the same size limit like TCP frames
+        options.setMaxWebsocketFrameSize(this.context.getConfig().getMaxFrameSize());
+        options.setMaxWebsocketMessageSize(this.context.getConfig().getMaxFrameSize());
+
+        //create new http server
+        this.httpServer = this.vertx.createHttpServer(options);
+
+        this.httpServer.websocketHandler(webSocket -> {
+            if (!webSocket.path().equals(this.context.getConfig().getWebSocketPath())) {
+                webSocket.reject();
+                return;
+            }
+
+            //other sites cannot open a websocket with the session cookie of the user
+            if (!WebSocketConnection.isAllowedOrigin(webSocket.headers().get("Origin"), webSocket.headers().get("Host"), this.context.getConfig().getWebSocketAllowedOrigins())) {
+                logger.warn("rejected_websocket_origin", "ip: " + webSocket.remoteAddress().host() + ", origin: " + webSocket.headers().get("Origin"));
+
+                webSocket.reject();
+                return;
+            }
+
+            logger.debug("new_websocket_connection", "ip: " + webSocket.remoteAddress().host() + ", port: " + webSocket.remoteAddress().port());
+
+            //create connection, which limits the in-flight requests and keeps the session
+            WebSocketConnection connection = new WebSocketConnection(webSocket, this.context.getConfig());
+
+            //register connection for metrics and session invalidation
+            this.context.getConnections().add(connection);
+
+            connection.closeHandler(v -> {
+                this.context.getConnections().remove(connection);
+                this.context.getSubscriptionManager().unsubscribeAll(connection);
+
+                logger.debug("close_websocket_connection", "ip: " + connection.remoteAddress().host() + ", port: " + connection.remoteAddress().port());
+            });
+
+            connection.requestHandler(frame -> this.pipeline.handle(connection, frame));
+        });
+
+        this.httpServer.requestHandler(request -> {
+            final long startTime = System.currentTimeMillis();
+
+            //limit bytes, which are queued for a slow client
+            request.response().setWriteQueueMaxSize(this.context.getConfig().getWriteQueueMaxSize());
+
+            if (request.response().writeQueueFull()) {
+                //client doesnt read the previous responses fast enough, so dont read and handle this request until write queue is drained
+                request.pause();
+
+                request.response().drainHandler(v -> {
+                    //drain handler is only needed once, streaming responses set their own one
+                    request.response().drainHandler(null);
+
+                    this.dispatchRequest(request, startTime);
+                    request.resume();
+                });
+
+                return;
+            }
+
+            this.dispatchRequest(request, startTime);
+        });
+
+        //start http server
+        this.httpServer.listen(res -> {
+            if (res.succeeded()) {
+                startFuture.complete();
+            } else {
+                startFuture.fail(res.cause());
+            }
+        });
+    }
+
+    protected void dispatchRequest (HttpServerRequest request, long startTime) {
+        if (request.method() == HttpMethod.GET && request.path().equals(this.context.getConfig().getSsePath())) {
+            //long-lived stream of push messages (server-sent events)
+            this.handleEventStream(request);
+            return;
+        }
+
+        if (request.method() == HttpMethod.POST) {
+            //only POST requests have a form body, which has to be buffered
+            request.setExpectMultipart(true);
+            request.endHandler(v -> this.handleRequest(request, startTime));
+        } else {
+            this.handleRequest(request, startTime);
+        }
+    }
+
+    protected void configureAlpn (HttpServerOptions options) {
+        if (JdkSSLEngineOptions.isAlpnAvailable()) {
+            options.setUseAlpn(true);
+        } else if (OpenSSLEngineOptions.isAlpnAvailable() && OpenSsl.supportsKeyManagerFactory()) {
+            //ALPN of JDK isnt supported by this vert.x version, so use openssl engine instead
+            options.setOpenSslEngineOptions(new OpenSSLEngineOptions());
+            options.setUseAlpn(true);
+        } else {
+            logger.warn("http2", "ALPN isnt available, so HTTP/2 over TLS is disabled.");
+        }
+    }
+
+    /**
+    * send response body and end response.
+     * The body is compressed by the HTTP server, if it's big enough and has a compressible content type.
+     *
+     * @param request HTTP request
+     * @param contentType content type of body
+     * @param body response body
+     * @param cacheKey key to cache compressed body, null if body shouldnt be cached
+    */
+    protected void sendResponse (HttpServerRequest request, String contentType, String body, String cacheKey) {
+        this.sendResponse(request, contentType, Buffer.buffer(body, "UTF-8"), cacheKey);
+    }
+
+    /**
+    * send response body and end response.
+     * The body is compressed by the HTTP server, if it's big enough and has a compressible content type.
+     *
+     * @param request HTTP request
+     * @param contentType content type of body
+     * @param buffer encoded response body
+     * @param cacheKey key to cache compressed body, null if body shouldnt be cached
+    */
+    protected void sendResponse (HttpServerRequest request, String contentType, Buffer buffer, String cacheKey) {
+        HttpServerResponse response = request.response();
+
+        response.putHeader("content-type", contentType);
+
+        if (this.context.getConfig().isCompression()) {
+            if (!this.compression.isCompressible(contentType, buffer.length())) {
+                //compression costs more cpu time than it saves bandwidth, so HTTP server shouldnt compress this response
+                response.putHeader("content-encoding", "identity");
+            } else if (cacheKey != null && request.version() != HttpVersion.HTTP_2 && ResponseCompression.acceptsGzip(request.getHeader("Accept-Encoding"))) {
+                //send cached compressed body, HTTP/1.x server doesnt compress it again because content-encoding is set.
+                //HTTP/2 encoder compresses every body with the encoding of the content-encoding header, so it cannot use the cache
+                buffer = this.compression.getPrecompressed(cacheKey, buffer);
+
+                response.putHeader("content-encoding", "gzip");
+                response.putHeader("Vary", "Accept-Encoding");
+            }
+        }
+
+        response.end(buffer);
+    }
+
+    /**
+    * send body-less 304 (not modified) response
+     *
+     * @param request HTTP request
+     * @param etag current version
+    */
+    protected void sendNotModified (HttpServerRequest request, String etag) {
+        HttpServerResponse response = request.response();
+
+        response.putHeader("ETag", "\"" + etag + "\"");
+        response.putHeader("Cache-Control", "private, no-cache");
+        response.setStatusCode(StatusCode.NOT_MODIFIED.getValue());
+        response.end();
+    }
+
+    /**
+    * open server-sent events stream, the query parameter "topics" contains the comma-separated topics
+     *
+     * @param request HTTP request
+    */
+    protected void handleEventStream (HttpServerRequest request) {
+        final long messageID = this.context.generateMessageID();
+
+        String sessionID = WebSocketConnection.getSessionIDFromCookie(request.getHeader("Cookie"));
+        Session session = null;
+
+        if (sessionID != null) {
+            session = this.context.getSessionManager().getSession(sessionID);
+        }
+
+        //HTTP guests get a new session id with every request (until login), so they have no stable private topic "session"
+        sessionID = session != null ? session.getSessionID() : "";
+
+        JsonArray topics = new JsonArray();
+        String topicsParam = request.getParam("topics");
+
+        if (topicsParam != null) {
+            for (String topic : topicsParam.split(",")) {
+                topics.add(topic.trim());
+            }
+        }
+
+        //subscribe topics like a "/subscribe" request
+        ApiRequest req = new ApiRequest(SubscriptionManager.SUBSCRIBE_EVENT, new JsonObject().put("topics", topics), messageID, "none", sessionID, session != null && session.isLoggedIn(), session != null ? session.getUserID() : -1);
+        SseConnection connection = new SseConnection(this.vertx, request.response(), this.context.getSubscriptionManager());
+
+        ApiResponse res = this.context.getSubscriptionManager().handleRequest(connection, req);
+
+        if (res.getStatusCode() != StatusCode.OK) {
+            this.context.getSubscriptionManager().unsubscribeAll(connection);
+
+            request.response().setStatusCode(res.getStatusCode().getValue());
+            this.sendResponse(request, "application/json", ResponseGenerator.generateResponse(SubscriptionManager.SUBSCRIBE_EVENT, res.getData(), res.getSessionID(), res.getExternalID(), res.getStatusCode()), null);
+
+            return;
+        }
+
+        logger.debug(messageID, "new_sse_connection", "ip: " + request.remoteAddress().host() + ", topics: " + res.getData().getJsonArray("topics").encode());
+
+        //browsers send id of last event on reconnect, polyfills use a query parameter
+        String lastEventID = request.getHeader("Last-Event-ID");
+
+        if (lastEventID == null) {
+            lastEventID = request.getParam("lastEventId");
+        }
+
+        //subscriptions are kept for one heartbeat interval after close, so the browser can reconnect without missing events
+        long interval = this.context.getConfig().getSseHeartbeatInterval();
+        connection.open(lastEventID, interval, interval);
+    }
+
+    /**
+    * handle HTTP request, form body was already received
+     *
+     * @param request HTTP request
+     * @param startTime time in milliseconds, when request was received
+    */
+    protected void handleRequest (HttpServerRequest request, long startTime) {
+        HttpServerResponse response = request.response();
+
+        //do not allow proxies to cache the data
+        response.putHeader("Cache-Control", "no-store, no-cache");
+        // prevents Internet Explorer from MIME - sniffing a
+        //response away from the declared content-type
+        response.putHeader("X-Content-Type-Options", "nosniff");
+        // Strict HTTPS (for about ~6Months)
+        //.putHeader("Strict-Transport-Security", "max-age=" + 15768000)
+        // IE8+ do not allow opening of attachments in the context of this resource
+        response.putHeader("X-Download-Options", "noopen");
+        // enable XSS for IE
+        response.putHeader("X-XSS-Protection", "1; mode=block");
+        // deny frames
+        response.putHeader("X-FRAME-OPTIONS", "DENY");
+
+        //get event name
+        String event = request.path();
+
+        //decode query parameters in a single pass and form attributes (only POST requests have a body)
+        JsonObject data = new JsonObject();
+        RequestParamDecoder.decodeQuery(request.query(), data);
+
+        if (request.method() == HttpMethod.POST) {
+            RequestParamDecoder.decodeForm(request.formAttributes(), data);
+
+            if (request.formAttributes().contains("event")) {
+                event = request.formAttributes().get("event");
+            }
+        }
+
+        final String eventName = event;
+
+        //generate cluster-wide unique message id
+        final long messageID = this.context.generateMessageID();
+
+        String sessionID = "";
+
+        //check for cookies
+        if (request.headers().contains("Cookie")) {
+            for (String str : request.headers().getAll("Cookie")) {
+                logger.info(messageID, "cookie_found", "cookie found: " + str);
+
+                String[] array = str.split("=");
+
+                if (array[0].equals("sessionid")) {
+                    //session ID found
+                    sessionID = array[1];
+
+                    logger.info(messageID, "session", "session ID found: " + sessionID);
+                }
+            }
+        }
+
+        //check, if session ID exists
+        if (data.containsKey("ssid")) {
+            sessionID = data.getString("ssid");
+        }
+
+        Session session = null;
+
+        if (!sessionID.isEmpty()) {
+            session = this.context.getSessionManager().getSession(sessionID);
+        }
+
+        if (session == null) {
+            //transient guest session, which is only written to cache if a route changes it (e.q. login).
+            //unknown session ids of cookies arent reused, otherwise clients could choose the session id, which is written on login
+            session = this.context.getSessionManager().createGuestSession();
+        }
+
+        sessionID = session.getSessionID();
+
+        //HTTP requests doesnt use external IDs (ack IDs)
+        String externalID = "none";
+
+        response.putHeader("Set-Cookie", "sessionid=" + sessionID + "; HttpOnly; Path=/");
+
+        //create api request
+        ApiRequest req = new ApiRequest(event, data, messageID, externalID, sessionID, session.isLoggedIn(), session.getUserID());
+
+        //add meta information
+        req.getMeta().put("host", request.remoteAddress().host());
+        req.getMeta().put("port", request.remoteAddress().port());
+        //req.getMeta().put("path", request.remoteAddress().path());
+
+        //log request
+        this.logger.debug(messageID, "new_http_request", req.toString());
+
+        //versions (ETags) of response, which client already has
+        final String ifNoneMatch = request.getHeader("If-None-Match");
+
+        if (BatchExecutor.isBatchRequest(event)) {
+            //execute all sub-requests in parallel and send one combined response
+            this.batchExecutor.execute(req, (responseData, statusCode) -> {
+                this.sendResponse(request, "application/json", ResponseGenerator.generateResponse(eventName, responseData, req.getSessionID(), req.getExternalID(), statusCode), null);
+
+                long diff = System.currentTimeMillis() - startTime;
+                logger.debug(req.getMessageID(), "execution_time", "batch request needed " + diff + "ms to execute.");
+            });
+
+            return;
+        }
+
+        if (ifNoneMatch != null) {
+            String etag = this.context.getETagCache().getMatchingETag(req, ifNoneMatch);
+
+            if (etag != null) {
+                //client has the current version, so app server doesnt have to build the response
+                sendNotModified(request, etag);
+
+                return;
+            }
+
+            //remember version known by client in request meta (e.q. part of the key of coalesced requests), response is compared by the gateway
+            req.getMeta().put(ETagCache.META_KNOWN_ETAG, ifNoneMatch);
+        }
+
+        this.context.getApiGateway().handleRequestAsync(req, new ResponseHandler() {
+            @Override
+            public void handleResponse(ApiResponse res) {
+                if (res.getType() == ApiResponse.RESPONSE_TYPE.JSON && res.getETag() != null) {
+                    //remember version, so following conditional requests can be answered by gateway
+                    context.getETagCache().update(req, res);
+
+                    if (res.getStatusCode() == StatusCode.OK && ETagCache.matches(ifNoneMatch, res.getETag())) {
+                        sendNotModified(request, res.getETag());
+                    } else {
+                        //browser has to revalidate the version for every request
+                        response.putHeader("ETag", "\"" + res.getETag() + "\"");
+                        response.putHeader("Cache-Control", "private, no-cache");
+
+                        sendResponse(request, "application/json", JsonWireProtocol.INSTANCE.encodeResponse(res, null), null);
+                    }
+
+                    logger.debug(messageID, "request_succedded", res.toString());
+                } else if (res.getType() == ApiResponse.RESPONSE_TYPE.STREAM) {
+                    //write rows with chunked transfer encoding
+                    new HttpStreamWriter(response, res).start();
+                } else if (res.getType() == ApiResponse.RESPONSE_TYPE.JSON) {
+                    //send response, json data of app server is passed through without parsing
+                    sendResponse(request, "application/json", JsonWireProtocol.INSTANCE.encodeResponse(res, null), null);
+
+                    logger.debug(messageID, "request_succedded", res.toString());
+                } else {
+                    //content of an event is often the same (e.q. login form), so compressed content is cached
+                    sendResponse(request, "text/html; charset=utf-8", res.getData().getString("content"), eventName);
+
+                    logger.debug(messageID, "request_succedded", res.getData().getString("content"));
+                }
+
+                long endTime = System.currentTimeMillis();
+                long diff = endTime - startTime;
+                logger.debug(req.getMessageID(), "execution_time", "request needed " + diff + "ms to execute.");
+            }
+
+            @Override
+            public void responseFailed() {
+                //generate response string
+                String str = ResponseGenerator.generateResponse(eventName, req.getSessionID(), req.getExternalID(), StatusCode.SERVICE_UNAVAILABLE);
+
+                //write to the response and end it
+                sendResponse(request, "application/json", str, null);
+
+                logger.warn(messageID, "request_failed", req.toString() + ", cause: " + StatusCode.SERVICE_UNAVAILABLE.name() + ".");
+
+                long endTime = System.currentTimeMillis();
+                long diff = endTime - startTime;
+                logger.debug(req.getMessageID(), "execution_time", "request needed " + diff + "ms to execute.");
+            }
+        });
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.jukusoft.erp.server.http;
+
+import com.jukusoft.erp.lib.message.StatusCode;
+import com.jukusoft.erp.lib.message.response.ApiResponse;
+import com.jukusoft.erp.server.gateway.ResponseStreamWriter;
+import com.jukusoft.erp.server.message.ResponseGenerator;
+import io.vertx.core.Handler;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.json.JsonObject;
+
+/**
+* Writes a streaming response with HTTP chunked transfer encoding as newline delimited json (header, rows, end message).
+*/
+public class HttpStreamWriter extends ResponseStreamWriter {
+
+    protected final HttpServerResponse httpResponse;
+
+    /**
+    * default constructor
+     *
+     * @param httpResponse HTTP response
+     * @param response streaming response of route
+    */
+    public HttpStreamWriter (HttpServerResponse httpResponse, ApiResponse response) {
+        super(response);
+
+        if (httpResponse == null) {
+            throw new NullPointerException("http response cannot be null.");
+        }
+
+        this.httpResponse = httpResponse;
+    }
+
+    @Override
+    protected void writeHeader () {
+        //client is gone, so route can stop producing rows
+        this.httpResponse.closeHandler(v -> this.reader.cancel());
+
+        this.httpResponse.setChunked(true);
+        this.httpResponse.putHeader("content-type", "application/x-ndjson");
+
+        this.httpResponse.write(ResponseGenerator.generateResponse(this.response.getEvent(), this.response.getData(), this.response.getSessionID(), this.response.getExternalID(), this.response.getStatusCode()) + "\n");
+    }
+
+    @Override
+    protected void writeRow (JsonObject row) {
+        this.httpResponse.write(row.encode() + "\n");
+    }
+
+    @Override
+    protected void writeEnd (StatusCode statusCode) {
+        if (!this.httpResponse.closed()) {
+            this.httpResponse.end(this.generateEnd(statusCode).encode() + "\n");
+        }
+    }
+
+    @Override
+    protected boolean isClosed () {
+        return this.httpResponse.closed();
+    }
+
+    @Override
+    public boolean writeQueueFull () {
+        return this.httpResponse.writeQueueFull();
+    }
+
+    @Override
+    public HttpStreamWriter drainHandler (Handler<Void> handler) {
+        this.httpResponse.drainHandler(handler);
+        return this;
+    }
+
+}
@@ -0,0 +1,89 @@
+package com.jukusoft.erp.server.http;
+
+import io.vertx.core.MultiMap;
+import io.vertx.core.json.JsonObject;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.Map;
+
+/**
+* Decodes request parameters of HTTP requests into the data of an api request.
+ *
+ * Query strings are decoded in a single pass without splitting them into temporary arrays,
+ * components are only URL-decoded, if they contain encoded characters.
+*/
+public class RequestParamDecoder {
+
+    /**
+    * decode URL-encoded parameters (key1=value1&amp;key2=value2) and put them into json object.
+     * Parameters without value are ignored.
+     *
+     * @param query query string without '?', can be null
+     * @param data json object which gets the parameters
+    */
+    public static void decodeQuery (String query, JsonObject data) {
+        if (query == null || query.isEmpty()) {
+            return;
+        }
+
+        int length = query.length();
+        int start = 0;
+
+        while (start < length) {
+            int end = query.indexOf('&', start);
+
+            if (end == -1) {
+                end = length;
+            }
+
+            int separator = query.indexOf('=', start);
+
+            //there has to be a key and a value
+            if (separator > start && separator < end - 1) {
+                data.put(decodeComponent(query, start, separator), decodeComponent(query, separator + 1, end));
+            }
+
+            start = end + 1;
+        }
+    }
+
+    /**
+    * put already decoded form attributes into json object
+     *
+     * @param attributes form attributes
+     * @param data json object which gets the attributes
+    */
+    public static void decodeForm (MultiMap attributes, JsonObject data) {
+        for (Map.Entry<String,String> entry : attributes) {
+            data.put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    protected static String decodeComponent (String str, int start, int end) {
+        boolean encoded = false;
+
+        for (int i = start; i < end; i++) {
+            char c = str.charAt(i);
+
+            if (c == '%' || c == '+') {
+                encoded = true;
+                break;
+            }
+        }
+
+        String component = str.substring(start, end);
+
+        if (!encoded) {
+            return component;
+        }
+
+        try {
+            return URLDecoder.decode(component, "UTF-8");
+        } catch (UnsupportedEncodingException | IllegalArgumentException e) {
+            //malformed escape sequence, use raw value
+            return component;
+        }
+    }
+
+}
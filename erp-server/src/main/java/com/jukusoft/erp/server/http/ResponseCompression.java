@@ -0,0 +1,182 @@
+package com.jukusoft.erp.server.http;
+
+import com.jukusoft.erp.server.config.GatewayConfig;
+import io.vertx.core.buffer.Buffer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+/**
+* Decides, which HTTP responses are compressed and caches compressed CONTENT responses.
+ *
+ * Small responses and content types, which are already compressed, are sent with content-encoding identity,
+ * so the compressor of the HTTP server doesnt touch them.
+ * Every HTTP server instance has its own instance of this class, so it's only accessed from one event loop thread and isnt thread-safe.
+*/
+public class ResponseCompression {
+
+    //compression level (1 - 9)
+    protected final int level;
+
+    //minimum size of response body in bytes, smaller responses arent compressed
+    protected final int minSize;
+
+    //content types (without parameters like charset), which can be compressed
+    protected final Set<String> compressibleTypes;
+
+    //maximum number of cached compressed responses
+    protected final int cacheSize;
+
+    //compressed content per event (LRU)
+    protected final Map<String,CachedContent> cache;
+
+    /**
+    * default constructor
+     *
+     * @param config gateway configuration
+    */
+    public ResponseCompression (GatewayConfig config) {
+        if (config == null) {
+            throw new NullPointerException("config cannot be null.");
+        }
+
+        this.level = config.getCompressionLevel();
+        this.minSize = config.getCompressionMinSize();
+        this.compressibleTypes = new HashSet<>(config.getCompressibleTypes());
+        this.cacheSize = config.getPrecompressedCacheSize();
+
+        this.cache = new LinkedHashMap<String,CachedContent>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String,CachedContent> eldest) {
+                return this.size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+    * check, if response should be compressed
+     *
+     * @param contentType content type of response, can contain parameters (e.q. charset)
+     * @param size size of response body in bytes
+     *
+     * @return true, if response should be compressed
+    */
+    public boolean isCompressible (String contentType, int size) {
+        if (size < this.minSize || contentType == null) {
+            return false;
+        }
+
+        //remove parameters, e.q. "; charset=utf-8"
+        int index = contentType.indexOf(';');
+
+        if (index != -1) {
+            contentType = contentType.substring(0, index);
+        }
+
+        return this.compressibleTypes.contains(contentType.trim().toLowerCase());
+    }
+
+    /**
+    * get compressed content from cache or compress it, if content has changed
+     *
+     * @param key cache key, e.q. event name
+     * @param content uncompressed content
+     *
+     * @return gzip compressed content
+    */
+    public Buffer getPrecompressed (String key, Buffer content) {
+        CachedContent cachedContent = this.cache.get(key);
+
+        if (cachedContent == null || !cachedContent.content.equals(content)) {
+            cachedContent = new CachedContent(content, gzip(content, this.level));
+            this.cache.put(key, cachedContent);
+        }
+
+        return cachedContent.compressed;
+    }
+
+    public int getCacheSize () {
+        return this.cache.size();
+    }
+
+    /**
+    * check, if client accepts gzip encoding
+     *
+     * @param acceptEncoding value of Accept-Encoding header, can be null
+     *
+     * @return true, if client accepts gzip encoding
+    */
+    public static boolean acceptsGzip (String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+
+        for (String encoding : acceptEncoding.split(",")) {
+            String[] array = encoding.split(";");
+
+            if (!array[0].trim().equalsIgnoreCase("gzip")) {
+                continue;
+            }
+
+            //check quality value, "gzip;q=0" means not accepted
+            for (int i = 1; i < array.length; i++) {
+                String param = array[i].trim();
+
+                if (param.startsWith("q=")) {
+                    try {
+                        return Float.parseFloat(param.substring(2)) > 0;
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+            }
+
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+    * compress content with gzip
+     *
+     * @param content uncompressed content
+     * @param level compression level (1 - 9)
+     *
+     * @return compressed content
+    */
+    public static Buffer gzip (Buffer content, int level) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, content.length() / 2));
+
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                this.def.setLevel(level);
+            }
+        }) {
+            gzip.write(content.getBytes());
+        } catch (IOException e) {
+            //cannot happen, because data is written to memory
+            throw new IllegalStateException(e);
+        }
+
+        return Buffer.buffer(out.toByteArray());
+    }
+
+    protected static class CachedContent {
+
+        protected final Buffer content;
+        protected final Buffer compressed;
+
+        protected CachedContent (Buffer content, Buffer compressed) {
+            this.content = content;
+            this.compressed = compressed;
+        }
+
+    }
+
+}
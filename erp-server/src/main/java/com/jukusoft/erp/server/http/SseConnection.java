@@ -0,0 +1,153 @@
+package com.jukusoft.erp.server.http;
+
+import com.jukusoft.erp.server.push.PushMessage;
+import com.jukusoft.erp.server.push.PushSubscriber;
+import com.jukusoft.erp.server.push.SubscriptionManager;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerResponse;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+* Long-lived HTTP response, which streams push messages of subscribed topics as server-sent events (text/event-stream).
+ *
+ * Every event has an id, browsers send the id of the last received event on reconnect (Last-Event-ID header),
+ * so missed events are replayed from the history of the subscription manager.
+ * If they cannot be replayed (history is too short, other gateway node), a "reset" event is sent and the client has to reload its data.
+ *
+ * Slow clients arent buffered, the response is closed instead, so the browser reconnects and gets the missed events.
+*/
+public class SseConnection implements PushSubscriber {
+
+    //event, which tells the client to reload its data, because missed events cannot be replayed
+    public static final String RESET_EVENT = "reset";
+
+    protected static final Buffer HEARTBEAT = Buffer.buffer(":\n\n");
+
+    protected final Vertx vertx;
+    protected final HttpServerResponse response;
+    protected final SubscriptionManager subscriptionManager;
+
+    //event loop of HTTP server instance, push messages are written from this context
+    protected final Context vertxContext;
+
+    //ids of replayed messages, which can arrive again as live message
+    protected final Set<Long> replayedMessages = new HashSet<>();
+
+    protected long heartbeatTimerID = -1;
+    protected boolean closed = false;
+
+    /**
+    * default constructor
+     *
+     * @param vertx instance of vert.x
+     * @param response HTTP response
+     * @param subscriptionManager subscription manager
+    */
+    public SseConnection (Vertx vertx, HttpServerResponse response, SubscriptionManager subscriptionManager) {
+        if (response == null) {
+            throw new NullPointerException("response cannot be null.");
+        }
+
+        if (subscriptionManager == null) {
+            throw new NullPointerException("subscription manager cannot be null.");
+        }
+
+        this.vertx = vertx;
+        this.response = response;
+        this.subscriptionManager = subscriptionManager;
+        this.vertxContext = vertx.getOrCreateContext();
+    }
+
+    /**
+    * send header and missed events, topics have to be subscribed before
+     *
+     * @param lastEventID id of last event, which client has received (null on first connect)
+     * @param heartbeatInterval interval of heartbeats in milliseconds, so proxies dont close the idle connection
+     * @param unsubscribeDelay time in milliseconds, which subscriptions are kept after close, so events of this time can be replayed on reconnect
+    */
+    public void open (String lastEventID, long heartbeatInterval, long unsubscribeDelay) {
+        this.response.setChunked(true);
+        this.response.putHeader("content-type", "text/event-stream; charset=utf-8");
+        this.response.putHeader("Cache-Control", "no-cache");
+
+        //events have to be sent immediately, so they cannot be compressed or buffered by reverse proxies
+        this.response.putHeader("content-encoding", "identity");
+        this.response.putHeader("X-Accel-Buffering", "no");
+
+        this.response.closeHandler(v -> {
+            this.closed = true;
+            this.vertx.cancelTimer(this.heartbeatTimerID);
+
+            this.vertx.setTimer(unsubscribeDelay, id -> this.subscriptionManager.unsubscribeAll(this));
+        });
+
+        //browser waits this time in milliseconds, before it reconnects
+        this.response.write("retry: 3000\n\n");
+
+        if (lastEventID != null) {
+            this.replay(lastEventID);
+        }
+
+        this.heartbeatTimerID = this.vertx.setPeriodic(heartbeatInterval, id -> {
+            if (!this.closed && !this.response.writeQueueFull()) {
+                this.response.write(HEARTBEAT);
+            }
+        });
+    }
+
+    protected void replay (String lastEventID) {
+        List<PushMessage> messages = null;
+
+        String prefix = this.subscriptionManager.getEpoch() + "-";
+
+        if (lastEventID.startsWith(prefix)) {
+            try {
+                messages = this.subscriptionManager.getMessagesSince(this, Long.parseLong(lastEventID.substring(prefix.length())));
+            } catch (NumberFormatException e) {
+                messages = null;
+            }
+        }
+
+        if (messages == null) {
+            //events were published by another gateway node or are too old
+            this.response.write("event: " + RESET_EVENT + "\ndata: {}\n\n");
+            return;
+        }
+
+        for (PushMessage message : messages) {
+            this.replayedMessages.add(message.getID());
+            this.response.write(message.getEventStreamPayload(this.subscriptionManager.getEpoch()));
+        }
+    }
+
+    @Override
+    public void push (PushMessage message) {
+        if (Vertx.currentContext() == this.vertxContext) {
+            this.writePushMessage(message);
+        } else {
+            this.vertxContext.runOnContext(v -> this.writePushMessage(message));
+        }
+    }
+
+    protected void writePushMessage (PushMessage message) {
+        if (this.closed || this.replayedMessages.remove(message.getID())) {
+            return;
+        }
+
+        if (this.response.writeQueueFull()) {
+            //client doesnt read fast enough, close stream so client reconnects and gets missed events from history
+            this.closed = true;
+            this.response.close();
+
+            return;
+        }
+
+        this.response.write(message.getEventStreamPayload(this.subscriptionManager.getEpoch()));
+    }
+
+}
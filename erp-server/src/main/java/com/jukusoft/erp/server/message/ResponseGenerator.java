@@ -1,6 +1,8 @@
 package com.jukusoft.erp.server.message;
 
 import com.jukusoft.erp.lib.message.StatusCode;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.Json;
 import io.vertx.core.json.JsonObject;
 
 public class ResponseGenerator {
@@ -15,6 +17,19 @@ public class ResponseGenerator {
      * @return json string
     */
     public static String generateResponse (String event, JsonObject jsonData, String sessionID, String externalID, StatusCode type) {
+        return generateResponseJSON(event, jsonData, sessionID, externalID, type).encode();
+    }
+
+    /**
+     * generate response envelope
+     *
+     * @param event event name
+     * @param jsonData json data
+     * @param type response type
+     *
+     * @return response envelope
+     */
+    public static JsonObject generateResponseJSON (String event, JsonObject jsonData, String sessionID, String externalID, StatusCode type) {
         if (jsonData == null) {
             throw new NullPointerException("json data cannot be null.");
         }
@@ -35,7 +50,44 @@ public class ResponseGenerator {
         //put session id
         json.put("ssid", sessionID);
 
-        return json.toString();
+        return json;
+    }
+
+    /**
+    * generate json encoded response envelope (same fields like {@link #generateResponseJSON(String, JsonObject, String, String, StatusCode)}),
+     * encoded json data is copied into the envelope without parsing it
+     *
+     * @param event event name
+     * @param encodedData UTF-8 encoded json data
+     * @param sessionID session id
+     * @param externalID message id of client
+     * @param type response type
+     * @param version version (ETag) of data or null
+     *
+     * @return json encoded response envelope
+    */
+    public static Buffer generateResponseBuffer (String event, Buffer encodedData, String sessionID, String externalID, StatusCode type, String version) {
+        if (encodedData == null) {
+            throw new NullPointerException("encoded data cannot be null.");
+        }
+
+        Buffer buffer = Buffer.buffer(encodedData.length() + 128);
+
+        //strings are escaped by json encoder
+        buffer.appendString("{\"event\":").appendString(Json.encode(event));
+        buffer.appendString(",\"messageID\":").appendString(Json.encode(externalID));
+        buffer.appendString(",\"statusCode\":").appendString(Integer.toString(type.getValue()));
+        buffer.appendString(",\"status\":\"").appendString(type.name().toLowerCase()).appendString("\"");
+        buffer.appendString(",\"data\":").appendBuffer(encodedData);
+        buffer.appendString(",\"ssid\":").appendString(Json.encode(sessionID));
+
+        if (version != null) {
+            buffer.appendString(",\"version\":").appendString(Json.encode(version));
+        }
+
+        buffer.appendString("}");
+
+        return buffer;
     }
 
     /**
@@ -50,4 +102,16 @@ public class ResponseGenerator {
         return generateResponse(event, new JsonObject(), sessionID, externalID, type);
     }
 
+    /**
+     * generate response envelope
+     *
+     * @param event event name
+     * @param type response type
+     *
+     * @return response envelope
+     */
+    public static JsonObject generateResponseJSON (String event, String sessionID, String externalID, StatusCode type) {
+        return generateResponseJSON(event, new JsonObject(), sessionID, externalID, type);
+    }
+
 }
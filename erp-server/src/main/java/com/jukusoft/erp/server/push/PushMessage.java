@@ -0,0 +1,93 @@
+package com.jukusoft.erp.server.push;
+
+import com.jukusoft.erp.lib.push.PushTopics;
+import com.jukusoft.erp.server.tcp.protocol.WireProtocol;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+* A single push message, which is sent to all subscribers of a topic.
+ *
+ * The message is encoded only once per wire protocol and not once per subscriber.
+*/
+public class PushMessage {
+
+    //event name of push messages
+    public static final String EVENT_NAME = "/push";
+
+    //node-local, increasing id of message, used to replay missed messages
+    protected final long id;
+
+    //internal name of topic (private topics contain session id / user id)
+    protected final String topic;
+
+    //push envelope
+    protected final JsonObject envelope;
+
+    //encoded messages per wire protocol
+    protected final Map<Byte,Buffer> payloads = new ConcurrentHashMap<>();
+
+    //message encoded as server-sent event
+    protected volatile Buffer eventStreamPayload = null;
+
+    /**
+    * default constructor
+     *
+     * @param id node-local id of message
+     * @param topic internal name of topic
+     * @param data published data
+    */
+    public PushMessage (long id, String topic, JsonObject data) {
+        this.id = id;
+        this.topic = topic;
+        this.envelope = new JsonObject()
+                .put("event", EVENT_NAME)
+                .put("topic", PushTopics.getPublicName(topic))
+                .put("data", data);
+    }
+
+    public long getID () {
+        return this.id;
+    }
+
+    public String getTopic () {
+        return this.topic;
+    }
+
+    public JsonObject getEnvelope () {
+        return this.envelope;
+    }
+
+    /**
+    * get message encoded with wire protocol
+     *
+     * @param protocol wire protocol
+     *
+     * @return encoded message
+    */
+    public Buffer getPayload (WireProtocol protocol) {
+        return this.payloads.computeIfAbsent(protocol.getID(), id -> protocol.encodeResponse(this.envelope));
+    }
+
+    /**
+    * get message encoded as server-sent event (text/event-stream)
+     *
+     * @param epoch epoch of message ids, which changes on every restart of the gateway node
+     *
+     * @return encoded event
+    */
+    public Buffer getEventStreamPayload (String epoch) {
+        if (this.eventStreamPayload == null) {
+            //json encoding doesnt contain line breaks, so data fits into one line
+            this.eventStreamPayload = Buffer.buffer("id: " + epoch + "-" + this.id + "\n"
+                    + "event: " + this.envelope.getString("topic") + "\n"
+                    + "data: " + this.envelope.getJsonObject("data").encode() + "\n\n", "UTF-8");
+        }
+
+        return this.eventStreamPayload;
+    }
+
+}
@@ -0,0 +1,15 @@
+package com.jukusoft.erp.server.push;
+
+/**
+* Client connection, which can receive server push messages (TCP connection, websocket).
+*/
+public interface PushSubscriber {
+
+    /**
+    * send push message to client. Can be called from any thread.
+     *
+     * @param message push message
+    */
+    public void push (PushMessage message);
+
+}
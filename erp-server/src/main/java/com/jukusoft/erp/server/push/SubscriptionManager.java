@@ -0,0 +1,402 @@
+package com.jukusoft.erp.server.push;
+
+import com.jukusoft.erp.lib.message.StatusCode;
+import com.jukusoft.erp.lib.message.request.ApiRequest;
+import com.jukusoft.erp.lib.message.response.ApiResponse;
+import com.jukusoft.erp.lib.push.PushTopics;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+* Manages push subscriptions of all client connections of a gateway node.
+ *
+ * There is only one event bus consumer per topic and gateway node (not one per client),
+ * every publication is relayed to all local subscribers of the topic.
+ * The last publications are kept in a history, so clients can get missed messages after a reconnect (server-sent events).
+*/
+public class SubscriptionManager {
+
+    //event names of subscription requests
+    public static final String SUBSCRIBE_EVENT = "/subscribe";
+    public static final String UNSUBSCRIBE_EVENT = "/unsubscribe";
+
+    //allowed topic names
+    protected static final Pattern TOPIC_PATTERN = Pattern.compile("^[a-zA-Z0-9_\\-]{1,64}$");
+
+    //instance of vert.x
+    protected final Vertx vertx;
+
+    //maximum number of topics per subscriber
+    protected final int maxSubscriptions;
+
+    //subscribers per topic, read without lock for every publication
+    protected final Map<String,Set<PushSubscriber>> subscribers = new ConcurrentHashMap<>();
+
+    //event bus consumer per topic
+    protected final Map<String,MessageConsumer<Object>> consumers = new HashMap<>();
+
+    //last message id at registration of consumer per topic, older messages of this topic could have been missed
+    protected final Map<String,Long> consumerSince = new HashMap<>();
+
+    //topics per subscriber
+    protected final Map<PushSubscriber,Set<String>> topics = new HashMap<>();
+
+    //number of relayed push messages
+    protected long pushedMessages = 0;
+
+    //ids of push messages, epoch changes on every start of gateway node
+    protected final AtomicLong lastMessageID = new AtomicLong(0);
+    protected final String epoch = Long.toHexString(System.currentTimeMillis());
+
+    //last publications of all topics, which have local subscribers
+    protected final Deque<PushMessage> history = new ArrayDeque<>();
+    protected final int historySize;
+
+    //highest id of a message, which was removed from history
+    protected long evictedMessageID = 0;
+
+    /**
+    * default constructor
+     *
+     * @param vertx instance of vert.x
+     * @param maxSubscriptions maximum number of topics per subscriber
+    */
+    public SubscriptionManager (Vertx vertx, int maxSubscriptions) {
+        this(vertx, maxSubscriptions, 0);
+    }
+
+    /**
+    * default constructor
+     *
+     * @param vertx instance of vert.x
+     * @param maxSubscriptions maximum number of topics per subscriber
+     * @param historySize number of last publications, which can be replayed
+    */
+    public SubscriptionManager (Vertx vertx, int maxSubscriptions, int historySize) {
+        if (vertx == null) {
+            throw new NullPointerException("vertx cannot be null.");
+        }
+
+        if (historySize < 0) {
+            throw new IllegalArgumentException("historySize cannot be negative.");
+        }
+
+        this.vertx = vertx;
+        this.maxSubscriptions = maxSubscriptions;
+        this.historySize = historySize;
+    }
+
+    /**
+    * check, if request is a subscription request, which is handled by the gateway itself
+     *
+     * @param event event name
+     *
+     * @return true, if request is a subscription request
+    */
+    public static boolean isSubscriptionRequest (String event) {
+        return SUBSCRIBE_EVENT.equals(event) || UNSUBSCRIBE_EVENT.equals(event);
+    }
+
+    /**
+    * subscribe topic
+     *
+     * @param subscriber subscriber
+     * @param topic name of topic
+     *
+     * @return false, if subscriber has too many subscriptions
+    */
+    public synchronized boolean subscribe (PushSubscriber subscriber, String topic) {
+        Set<String> subscribedTopics = this.topics.computeIfAbsent(subscriber, key -> new HashSet<>());
+
+        if (subscribedTopics.contains(topic)) {
+            return true;
+        }
+
+        if (subscribedTopics.size() >= this.maxSubscriptions) {
+            return false;
+        }
+
+        subscribedTopics.add(topic);
+
+        this.subscribers.computeIfAbsent(topic, key -> new CopyOnWriteArraySet<>()).add(subscriber);
+
+        if (!this.consumers.containsKey(topic)) {
+            //first subscriber of this topic on this gateway node
+            MessageConsumer<Object> consumer = this.vertx.eventBus().consumer(PushTopics.getAddress(topic), message -> this.relay(topic, message.body()));
+            this.consumers.put(topic, consumer);
+            this.consumerSince.put(topic, this.lastMessageID.get());
+        }
+
+        return true;
+    }
+
+    public synchronized void unsubscribe (PushSubscriber subscriber, String topic) {
+        Set<String> subscribedTopics = this.topics.get(subscriber);
+
+        if (subscribedTopics == null || !subscribedTopics.remove(topic)) {
+            return;
+        }
+
+        if (subscribedTopics.isEmpty()) {
+            this.topics.remove(subscriber);
+        }
+
+        Set<PushSubscriber> topicSubscribers = this.subscribers.get(topic);
+        topicSubscribers.remove(subscriber);
+
+        if (topicSubscribers.isEmpty()) {
+            //last subscriber of this topic on this gateway node
+            this.subscribers.remove(topic);
+            this.consumers.remove(topic).unregister();
+            this.consumerSince.remove(topic);
+        }
+    }
+
+    /**
+    * remove all subscriptions of subscriber, has to be called if connection was closed
+     *
+     * @param subscriber subscriber
+    */
+    public synchronized void unsubscribeAll (PushSubscriber subscriber) {
+        for (String topic : this.getTopics(subscriber)) {
+            this.unsubscribe(subscriber, topic);
+        }
+    }
+
+    /**
+    * remove private topics of subscriber, which dont belong to its current session anymore (e.q. after logout or if connection uses another session).
+     * Private topics are resolved only once on subscription, so this has to be called if session of subscriber has changed.
+     *
+     * @param subscriber subscriber
+     * @param sessionID current session id of subscriber
+     * @param userID current user id of subscriber or -1, if user isnt logged in
+    */
+    public synchronized void updatePrivateTopics (PushSubscriber subscriber, String sessionID, long userID) {
+        if (!this.topics.containsKey(subscriber)) {
+            return;
+        }
+
+        for (String topic : this.getTopics(subscriber)) {
+            String name = PushTopics.getPublicName(topic);
+
+            if (name.equals(PushTopics.SESSION) && !topic.equals(PushTopics.getSessionTopic(sessionID))) {
+                this.unsubscribe(subscriber, topic);
+            } else if (name.equals(PushTopics.USER) && (userID == -1 || !topic.equals(PushTopics.getUserTopic(userID)))) {
+                this.unsubscribe(subscriber, topic);
+            }
+        }
+    }
+
+    public synchronized List<String> getTopics (PushSubscriber subscriber) {
+        Set<String> subscribedTopics = this.topics.get(subscriber);
+
+        if (subscribedTopics == null) {
+            return Collections.emptyList();
+        }
+
+        return new ArrayList<>(subscribedTopics);
+    }
+
+    protected void relay (String topic, Object body) {
+        Set<PushSubscriber> topicSubscribers = this.subscribers.get(topic);
+
+        if (topicSubscribers == null) {
+            return;
+        }
+
+        JsonObject data = body instanceof JsonObject ? (JsonObject) body : new JsonObject().put("value", body);
+
+        //encode message only once for all subscribers
+        PushMessage message = new PushMessage(this.lastMessageID.incrementAndGet(), topic, data);
+
+        this.addToHistory(message);
+
+        for (PushSubscriber subscriber : topicSubscribers) {
+            subscriber.push(message);
+        }
+
+        synchronized (this) {
+            this.pushedMessages += topicSubscribers.size();
+        }
+    }
+
+    protected void addToHistory (PushMessage message) {
+        if (this.historySize == 0) {
+            return;
+        }
+
+        synchronized (this.history) {
+            this.history.addLast(message);
+
+            while (this.history.size() > this.historySize) {
+                this.evictedMessageID = Math.max(this.evictedMessageID, this.history.removeFirst().getID());
+            }
+        }
+    }
+
+    /**
+    * get messages of all subscribed topics, which were published after the given message
+     *
+     * @param subscriber subscriber
+     * @param lastMessageID id of last message, which the subscriber has received
+     *
+     * @return missed messages or null, if some messages arent in the history anymore
+    */
+    public List<PushMessage> getMessagesSince (PushSubscriber subscriber, long lastMessageID) {
+        List<String> subscribedTopics = this.getTopics(subscriber);
+        List<PushMessage> messages = new ArrayList<>();
+
+        synchronized (this) {
+            for (String topic : subscribedTopics) {
+                if (this.consumerSince.getOrDefault(topic, 0L) > lastMessageID) {
+                    //gateway node didnt receive publications of this topic for a while
+                    return null;
+                }
+            }
+        }
+
+        synchronized (this.history) {
+            if (lastMessageID < this.evictedMessageID || lastMessageID > this.lastMessageID.get()) {
+                //messages were removed from history or id is from another epoch
+                return null;
+            }
+
+            for (PushMessage message : this.history) {
+                if (message.getID() > lastMessageID && subscribedTopics.contains(message.getTopic())) {
+                    messages.add(message);
+                }
+            }
+        }
+
+        return messages;
+    }
+
+    /**
+    * get epoch of message ids, message ids of other epochs (other gateway node or restart) cannot be replayed
+     *
+     * @return epoch
+    */
+    public String getEpoch () {
+        return this.epoch;
+    }
+
+    /**
+    * handle subscribe / unsubscribe request of client
+     *
+     * @param subscriber client connection
+     * @param req subscription request, data contains "topics" (array) or "topic"
+     *
+     * @return response with all subscribed topics of client
+    */
+    public ApiResponse handleRequest (PushSubscriber subscriber, ApiRequest req) {
+        ApiResponse response = new ApiResponse(req.getMessageID(), req.getExternalID(), req.getSessionID(), req.getEvent());
+        response.setStatusCode(StatusCode.OK);
+
+        List<String> requestedTopics = new ArrayList<>();
+
+        JsonObject data = req.getData();
+
+        if (data.getValue("topics") instanceof JsonArray) {
+            JsonArray array = data.getJsonArray("topics");
+
+            for (int i = 0; i < array.size(); i++) {
+                Object topic = array.getValue(i);
+                requestedTopics.add(topic != null ? topic.toString() : "");
+            }
+        } else if (data.getValue("topic") != null) {
+            requestedTopics.add(data.getValue("topic").toString());
+        }
+
+        if (requestedTopics.isEmpty()) {
+            response.setStatusCode(StatusCode.BAD_REQUEST);
+            return response;
+        }
+
+        for (String name : requestedTopics) {
+            if (!TOPIC_PATTERN.matcher(name).matches()) {
+                response.setStatusCode(StatusCode.BAD_REQUEST);
+                continue;
+            }
+
+            String topic = name;
+
+            //private topics
+            if (name.equals(PushTopics.SESSION)) {
+                if (req.getSessionID() == null || req.getSessionID().isEmpty()) {
+                    //session wasnt written to cache yet, so nothing is published for it
+                    response.setStatusCode(StatusCode.FORBIDDEN);
+                    continue;
+                }
+
+                topic = PushTopics.getSessionTopic(req.getSessionID());
+            } else if (name.equals(PushTopics.USER)) {
+                if (!req.isLoggedIn()) {
+                    response.setStatusCode(StatusCode.FORBIDDEN);
+                    continue;
+                }
+
+                topic = PushTopics.getUserTopic(req.getUserID());
+            }
+
+            if (req.getEvent().equals(SUBSCRIBE_EVENT)) {
+                if (!this.subscribe(subscriber, topic)) {
+                    response.setStatusCode(StatusCode.BAD_REQUEST);
+                }
+            } else {
+                this.unsubscribe(subscriber, topic);
+            }
+        }
+
+        JsonArray topicArray = new JsonArray();
+
+        for (String topic : this.getTopics(subscriber)) {
+            topicArray.add(PushTopics.getPublicName(topic));
+        }
+
+        response.getData().put("topics", topicArray);
+
+        return response;
+    }
+
+    /**
+    * get metrics of push subscriptions
+     *
+     * @return json object with metrics
+    */
+    public synchronized JsonObject getMetrics () {
+        int subscriptions = 0;
+
+        for (Set<String> subscribedTopics : this.topics.values()) {
+            subscriptions += subscribedTopics.size();
+        }
+
+        JsonObject json = new JsonObject();
+        json.put("push_topics", this.consumers.size());
+        json.put("push_subscribers", this.topics.size());
+        json.put("push_subscriptions", subscriptions);
+        json.put("pushed_messages", this.pushedMessages);
+
+        synchronized (this.history) {
+            json.put("push_history", this.history.size());
+        }
+
+        return json;
+    }
+
+}
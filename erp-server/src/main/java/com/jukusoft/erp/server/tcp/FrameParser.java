@@ -0,0 +1,137 @@
+package com.jukusoft.erp.server.tcp;
+
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.parsetools.RecordParser;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+* Splits a TCP byte stream into length-prefixed frames.
+ *
+ * Every frame starts with a 4 byte (big endian) length header, followed by the payload.
+ * TCP can split or merge messages, so frames are reassembled here, independent from how the bytes arrive.
+*/
+public class FrameParser implements Handler<Buffer> {
+
+    //length of frame header (int)
+    public static final int HEADER_LENGTH = 4;
+
+    //record parser which reads header and payload alternately
+    protected final RecordParser parser;
+
+    //maximum allowed payload size
+    protected final int maxFrameSize;
+
+    //handler which is called for every complete frame
+    protected final Handler<Buffer> frameHandler;
+
+    protected Handler<Throwable> exceptionHandler = null;
+
+    //payload size of current frame or -1, if header is expected next
+    protected int frameSize = -1;
+
+    //flag, if stream is corrupt
+    protected boolean failed = false;
+
+    /**
+    * default constructor
+     *
+     * @param maxFrameSize maximum allowed payload size in bytes
+     * @param frameHandler handler which is called for every complete frame
+    */
+    public FrameParser (int maxFrameSize, Handler<Buffer> frameHandler) {
+        if (frameHandler == null) {
+            throw new NullPointerException("frame handler cannot be null.");
+        }
+
+        this.maxFrameSize = maxFrameSize;
+        this.frameHandler = frameHandler;
+        this.parser = RecordParser.newFixed(HEADER_LENGTH, this::handleRecord);
+    }
+
+    /**
+    * set handler which is called, if an invalid frame was received. The stream cannot be recovered after that.
+     *
+     * @param handler exception handler
+    */
+    public FrameParser exceptionHandler (Handler<Throwable> handler) {
+        this.exceptionHandler = handler;
+        return this;
+    }
+
+    @Override
+    public void handle(Buffer buffer) {
+        if (this.failed) {
+            //ignore data of corrupt stream
+            return;
+        }
+
+        this.parser.handle(buffer);
+    }
+
+    protected void handleRecord (Buffer record) {
+        if (this.failed) {
+            return;
+        }
+
+        if (this.frameSize == -1) {
+            //record is an frame header
+            int size = record.getInt(0);
+
+            if (size < 0 || size > this.maxFrameSize) {
+                this.failed = true;
+
+                if (this.exceptionHandler != null) {
+                    this.exceptionHandler.handle(new IllegalStateException("invalide frame size: " + size + " (max frame size: " + this.maxFrameSize + ")."));
+                }
+
+                return;
+            }
+
+            if (size == 0) {
+                //empty frame, parser can stay in header mode
+                this.frameHandler.handle(Buffer.buffer());
+                return;
+            }
+
+            this.frameSize = size;
+            this.parser.fixedSizeMode(size);
+        } else {
+            //record is the payload, next record is a header again
+            this.frameSize = -1;
+            this.parser.fixedSizeMode(HEADER_LENGTH);
+
+            this.frameHandler.handle(record);
+        }
+    }
+
+    /**
+    * encode payload to frame
+     *
+     * @param payload payload
+     *
+     * @return frame with length header
+    */
+    public static Buffer encode (Buffer payload) {
+        return Buffer.buffer(HEADER_LENGTH + payload.length())
+                .appendInt(payload.length())
+                .appendBuffer(payload);
+    }
+
+    /**
+     * encode string to frame
+     *
+     * @param str UTF-8 payload
+     *
+     * @return frame with length header
+     */
+    public static Buffer encode (String str) {
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+
+        return Buffer.buffer(HEADER_LENGTH + bytes.length)
+                .appendInt(bytes.length)
+                .appendBytes(bytes);
+    }
+
+}
@@ -0,0 +1,111 @@
+package com.jukusoft.erp.server.tcp;
+
+import com.jukusoft.erp.lib.logging.ILogging;
+import com.jukusoft.erp.server.config.GatewayConfig;
+import com.jukusoft.erp.server.connection.AbstractConnection;
+import com.jukusoft.erp.server.tcp.protocol.Handshake;
+import com.jukusoft.erp.server.tcp.protocol.JsonWireProtocol;
+import com.jukusoft.erp.server.tcp.protocol.WireProtocol;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.net.NetSocket;
+import io.vertx.core.net.SocketAddress;
+
+/**
+* State of a single TCP client connection.
+ *
+ * The byte stream is split into length-prefixed frames, every frame is a request (see {@link AbstractConnection}).
+ * The first frame can be a {@link Handshake} to select the wire protocol of the connection.
+*/
+public class TcpConnection extends AbstractConnection {
+
+    //network socket
+    protected final NetSocket socket;
+
+    //logger
+    protected final ILogging logger;
+
+    //flag, if no frame was received yet
+    protected boolean firstFrame = true;
+
+    /**
+    * default constructor
+     *
+     * @param socket network socket
+     * @param config gateway configuration
+     * @param logger logger
+    */
+    public TcpConnection (NetSocket socket, GatewayConfig config, ILogging logger) {
+        super(socket, socket, config);
+
+        if (logger == null) {
+            throw new NullPointerException("logger cannot be null.");
+        }
+
+        this.socket = socket;
+        this.logger = logger;
+
+        //split byte stream into frames
+        FrameParser parser = new FrameParser(config.getMaxFrameSize(), this::handleFrame);
+
+        parser.exceptionHandler(e -> {
+            //stream is corrupt, so we cannot find the begin of the next frame anymore
+            this.logger.warn("corrupt_tcp_stream", "close tcp connection, ip: " + this.remoteAddress().host() + ", port: " + this.remoteAddress().port() + ", cause: " + e.getMessage());
+
+            this.close();
+        });
+
+        this.socket.handler(parser);
+
+        this.socket.closeHandler(v -> this.handleClose());
+    }
+
+    @Override
+    protected void handleFrame (Buffer frame) {
+        if (this.firstFrame) {
+            this.firstFrame = false;
+
+            if (Handshake.isHandshake(frame)) {
+                this.negotiateProtocol(Handshake.getProtocolID(frame));
+
+                return;
+            }
+        }
+
+        super.handleFrame(frame);
+    }
+
+    protected void negotiateProtocol (byte protocolID) {
+        WireProtocol protocol = WireProtocol.getByID(protocolID);
+
+        if (protocol == null) {
+            //unknown protocol, client can see in the answer that json is used
+            protocol = JsonWireProtocol.INSTANCE;
+        }
+
+        this.protocol = protocol;
+
+        //acknowledge protocol
+        this.write(Handshake.create(protocol.getID()));
+    }
+
+    @Override
+    protected void writeMessage (Buffer payload) {
+        this.socket.write(FrameParser.encode(payload));
+    }
+
+    @Override
+    protected void doClose () {
+        this.socket.close();
+    }
+
+    @Override
+    public String getTransport () {
+        return "tcp";
+    }
+
+    @Override
+    public SocketAddress remoteAddress () {
+        return this.socket.remoteAddress();
+    }
+
+}
@@ -0,0 +1,91 @@
+package com.jukusoft.erp.server.tcp;
+
+import com.jukusoft.erp.lib.logging.ILogging;
+import com.jukusoft.erp.server.context.GatewayContext;
+import com.jukusoft.erp.server.gateway.RequestPipeline;
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Future;
+import io.vertx.core.net.NetServer;
+import io.vertx.core.net.NetServerOptions;
+
+/**
+* TCP front-end of the gateway.
+ *
+ * Multiple instances of this verticle can be deployed, vert.x distributes the connections of the shared port over all instances (round robin),
+ * so every instance handles its connections on its own event loop.
+*/
+public class TcpServerVerticle extends AbstractVerticle {
+
+    //shared state of gateway node
+    protected final GatewayContext context;
+
+    protected final ILogging logger;
+
+    //vert.x network server
+    protected NetServer netServer = null;
+
+    //request pipeline, which is shared with websocket connections
+    protected final RequestPipeline pipeline;
+
+    /**
+    * default constructor
+     *
+     * @param context gateway context
+    */
+    public TcpServerVerticle (GatewayContext context) {
+        if (context == null) {
+            throw new NullPointerException("context cannot be null.");
+        }
+
+        this.context = context;
+        this.logger = context.getLogger();
+        this.pipeline = new RequestPipeline(context);
+    }
+
+    @Override
+    public void start (Future<Void> startFuture) {
+        //create options for TCP network server
+        NetServerOptions netServerOptions = new NetServerOptions();
+
+        //set port
+        netServerOptions.setPort(this.context.getConfig().getTcpPort());
+
+        //set socket options (TCP_NODELAY, SO_REUSEPORT, buffer sizes, ...)
+        this.context.getConfig().applySocketOptions(netServerOptions);
+
+        //create new instance of TCP network server
+        this.netServer = this.vertx.createNetServer(netServerOptions);
+
+        //add connection handler
+        this.netServer.connectHandler(socket -> {
+            logger.debug("new_tcp_connection", "ip: " + socket.remoteAddress().host() + ", port: " + socket.remoteAddress().port());
+
+            //create connection, which splits the stream into frames and limits the in-flight requests
+            TcpConnection connection = new TcpConnection(socket, this.context.getConfig(), this.logger);
+
+            //register connection for metrics
+            this.context.getConnections().add(connection);
+
+            //set close handler
+            connection.closeHandler(v -> {
+                this.context.getConnections().remove(connection);
+                this.context.getSubscriptionManager().unsubscribeAll(connection);
+
+                logger.debug("close_tcp_connection", "ip: " + socket.remoteAddress().host() + ", port: " + socket.remoteAddress().port());
+            });
+
+            //set message handler
+            connection.requestHandler(frame -> this.pipeline.handle(connection, frame));
+        });
+
+        //start network server
+        this.netServer.listen(res -> {
+            if (res.succeeded()) {
+                startFuture.complete();
+            } else {
+                startFuture.fail(res.cause());
+            }
+        });
+    }
+
+}
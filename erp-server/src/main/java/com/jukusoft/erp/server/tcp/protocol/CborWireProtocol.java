@@ -0,0 +1,84 @@
+package com.jukusoft.erp.server.tcp.protocol;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+* Compact binary protocol, messages are encoded with CBOR (RFC 7049).
+ *
+ * Integration clients with high volume avoid json text parsing and get smaller payloads.
+ * The message envelope is the same like for {@link JsonWireProtocol}.
+*/
+public class CborWireProtocol implements WireProtocol {
+
+    public static final byte ID = 1;
+
+    public static final CborWireProtocol INSTANCE = new CborWireProtocol();
+
+    //object mapper is thread safe after configuration
+    protected final ObjectMapper mapper;
+
+    protected CborWireProtocol () {
+        this.mapper = new ObjectMapper(new CBORFactory());
+
+        //vert.x json types are written as plain maps and lists
+        SimpleModule module = new SimpleModule();
+        module.addSerializer(JsonObject.class, new JsonSerializer<JsonObject>() {
+            @Override
+            public void serialize(JsonObject value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+                gen.writeObject(value.getMap());
+            }
+        });
+        module.addSerializer(JsonArray.class, new JsonSerializer<JsonArray>() {
+            @Override
+            public void serialize(JsonArray value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+                gen.writeObject(value.getList());
+            }
+        });
+
+        this.mapper.registerModule(module);
+    }
+
+    @Override
+    public byte getID() {
+        return ID;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public JsonObject decodeRequest(Buffer frame) {
+        Map<String,Object> map = null;
+
+        try {
+            map = this.mapper.readValue(frame.getBytes(), Map.class);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("invalide cbor message: " + e.getMessage(), e);
+        }
+
+        if (map == null) {
+            throw new IllegalArgumentException("cbor message isnt a map.");
+        }
+
+        return new JsonObject(map);
+    }
+
+    @Override
+    public Buffer encodeResponse(JsonObject json) {
+        try {
+            return Buffer.buffer(this.mapper.writeValueAsBytes(json.getMap()));
+        } catch (IOException e) {
+            throw new IllegalStateException("cannot encode cbor message: " + e.getMessage(), e);
+        }
+    }
+
+}
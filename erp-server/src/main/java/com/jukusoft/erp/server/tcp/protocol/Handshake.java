@@ -0,0 +1,63 @@
+package com.jukusoft.erp.server.tcp.protocol;
+
+import io.vertx.core.buffer.Buffer;
+
+/**
+* Optional handshake to select the wire protocol of a TCP connection.
+ *
+ * If the first frame of a connection is a handshake frame ("ERP" + protocol ID), the gateway switches to the requested protocol
+ * and answers with a handshake frame containing the protocol which is used from now on (json, if the requested protocol is unknown).
+ * Without handshake the connection uses the json protocol, so both encodings can share the same port.
+*/
+public class Handshake {
+
+    //magic bytes, json messages cannot start with this bytes
+    protected static final byte[] MAGIC = {'E', 'R', 'P'};
+
+    //length of handshake frame (magic + protocol ID)
+    public static final int LENGTH = MAGIC.length + 1;
+
+    /**
+    * check, if frame is an handshake frame
+     *
+     * @param frame payload of frame
+     *
+     * @return true, if frame is an handshake frame
+    */
+    public static boolean isHandshake (Buffer frame) {
+        if (frame.length() != LENGTH) {
+            return false;
+        }
+
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (frame.getByte(i) != MAGIC[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+    * get requested protocol ID of handshake frame
+     *
+     * @param frame handshake frame
+     *
+     * @return protocol ID
+    */
+    public static byte getProtocolID (Buffer frame) {
+        return frame.getByte(MAGIC.length);
+    }
+
+    /**
+    * create handshake frame
+     *
+     * @param protocolID protocol ID
+     *
+     * @return payload of handshake frame
+    */
+    public static Buffer create (byte protocolID) {
+        return Buffer.buffer(LENGTH).appendBytes(MAGIC).appendByte(protocolID);
+    }
+
+}
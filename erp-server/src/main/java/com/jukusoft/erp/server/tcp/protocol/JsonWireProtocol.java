@@ -0,0 +1,53 @@
+package com.jukusoft.erp.server.tcp.protocol;
+
+import com.jukusoft.erp.lib.message.response.ApiResponse;
+import com.jukusoft.erp.server.message.ResponseGenerator;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonObject;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+* default protocol, messages are UTF-8 encoded json strings
+*/
+public class JsonWireProtocol implements WireProtocol {
+
+    public static final byte ID = 0;
+
+    public static final JsonWireProtocol INSTANCE = new JsonWireProtocol();
+
+    @Override
+    public byte getID() {
+        return ID;
+    }
+
+    @Override
+    public JsonObject decodeRequest(Buffer frame) {
+        //convert to string and remove whitespaces at begin and end
+        String str = frame.toString(StandardCharsets.UTF_8).trim();
+
+        //check, if message is an json message
+        if (!str.startsWith("{") || !str.endsWith("}")) {
+            throw new IllegalArgumentException("invalide json message: " + str);
+        }
+
+        try {
+            return new JsonObject(str);
+        } catch (DecodeException e) {
+            throw new IllegalArgumentException("invalide json message: " + str, e);
+        }
+    }
+
+    @Override
+    public Buffer encodeResponse(JsonObject json) {
+        return Buffer.buffer(json.encode());
+    }
+
+    @Override
+    public Buffer encodeResponse(ApiResponse res, String version) {
+        //json data of app server is written without decoding and encoding it again
+        return ResponseGenerator.generateResponseBuffer(res.getEvent(), res.getEncodedData(), res.getSessionID(), res.getExternalID(), res.getStatusCode(), version);
+    }
+
+}
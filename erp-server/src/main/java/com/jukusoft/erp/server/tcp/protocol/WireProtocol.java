@@ -0,0 +1,80 @@
+package com.jukusoft.erp.server.tcp.protocol;
+
+import com.jukusoft.erp.lib.message.response.ApiResponse;
+import com.jukusoft.erp.server.message.ResponseGenerator;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+
+/**
+* Encoding of the messages inside TCP frames.
+ *
+ * All protocols map to the same message envelope (event, messageID, data, ...), so the gateway doesnt depend on the encoding.
+*/
+public interface WireProtocol {
+
+    /**
+    * get unique protocol ID, which is used in the handshake
+     *
+     * @return protocol ID
+    */
+    public byte getID ();
+
+    /**
+    * decode request frame to message envelope
+     *
+     * @param frame payload of frame
+     *
+     * @throws IllegalArgumentException if frame isnt a valide message
+     *
+     * @return message envelope
+    */
+    public JsonObject decodeRequest (Buffer frame);
+
+    /**
+    * encode response envelope
+     *
+     * @param json response envelope
+     *
+     * @return payload of frame
+    */
+    public Buffer encodeResponse (JsonObject json);
+
+    /**
+    * encode response envelope of api response
+     *
+     * @param res api response
+     * @param version version (ETag) of data, which is added to the envelope, or null
+     *
+     * @return payload of frame
+    */
+    public default Buffer encodeResponse (ApiResponse res, String version) {
+        JsonObject json = ResponseGenerator.generateResponseJSON(res.getEvent(), res.getData(), res.getSessionID(), res.getExternalID(), res.getStatusCode());
+
+        if (version != null) {
+            json.put("version", version);
+        }
+
+        return this.encodeResponse(json);
+    }
+
+    /**
+    * get protocol by ID
+     *
+     * @param id protocol ID
+     *
+     * @return instance of protocol or null, if protocol ID is unknown
+    */
+    public static WireProtocol getByID (byte id) {
+        switch (id) {
+            case JsonWireProtocol.ID:
+                return JsonWireProtocol.INSTANCE;
+
+            case CborWireProtocol.ID:
+                return CborWireProtocol.INSTANCE;
+
+            default:
+                return null;
+        }
+    }
+
+}
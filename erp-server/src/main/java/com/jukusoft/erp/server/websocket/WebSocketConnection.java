@@ -0,0 +1,119 @@
+package com.jukusoft.erp.server.websocket;
+
+import com.jukusoft.erp.server.config.GatewayConfig;
+import com.jukusoft.erp.server.connection.AbstractConnection;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.ServerWebSocket;
+import io.vertx.core.net.SocketAddress;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+* State of a single websocket client connection.
+ *
+ * Every websocket message is a request with the same json envelope like TCP frames (see {@link AbstractConnection}),
+ * replies are sent as text messages.
+*/
+public class WebSocketConnection extends AbstractConnection {
+
+    //name of session cookie
+    public static final String SESSION_COOKIE = "sessionid";
+
+    //websocket
+    protected final ServerWebSocket webSocket;
+
+    /**
+    * default constructor
+     *
+     * @param webSocket websocket
+     * @param config gateway configuration
+    */
+    public WebSocketConnection (ServerWebSocket webSocket, GatewayConfig config) {
+        super(webSocket, webSocket, config);
+
+        this.webSocket = webSocket;
+
+        //browsers send the session cookie with the upgrade request, so requests dont have to contain the session id
+        this.sessionID = getSessionIDFromCookie(webSocket.headers().get("Cookie"));
+
+        //text and binary messages are aggregated by vert.x, if they were split into multiple frames
+        this.webSocket.textMessageHandler(message -> this.handleFrame(Buffer.buffer(message)));
+        this.webSocket.binaryMessageHandler(this::handleFrame);
+
+        this.webSocket.closeHandler(v -> this.handleClose());
+    }
+
+    @Override
+    protected void writeMessage (Buffer payload) {
+        this.webSocket.writeTextMessage(payload.toString(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    protected void doClose () {
+        this.webSocket.close();
+    }
+
+    @Override
+    public String getTransport () {
+        return "websocket";
+    }
+
+    @Override
+    public SocketAddress remoteAddress () {
+        return this.webSocket.remoteAddress();
+    }
+
+    /**
+    * get session id from cookie header
+     *
+     * @param cookieHeader value of cookie header
+     *
+     * @return session id or null, if cookie doesnt exists
+    */
+    public static String getSessionIDFromCookie (String cookieHeader) {
+        if (cookieHeader == null) {
+            return null;
+        }
+
+        for (String cookie : cookieHeader.split(";")) {
+            cookie = cookie.trim();
+
+            if (cookie.startsWith(SESSION_COOKIE + "=")) {
+                String value = cookie.substring(SESSION_COOKIE.length() + 1);
+
+                return value.isEmpty() ? null : value;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+    * check, if site of Origin header can open a websocket (browsers send the session cookie also with cross-site upgrade requests)
+     *
+     * @param origin value of Origin header, null for non-browser clients
+     * @param host value of Host header
+     * @param allowedOrigins origins of other sites, which are allowed
+     *
+     * @return true, if origin is allowed
+    */
+    public static boolean isAllowedOrigin (String origin, String host, List<String> allowedOrigins) {
+        if (origin == null) {
+            //only browsers send an Origin header, other clients cannot be misused by another site
+            return true;
+        }
+
+        origin = origin.toLowerCase();
+
+        if (allowedOrigins.contains(origin)) {
+            return true;
+        }
+
+        //same origin (scheme is ignored, because TLS can be terminated by a proxy)
+        int index = origin.indexOf("://");
+
+        return host != null && index != -1 && origin.substring(index + 3).equals(host.toLowerCase());
+    }
+
+}
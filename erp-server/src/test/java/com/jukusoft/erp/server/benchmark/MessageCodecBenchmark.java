@@ -0,0 +1,224 @@
+package com.jukusoft.erp.server.benchmark;
+
+import com.jukusoft.erp.lib.message.StatusCode;
+import com.jukusoft.erp.lib.message.request.ApiRequest;
+import com.jukusoft.erp.lib.message.request.ApiRequestCodec;
+import com.jukusoft.erp.lib.message.response.ApiResponse;
+import com.jukusoft.erp.lib.message.response.ApiResponseCodec;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+* JMH benchmark of the event bus codecs (encode and decode of a message, like between gateway and app server).
+ *
+ * legacy: whole message as json string with length header (old ApiRequestCodec / ApiResponseCodec)
+ * binary: versioned binary layout of {@link ApiRequestCodec} and {@link ApiResponseCodec}
+ *
+ * Run with: mvn -pl erp-server test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args="MessageCodecBenchmark"
+*/
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageCodecBenchmark {
+
+    protected ApiRequestCodec requestCodec = new ApiRequestCodec();
+    protected ApiResponseCodec responseCodec = new ApiResponseCodec();
+
+    protected ApiRequest request = createRequest();
+    protected ApiResponse response = createResponse();
+
+    protected static ApiRequest createRequest () {
+        ApiRequest req = new ApiRequest("/list-menus", new JsonObject().put("menuID", 2).put("filter", "open orders").put("page", 1), 1234567, "ext-42", "6c1f2a0e-5c3e-4b8e-9a3d-2f0e7c1b9a44", true, 10);
+        req.getMeta().put("host", "127.0.0.1").put("port", 54321);
+        req.setPermissions(new ArrayList<>(Arrays.asList("can_see_menus", "can_see_groups", "can_edit_users")));
+
+        return req;
+    }
+
+    protected static ApiResponse createResponse () {
+        ApiResponse res = new ApiResponse(1234567, "ext-42", "6c1f2a0e-5c3e-4b8e-9a3d-2f0e7c1b9a44", "/list-menus");
+
+        JsonArray menus = new JsonArray();
+
+        for (int i = 0; i < 10; i++) {
+            menus.add(new JsonObject().put("id", i).put("title", "Menu " + i).put("url", "/menu/" + i));
+        }
+
+        res.getData().put("menus", menus);
+        res.setETag("5d41402abc4b2a76b9719d911017c592", "menus", "user.10");
+
+        return res;
+    }
+
+    @Benchmark
+    public ApiRequest requestLegacy () {
+        Buffer buffer = Buffer.buffer();
+        encodeLegacy(buffer, this.request);
+
+        return decodeLegacyRequest(0, buffer);
+    }
+
+    @Benchmark
+    public ApiRequest requestBinary () {
+        Buffer buffer = Buffer.buffer();
+        this.requestCodec.encodeToWire(buffer, this.request);
+
+        return this.requestCodec.decodeFromWire(0, buffer);
+    }
+
+    @Benchmark
+    public ApiResponse responseLegacy () {
+        Buffer buffer = Buffer.buffer();
+        encodeLegacy(buffer, this.response);
+
+        return decodeLegacyResponse(0, buffer);
+    }
+
+    @Benchmark
+    public ApiResponse responseBinary () {
+        Buffer buffer = Buffer.buffer();
+        this.responseCodec.encodeToWire(buffer, this.response);
+
+        return this.responseCodec.decodeFromWire(0, buffer);
+    }
+
+    //old ApiRequestCodec
+
+    protected static void encodeLegacy (Buffer buffer, ApiRequest req) {
+        JsonObject json = new JsonObject();
+
+        json.put("event", req.getEvent());
+        json.put("data", req.getData());
+        json.put("ackID", "");
+        json.put("cluster-message-id", req.getMessageID());
+        json.put("ack-id", req.getExternalID());
+        json.put("meta", req.getMeta());
+        json.put("session-id", req.getSessionID());
+        json.put("is-logged-in", req.isLoggedIn());
+        json.put("user-id", req.getUserID());
+
+        JsonArray permArray = new JsonArray();
+
+        for (String permission : req.getPermissions()) {
+            permArray.add(permission);
+        }
+
+        json.put("permissions", permArray);
+
+        String jsonToStr = json.toString();
+        int length = jsonToStr.getBytes().length;
+
+        buffer.appendInt(length);
+        buffer.appendString(jsonToStr);
+    }
+
+    protected static ApiRequest decodeLegacyRequest (int position, Buffer buffer) {
+        int _pos = position;
+        int length = buffer.getInt(_pos);
+
+        String jsonStr = buffer.getString(_pos+=4, _pos+=length);
+        JsonObject json = new JsonObject(jsonStr);
+
+        json.getString("ackID");
+
+        ApiRequest req = new ApiRequest(json.getString("event"), json.getJsonObject("data"), json.getLong("cluster-message-id"), json.getString("ack-id"), json.getString("session-id"), json.getBoolean("is-logged-in"), json.getLong("user-id"));
+
+        JsonObject meta = json.getJsonObject("meta");
+
+        for (String key : meta.fieldNames()) {
+            req.getMeta().put(key, meta.getValue(key));
+        }
+
+        JsonArray permArray = json.getJsonArray("permissions");
+        List<String> permissions = new ArrayList<>();
+
+        for (int i = 0; i < permArray.size(); i++) {
+            permissions.add(permArray.getString(i));
+        }
+
+        req.setPermissions(permissions);
+
+        return req;
+    }
+
+    //old ApiResponseCodec
+
+    protected static void encodeLegacy (Buffer buffer, ApiResponse res) {
+        JsonObject json = new JsonObject();
+
+        json.put("event", res.getEvent());
+        json.put("data", res.getData());
+        json.put("ackID", "");
+        json.put("statusCode", res.getStatusCode());
+        json.put("cluster-message-id", res.getMessageID());
+        json.put("external-id", res.getExternalID());
+        json.put("session-id", res.getSessionID());
+        json.put("type", res.getType());
+
+        if (res.getETag() != null) {
+            json.put("etag", res.getETag());
+
+            JsonArray topics = new JsonArray();
+
+            for (String topic : res.getETagTopics()) {
+                topics.add(topic);
+            }
+
+            json.put("etag-topics", topics);
+        }
+
+        String jsonToStr = json.toString();
+        int length = jsonToStr.getBytes().length;
+
+        buffer.appendInt(length);
+        buffer.appendString(jsonToStr);
+    }
+
+    protected static ApiResponse decodeLegacyResponse (int position, Buffer buffer) {
+        int _pos = position;
+        int length = buffer.getInt(_pos);
+
+        String jsonStr = buffer.getString(_pos+=4, _pos+=length);
+        JsonObject json = new JsonObject(jsonStr);
+
+        ApiResponse res = new ApiResponse(json.getLong("cluster-message-id"), json.getString("external-id"), json.getString("session-id"), json.getString("event"));
+
+        json.getString("ackID");
+
+        res.setData(json.getJsonObject("data"));
+        res.setStatusCode(StatusCode.getByString(json.getString("statusCode")));
+        res.setType(ApiResponse.getTypeByString(json.getString("type")));
+
+        if (json.containsKey("etag")) {
+            JsonArray topics = json.getJsonArray("etag-topics");
+            String[] etagTopics = new String[topics.size()];
+
+            for (int i = 0; i < topics.size(); i++) {
+                etagTopics[i] = topics.getString(i);
+            }
+
+            res.setETag(json.getString("etag"), etagTopics);
+        }
+
+        return res;
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.jukusoft.erp.server.benchmark;
+
+import io.vertx.core.json.JsonObject;
+import com.jukusoft.erp.server.http.RequestParamDecoder;
+import io.vertx.core.MultiMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+* JMH benchmark of the request parsing step of the HTTP front-end.
+ *
+ * legacy: split absolute URI, put parameters into form attributes and copy them into json object (old HttpServerVerticle code)
+ * decoder: single pass over the query string with {@link RequestParamDecoder}
+ *
+ * Run with: mvn -pl erp-server test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args="RequestParamDecoderBenchmark"
+*/
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestParamDecoderBenchmark {
+
+    protected String absoluteURI = "http://localhost:8080/list-menus?ssid=6c1f2a0e-5c3e-4b8e-9a3d-2f0e7c1b9a44&menuID=2&filter=open+orders&page=1";
+    protected String query = absoluteURI.substring(absoluteURI.indexOf('?') + 1);
+
+    @Benchmark
+    public JsonObject legacy () {
+        MultiMap formAttributes = MultiMap.caseInsensitiveMultiMap();
+
+        String[] array = absoluteURI.split("\\?");
+
+        if (array.length > 1) {
+            String[] array1 = array[1].split("&");
+
+            for (String str : array1) {
+                String[] array2 = str.split("=");
+
+                if (array2.length > 1) {
+                    formAttributes.add(array2[0], array2[1]);
+                }
+            }
+        }
+
+        JsonObject data = new JsonObject();
+
+        for (Map.Entry<String,String> entry : formAttributes.entries()) {
+            data.put(entry.getKey(), entry.getValue());
+        }
+
+        return data;
+    }
+
+    @Benchmark
+    public JsonObject decoder () {
+        JsonObject data = new JsonObject();
+        RequestParamDecoder.decodeQuery(query, data);
+
+        return data;
+    }
+
+}
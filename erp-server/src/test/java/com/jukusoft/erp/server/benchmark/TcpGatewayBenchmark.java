@@ -0,0 +1,178 @@
+package com.jukusoft.erp.server.benchmark;
+
+import com.jukusoft.erp.lib.logging.ILogging;
+import com.jukusoft.erp.server.config.GatewayConfig;
+import com.jukusoft.erp.server.tcp.FrameParser;
+import com.jukusoft.erp.server.tcp.TcpConnection;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.net.NetClient;
+import io.vertx.core.net.NetClientOptions;
+import io.vertx.core.net.NetServer;
+import io.vertx.core.net.NetServerOptions;
+import io.vertx.core.net.NetSocket;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+* Latency and throughput benchmark of the TCP front-end with default vert.x socket options (before) and tuned socket options (after).
+ *
+ * Every client connection sends a request frame and waits for the reply before the next request is sent (ping pong),
+ * so the measured latency contains the full network round trip through {@link TcpConnection}.
+ *
+ * Run with: mvn -pl erp-server test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.jukusoft.erp.server.benchmark.TcpGatewayBenchmark
+*/
+public class TcpGatewayBenchmark {
+
+    protected static final int PORT = 2299;
+    protected static final int CONNECTIONS = 16;
+    protected static final int REQUESTS_PER_CONNECTION = 20000;
+    protected static final int WARMUP_REQUESTS_PER_CONNECTION = 5000;
+
+    public static void main (String[] args) throws Exception {
+        run("before (vert.x defaults, NIO)", false, null);
+        run("after (native transport, tuned sockets)", true, new GatewayConfig());
+
+        System.exit(0);
+    }
+
+    protected static void run (String name, boolean nativeTransport, GatewayConfig tunedConfig) throws Exception {
+        Vertx vertx = Vertx.vertx(new VertxOptions().setPreferNativeTransport(nativeTransport));
+
+        GatewayConfig config = tunedConfig != null ? tunedConfig : new GatewayConfig();
+
+        NetServerOptions serverOptions = new NetServerOptions().setPort(PORT);
+        NetClientOptions clientOptions = new NetClientOptions();
+
+        if (tunedConfig != null) {
+            tunedConfig.applySocketOptions(serverOptions);
+            clientOptions.setTcpNoDelay(true).setTcpQuickAck(true);
+        }
+
+        //echo server, which uses the same connection handling like the gateway
+        NetServer server = vertx.createNetServer(serverOptions);
+        server.connectHandler(socket -> {
+            TcpConnection connection = new TcpConnection(socket, config, new NoOpLogger());
+            connection.requestHandler(connection::reply);
+        });
+
+        CompletableFuture<Void> listenFuture = new CompletableFuture<>();
+        server.listen(res -> listenFuture.complete(null));
+        listenFuture.get(10, TimeUnit.SECONDS);
+
+        NetClient client = vertx.createNetClient(clientOptions);
+
+        //warmup
+        measure(client, WARMUP_REQUESTS_PER_CONNECTION);
+
+        long startTime = System.nanoTime();
+        long[] latencies = measure(client, REQUESTS_PER_CONNECTION);
+        long duration = System.nanoTime() - startTime;
+
+        Arrays.sort(latencies);
+
+        System.out.println(name + " (native transport enabled: " + vertx.isNativeTransportEnabled() + ")");
+        System.out.println("    throughput: " + (latencies.length * 1000000000L / duration) + " requests/s");
+        System.out.println("    latency p50: " + (latencies[latencies.length / 2] / 1000) + "us, p99: " + (latencies[(int) (latencies.length * 0.99)] / 1000) + "us, max: " + (latencies[latencies.length - 1] / 1000) + "us");
+
+        CountDownLatch closeLatch = new CountDownLatch(1);
+        vertx.close(res -> closeLatch.countDown());
+        closeLatch.await(10, TimeUnit.SECONDS);
+    }
+
+    protected static long[] measure (NetClient client, int requestsPerConnection) throws Exception {
+        long[] latencies = new long[CONNECTIONS * requestsPerConnection];
+        CountDownLatch latch = new CountDownLatch(CONNECTIONS);
+
+        Buffer request = FrameParser.encode(new JsonObject().put("event", "benchmark").put("data", new JsonObject().put("ssid", "benchmark-session")).encode());
+
+        for (int i = 0; i < CONNECTIONS; i++) {
+            final int offset = i * requestsPerConnection;
+
+            client.connect(PORT, "localhost", res -> {
+                if (!res.succeeded()) {
+                    res.cause().printStackTrace();
+                    System.exit(1);
+                }
+
+                NetSocket socket = res.result();
+
+                int[] counter = new int[1];
+                long[] sendTime = new long[1];
+
+                FrameParser parser = new FrameParser(1024, frame -> {
+                    latencies[offset + counter[0]] = System.nanoTime() - sendTime[0];
+                    counter[0]++;
+
+                    if (counter[0] < requestsPerConnection) {
+                        sendTime[0] = System.nanoTime();
+                        socket.write(request);
+                    } else {
+                        socket.close();
+                        latch.countDown();
+                    }
+                });
+
+                socket.handler(parser);
+
+                sendTime[0] = System.nanoTime();
+                socket.write(request);
+            });
+        }
+
+        latch.await(5, TimeUnit.MINUTES);
+
+        return latencies;
+    }
+
+    //benchmark doesnt log anything, so log output doesnt influence the measured latency
+    public static class NoOpLogger implements ILogging {
+
+        @Override
+        public void debug(long messageID, String tag, String message) {
+            //
+        }
+
+        @Override
+        public void debug(String tag, String message) {
+            //
+        }
+
+        @Override
+        public void info(long messageID, String tag, String message) {
+            //
+        }
+
+        @Override
+        public void info(String tag, String message) {
+            //
+        }
+
+        @Override
+        public void warn(long messageID, String tag, String message) {
+            //
+        }
+
+        @Override
+        public void warn(String tag, String message) {
+            //
+        }
+
+        @Override
+        public void error(long messageID, String tag, String message) {
+            //
+        }
+
+        @Override
+        public void error(String tag, String message) {
+            //
+        }
+
+    }
+
+}
@@ -0,0 +1,242 @@
+package com.jukusoft.erp.server.connection;
+
+import com.jukusoft.erp.lib.session.Session;
+import com.jukusoft.erp.server.config.GatewayConfig;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.net.SocketAddress;
+import io.vertx.core.net.impl.SocketAddressImpl;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.core.streams.WriteStream;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class AbstractConnectionTest {
+
+    @Test
+    public void testBindSession () {
+        DummyConnection connection = new DummyConnection();
+        Session session = new Session("session1");
+
+        //connection hasnt used a session yet
+        assertNull(connection.getSessionID());
+        assertNull(connection.getBoundSession("session1"));
+
+        long stamp = connection.watchSession("session1");
+        connection.bindSession(session, stamp);
+
+        assertEquals("session1", connection.getSessionID());
+        assertSame(session, connection.getBoundSession("session1"));
+
+        //requests with other session ids dont use the bound session
+        assertNull(connection.getBoundSession("session2"));
+    }
+
+    @Test
+    public void testInvalidateSession () {
+        DummyConnection connection = new DummyConnection();
+        Session session = new Session("session1");
+
+        connection.bindSession(session, connection.watchSession("session1"));
+
+        //changes of other sessions dont invalidate the bound session
+        connection.invalidateSession("session2");
+        assertSame(session, connection.getBoundSession("session1"));
+
+        //session was changed in cluster (e.q. login), so it has to be read again
+        connection.invalidateSession("session1");
+        assertNull(connection.getBoundSession("session1"));
+
+        //session can be bound again after it was read
+        connection.bindSession(session, connection.watchSession("session1"));
+        assertSame(session, connection.getBoundSession("session1"));
+    }
+
+    @Test
+    public void testInvalidateSessionWhileReading () {
+        DummyConnection connection = new DummyConnection();
+
+        long stamp = connection.watchSession("session1");
+
+        //session is changed in cluster, while it's read by the gateway
+        connection.invalidateSession("session1");
+
+        //outdated copy isnt bound
+        connection.bindSession(new Session("session1"), stamp);
+        assertNull(connection.getBoundSession("session1"));
+    }
+
+    @Test
+    public void testChangeSession () {
+        DummyConnection connection = new DummyConnection();
+
+        long stamp = connection.watchSession("session1");
+
+        //client sends request with another session id, while first session is read
+        connection.watchSession("session2");
+
+        connection.bindSession(new Session("session1"), stamp);
+        assertNull(connection.getBoundSession("session1"));
+        assertEquals("session2", connection.getSessionID());
+    }
+
+    @Test
+    public void testGuestSession () {
+        DummyConnection connection = new DummyConnection();
+
+        assertFalse(connection.isGuestSession("guest1"));
+
+        connection.setGuestSessionID("guest1");
+
+        assertTrue(connection.isGuestSession("guest1"));
+        assertFalse(connection.isGuestSession("guest2"));
+    }
+
+    @Test
+    public void testQueuedBytes () {
+        DummyStream stream = new DummyStream();
+        DummyConnection connection = new DummyConnection(stream, new GatewayConfig());
+
+        //client reads fast enough
+        connection.write(Buffer.buffer("abc"));
+        assertEquals(0, connection.getQueuedBytes());
+
+        //client doesnt read anymore
+        stream.writeQueueFull = true;
+        connection.write(Buffer.buffer("abc"));
+        connection.write(Buffer.buffer("de"));
+
+        assertTrue(connection.isWriteQueueFull());
+        assertEquals(5, connection.getQueuedBytes());
+        assertEquals(8, (long) connection.getMetrics().getLong("bytes_written"));
+
+        //write queue was drained
+        stream.writeQueueFull = false;
+        stream.drainHandler.handle(null);
+
+        assertFalse(connection.isWriteQueueFull());
+        assertEquals(0, connection.getQueuedBytes());
+    }
+
+    /**
+    * connection, which collects all replies in a list
+    */
+    public static class DummyConnection extends AbstractConnection {
+
+        protected final List<Buffer> messages = new ArrayList<>();
+
+        public DummyConnection () {
+            this(new GatewayConfig());
+        }
+
+        public DummyConnection (GatewayConfig config) {
+            this(new DummyStream(), config);
+        }
+
+        protected DummyConnection (DummyStream stream, GatewayConfig config) {
+            super(stream, stream, config);
+
+            this.requestHandler(frame -> {});
+        }
+
+        /**
+        * receive request frame from client
+         *
+         * @param frame request frame
+        */
+        public void receive (Buffer frame) {
+            this.handleFrame(frame);
+        }
+
+        public List<Buffer> getMessages () {
+            return this.messages;
+        }
+
+        @Override
+        protected void writeMessage(Buffer payload) {
+            this.messages.add(payload);
+        }
+
+        @Override
+        protected void doClose() {
+            this.handleClose();
+        }
+
+        @Override
+        public String getTransport() {
+            return "dummy";
+        }
+
+        @Override
+        public SocketAddress remoteAddress() {
+            return new SocketAddressImpl(1234, "127.0.0.1");
+        }
+
+    }
+
+    protected static class DummyStream implements ReadStream<Buffer>, WriteStream<Buffer> {
+
+        protected boolean writeQueueFull = false;
+        protected Handler<Void> drainHandler = null;
+
+        @Override
+        public DummyStream exceptionHandler(Handler<Throwable> handler) {
+            return this;
+        }
+
+        @Override
+        public DummyStream handler(Handler<Buffer> handler) {
+            return this;
+        }
+
+        @Override
+        public DummyStream pause() {
+            return this;
+        }
+
+        @Override
+        public DummyStream resume() {
+            return this;
+        }
+
+        @Override
+        public DummyStream endHandler(Handler<Void> endHandler) {
+            return this;
+        }
+
+        @Override
+        public DummyStream write(Buffer data) {
+            return this;
+        }
+
+        @Override
+        public void end() {
+        }
+
+        @Override
+        public DummyStream setWriteQueueMaxSize(int maxSize) {
+            return this;
+        }
+
+        @Override
+        public boolean writeQueueFull() {
+            return this.writeQueueFull;
+        }
+
+        @Override
+        public DummyStream drainHandler(Handler<Void> handler) {
+            this.drainHandler = handler;
+            return this;
+        }
+
+    }
+
+}
@@ -0,0 +1,190 @@
+package com.jukusoft.erp.server.gateway;
+
+import com.jukusoft.erp.lib.gateway.ApiGateway;
+import com.jukusoft.erp.lib.logging.ILogging;
+import com.jukusoft.erp.lib.message.StatusCode;
+import com.jukusoft.erp.lib.message.request.ApiRequest;
+import com.jukusoft.erp.lib.message.response.ApiResponse;
+import com.jukusoft.erp.lib.session.SessionManager;
+import com.jukusoft.erp.server.config.GatewayConfig;
+import com.jukusoft.erp.server.context.GatewayContext;
+import com.jukusoft.erp.server.push.SubscriptionManager;
+import com.jukusoft.erp.server.connection.AbstractConnection;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+public class BatchExecutorTest {
+
+    @Test
+    public void testBatchRequest () {
+        List<ApiRequest> sentRequests = new ArrayList<>();
+
+        //gateway answers every request immediately, except unknown events
+        ApiGateway gateway = (request, handler) -> {
+            sentRequests.add(request);
+
+            if (request.getEvent().equals("/unknown")) {
+                handler.responseFailed();
+                return;
+            }
+
+            ApiResponse response = new ApiResponse(request.getMessageID(), request.getExternalID(), request.getSessionID(), request.getEvent());
+            response.setStatusCode(StatusCode.OK);
+            response.getData().put("user", request.getUserID());
+            handler.handleResponse(response);
+        };
+
+        JsonArray requests = new JsonArray();
+        requests.add(new JsonObject().put("event", "/list-menus"));
+        requests.add(new JsonObject().put("event", "/unknown"));
+        requests.add(new JsonObject().put("event", "/batch"));
+
+        ApiRequest batchRequest = new ApiRequest("/batch", new JsonObject().put("requests", requests), 1, "ext", "session", true, 10);
+
+        List<JsonObject> results = new ArrayList<>();
+        new BatchExecutor(new DummyContext(gateway)).execute(batchRequest, (data, statusCode) -> {
+            assertEquals(StatusCode.OK, statusCode);
+            results.add(data);
+        });
+
+        assertEquals(1, results.size());
+
+        //nested batch requests arent sent into the cluster
+        assertEquals(2, sentRequests.size());
+        assertEquals("session", sentRequests.get(0).getSessionID());
+        assertEquals(10, sentRequests.get(0).getUserID());
+
+        JsonArray responses = results.get(0).getJsonArray("responses");
+        assertEquals(3, responses.size());
+        assertEquals(StatusCode.OK.getValue(), (int) responses.getJsonObject(0).getInteger("statusCode"));
+        assertEquals(10, (long) responses.getJsonObject(0).getJsonObject("data").getLong("user"));
+        assertEquals(StatusCode.SERVICE_UNAVAILABLE.getValue(), (int) responses.getJsonObject(1).getInteger("statusCode"));
+        assertEquals(StatusCode.BAD_REQUEST.getValue(), (int) responses.getJsonObject(2).getInteger("statusCode"));
+    }
+
+    @Test
+    public void testInvalideBatchRequest () {
+        List<StatusCode> results = new ArrayList<>();
+
+        BatchExecutor executor = new BatchExecutor(new DummyContext((request, handler) -> handler.responseFailed()));
+
+        executor.execute(new ApiRequest("/batch", new JsonObject(), 1, "ext", "session", false, -1), (data, statusCode) -> results.add(statusCode));
+        executor.execute(new ApiRequest("/batch", new JsonObject().put("requests", "no-json"), 1, "ext", "session", false, -1), (data, statusCode) -> results.add(statusCode));
+
+        assertEquals(2, results.size());
+        assertEquals(StatusCode.BAD_REQUEST, results.get(0));
+        assertEquals(StatusCode.BAD_REQUEST, results.get(1));
+    }
+
+    public static class DummyContext implements GatewayContext {
+
+        protected final ApiGateway gateway;
+        protected final SessionManager sessionManager;
+        protected final boolean sessionCacheEnabled;
+        protected final SubscriptionManager subscriptionManager;
+        protected final GatewayConfig config = new GatewayConfig();
+        protected long lastMessageID = 0;
+
+        protected DummyContext (ApiGateway gateway) {
+            this(gateway, null, false, null);
+        }
+
+        public DummyContext (ApiGateway gateway, SessionManager sessionManager, boolean sessionCacheEnabled, SubscriptionManager subscriptionManager) {
+            this.gateway = gateway;
+            this.sessionManager = sessionManager;
+            this.sessionCacheEnabled = sessionCacheEnabled;
+            this.subscriptionManager = subscriptionManager;
+        }
+
+        @Override
+        public ILogging getLogger() {
+            return new DummyLogger();
+        }
+
+        @Override
+        public GatewayConfig getConfig() {
+            return this.config;
+        }
+
+        @Override
+        public ApiGateway getApiGateway() {
+            return this.gateway;
+        }
+
+        @Override
+        public SessionManager getSessionManager() {
+            return this.sessionManager;
+        }
+
+        @Override
+        public SubscriptionManager getSubscriptionManager() {
+            return this.subscriptionManager;
+        }
+
+        @Override
+        public ETagCache getETagCache() {
+            return null;
+        }
+
+        @Override
+        public Set<AbstractConnection> getConnections() {
+            return new HashSet<>();
+        }
+
+        @Override
+        public boolean isSessionCacheEnabled() {
+            return this.sessionCacheEnabled;
+        }
+
+        @Override
+        public long generateMessageID() {
+            return ++this.lastMessageID;
+        }
+
+    }
+
+    public static class DummyLogger implements ILogging {
+
+        @Override
+        public void debug(long messageID, String tag, String message) {
+        }
+
+        @Override
+        public void debug(String tag, String message) {
+        }
+
+        @Override
+        public void info(long messageID, String tag, String message) {
+        }
+
+        @Override
+        public void info(String tag, String message) {
+        }
+
+        @Override
+        public void warn(long messageID, String tag, String message) {
+        }
+
+        @Override
+        public void warn(String tag, String message) {
+        }
+
+        @Override
+        public void error(long messageID, String tag, String message) {
+        }
+
+        @Override
+        public void error(String tag, String message) {
+        }
+
+    }
+
+}
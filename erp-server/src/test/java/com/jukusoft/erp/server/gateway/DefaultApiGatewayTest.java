@@ -0,0 +1,65 @@
+package com.jukusoft.erp.server.gateway;
+
+import com.jukusoft.erp.lib.message.StatusCode;
+import com.jukusoft.erp.lib.message.request.ApiRequest;
+import com.jukusoft.erp.lib.message.response.ApiResponse;
+import com.jukusoft.erp.lib.route.RouteInfo;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+
+public class DefaultApiGatewayTest {
+
+    protected Vertx vertx = null;
+    protected DefaultApiGateway gateway = null;
+
+    protected RequestCoalescerTest.DummyRouteRegistry routeRegistry = null;
+
+    @Before
+    public void setUp () {
+        this.vertx = Vertx.vertx();
+
+        this.routeRegistry = new RequestCoalescerTest.DummyRouteRegistry("/list-menus");
+        this.routeRegistry.register(new RouteInfo("/list-my-groups", false, true));
+
+        this.gateway = new DefaultApiGateway(this.vertx, new BatchExecutorTest.DummyLogger(), this.routeRegistry, null, null, null, null);
+    }
+
+    @After
+    public void tearDown () {
+        this.vertx.close();
+    }
+
+    @Test
+    public void testRejectRequests () {
+        List<ApiResponse> responses = new CopyOnWriteArrayList<>();
+
+        //no app server registered route, so request is answered without timeout
+        this.gateway.handleRequestAsync(new ApiRequest("/unknown", new JsonObject(), 1, "ext1", "session", false, -1), new RequestCoalescerTest.DummyResponseHandler(responses));
+
+        assertEquals(1, responses.size());
+        assertEquals(StatusCode.NOT_FOUND, responses.get(0).getStatusCode());
+        assertEquals("ext1", responses.get(0).getExternalID());
+
+        //login is required
+        this.gateway.handleRequestAsync(new ApiRequest("/list-my-groups", new JsonObject(), 2, "ext2", "session", false, -1), new RequestCoalescerTest.DummyResponseHandler(responses));
+
+        assertEquals(2, responses.size());
+        assertEquals(StatusCode.FORBIDDEN, responses.get(1).getStatusCode());
+
+        //route was undeployed
+        this.routeRegistry.unregister("/list-menus");
+        this.gateway.handleRequestAsync(new ApiRequest("/list-menus", new JsonObject(), 3, "ext3", "session", false, -1), new RequestCoalescerTest.DummyResponseHandler(responses));
+
+        assertEquals(3, responses.size());
+        assertEquals(StatusCode.NOT_FOUND, responses.get(2).getStatusCode());
+    }
+
+}
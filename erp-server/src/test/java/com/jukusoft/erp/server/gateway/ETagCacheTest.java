@@ -0,0 +1,104 @@
+package com.jukusoft.erp.server.gateway;
+
+import com.jukusoft.erp.lib.message.request.ApiRequest;
+import com.jukusoft.erp.lib.message.response.ApiResponse;
+import com.jukusoft.erp.lib.push.PushTopics;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ETagCacheTest {
+
+    protected Vertx vertx = null;
+
+    @Before
+    public void setUp () {
+        this.vertx = Vertx.vertx();
+    }
+
+    @After
+    public void tearDown () {
+        this.vertx.close();
+    }
+
+    @Test
+    public void testMatches () {
+        assertTrue(ETagCache.matches("\"abc\"", "abc"));
+        assertTrue(ETagCache.matches("W/\"xyz\", \"abc\"", "abc"));
+        assertTrue(ETagCache.matches("abc", "abc"));
+        assertTrue(ETagCache.matches("*", "abc"));
+        assertFalse(ETagCache.matches("\"xyz\"", "abc"));
+        assertFalse(ETagCache.matches(null, "abc"));
+    }
+
+    @Test
+    public void testInvalidation () throws InterruptedException {
+        ETagCache cache = new ETagCache(this.vertx, 100, 60000);
+
+        ApiRequest req = new ApiRequest("/list-menus", new JsonObject().put("menuID", 1).put("ssid", "session1"), 1, "ext", "session1", true, 10);
+
+        ApiResponse res = new ApiResponse(1, "ext", "session1", "/list-menus");
+        res.getData().put("menu", "test");
+        res.setETag(ApiResponse.createETag(res.getData()), PushTopics.MENUS);
+
+        //version is unknown, before app server has answered
+        assertNull(cache.getMatchingETag(req, res.getETag()));
+
+        cache.update(req, res);
+
+        //same request of another session of this user has the same version
+        ApiRequest req1 = new ApiRequest("/list-menus", new JsonObject().put("menuID", 1).put("ssid", "session2"), 2, "ext", "session2", true, 10);
+        assertEquals(res.getETag(), cache.getMatchingETag(req1, "\"" + res.getETag() + "\""));
+        assertNull(cache.getMatchingETag(req1, "other"));
+
+        //other users and parameters have other versions
+        assertNull(cache.getMatchingETag(new ApiRequest("/list-menus", new JsonObject().put("menuID", 1), 3, "ext", "session3", true, 11), res.getETag()));
+        assertNull(cache.getMatchingETag(new ApiRequest("/list-menus", new JsonObject().put("menuID", 2), 4, "ext", "session1", true, 10), res.getETag()));
+
+        //publication of topic invalidates version
+        PushTopics.publish(this.vertx, PushTopics.MENUS, new JsonObject().put("reason", "test"));
+
+        for (int i = 0; i < 100 && cache.getMatchingETag(req, res.getETag()) != null; i++) {
+            Thread.sleep(20);
+        }
+
+        assertNull(cache.getMatchingETag(req, res.getETag()));
+        assertEquals(0, (int) cache.getMetrics().getInteger("etag_entries"));
+    }
+
+    @Test
+    public void testMaxSize () {
+        ETagCache cache = new ETagCache(this.vertx, 2, 60000);
+
+        ApiResponse res = new ApiResponse(1, "ext", "session1", "/list-menus");
+        res.setETag("v1", PushTopics.MENUS);
+
+        ApiRequest req1 = new ApiRequest("/list-menus", new JsonObject().put("menuID", 1), 1, "ext", "session1", true, 10);
+        ApiRequest req2 = new ApiRequest("/list-menus", new JsonObject().put("menuID", 2), 2, "ext", "session1", true, 10);
+        ApiRequest req3 = new ApiRequest("/list-menus", new JsonObject().put("menuID", 3), 3, "ext", "session1", true, 10);
+
+        cache.update(req1, res);
+        cache.update(req2, res);
+
+        //first version was used recently, so second version is removed
+        assertEquals("v1", cache.getMatchingETag(req1, "v1"));
+        cache.update(req3, res);
+
+        assertEquals(2, (int) cache.getMetrics().getInteger("etag_entries"));
+        assertEquals("v1", cache.getMatchingETag(req1, "v1"));
+        assertNull(cache.getMatchingETag(req2, "v1"));
+        assertEquals("v1", cache.getMatchingETag(req3, "v1"));
+
+        //remaining versions still depend on topic
+        cache.invalidate(PushTopics.MENUS);
+        assertEquals(0, (int) cache.getMetrics().getInteger("etag_entries"));
+    }
+
+}
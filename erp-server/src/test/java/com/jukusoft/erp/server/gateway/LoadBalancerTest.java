@@ -0,0 +1,142 @@
+package com.jukusoft.erp.server.gateway;
+
+import com.jukusoft.erp.lib.load.LoadRegistry;
+import com.jukusoft.erp.lib.load.NodeLoad;
+import com.jukusoft.erp.lib.message.request.ApiRequest;
+import com.jukusoft.erp.server.config.GatewayConfig;
+import io.vertx.core.json.JsonObject;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+public class LoadBalancerTest {
+
+    @Test
+    public void testSelectNode () {
+        DummyLoadRegistry registry = new DummyLoadRegistry();
+        registry.nodes.add(new NodeLoad("node1", 10, 0, 0, new HashSet<>(Arrays.asList("/list-menus", "/login"))));
+        registry.nodes.add(new NodeLoad("node2", 2, 5, 0, new HashSet<>(Arrays.asList("/list-menus"))));
+
+        LoadBalancer loadBalancer = new LoadBalancer(registry, new GatewayConfig());
+
+        //load isnt known yet
+        assertNull(loadBalancer.selectNode("/list-menus"));
+
+        loadBalancer.refresh();
+
+        assertNull(loadBalancer.selectNode("/unknown"));
+        assertEquals("node1", loadBalancer.selectNode("/login"));
+
+        //node1 has 10 requests in flight, node2 has 2 requests and 5ms event loop lag
+        assertEquals("node2", loadBalancer.selectNode("/list-menus"));
+
+        //pending requests of this gateway are added to the load of node2
+        for (int i = 0; i < 3; i++) {
+            loadBalancer.selectNode("/list-menus");
+        }
+
+        assertEquals("node2", loadBalancer.selectNode("/list-menus"));
+        assertEquals("node1", loadBalancer.selectNode("/list-menus"));
+
+        loadBalancer.onComplete("node2");
+        assertEquals("node2", loadBalancer.selectNode("/list-menus"));
+
+        //second copy of hedged request is sent to another app server
+        assertEquals("node1", loadBalancer.selectNode("/list-menus", null, "node2"));
+        assertNull(loadBalancer.selectNode("/login", null, "node1"));
+
+        //node2 doesnt consume route anymore
+        loadBalancer.removeNode("node2");
+        assertEquals("node1", loadBalancer.selectNode("/list-menus"));
+
+        //node1 left the cluster
+        registry.nodes.remove(0);
+        loadBalancer.refresh();
+
+        assertEquals("node2", loadBalancer.selectNode("/list-menus"));
+        assertNull(loadBalancer.selectNode("/login"));
+    }
+
+    @Test
+    public void testStickyRouting () {
+        DummyLoadRegistry registry = new DummyLoadRegistry();
+
+        for (int i = 1; i <= 3; i++) {
+            registry.nodes.add(new NodeLoad("node" + i, 0, 0, 0, new HashSet<>(Arrays.asList("/list-menus"))));
+        }
+
+        GatewayConfig config = new GatewayConfig();
+        config.loadFromJSON(new JsonObject().put("sticky_routing", true).put("sticky_load_factor", 1.25));
+
+        LoadBalancer loadBalancer = new LoadBalancer(registry, config);
+        loadBalancer.refresh();
+
+        assertEquals("user.10", loadBalancer.getAffinityKey(new ApiRequest("/list-menus", new JsonObject(), 1, "ext", "session", true, 10)));
+        assertEquals("session", loadBalancer.getAffinityKey(new ApiRequest("/list-menus", new JsonObject(), 1, "ext", "session", false, -1)));
+
+        //requests of a user are sent to the same app server
+        Map<String,String> selectedNodes = new HashMap<>();
+
+        for (int i = 0; i < 100; i++) {
+            String nodeID = loadBalancer.selectNode("/list-menus", "user." + i);
+            loadBalancer.onComplete(nodeID);
+
+            assertEquals(nodeID, loadBalancer.selectNode("/list-menus", "user." + i));
+            loadBalancer.onComplete(nodeID);
+
+            selectedNodes.put("user." + i, nodeID);
+        }
+
+        //users are distributed over all app servers
+        assertEquals(3, new HashSet<>(selectedNodes.values()).size());
+
+        //bounded load: second pending request of the same user is sent to another app server
+        String nodeID = loadBalancer.selectNode("/list-menus", "user.1");
+        assertNotEquals(nodeID, loadBalancer.selectNode("/list-menus", "user.1"));
+
+        //only users of removed app server are moved
+        registry.nodes.remove(2);
+        loadBalancer.refresh();
+
+        for (Map.Entry<String,String> entry : selectedNodes.entrySet()) {
+            if (!entry.getValue().equals("node3")) {
+                String selectedNode = loadBalancer.selectNode("/list-menus", entry.getKey());
+                loadBalancer.onComplete(selectedNode);
+
+                assertEquals(entry.getValue(), selectedNode);
+            }
+        }
+    }
+
+    protected static class DummyLoadRegistry implements LoadRegistry {
+
+        protected final List<NodeLoad> nodes = new ArrayList<>();
+
+        @Override
+        public void publish(NodeLoad load, long ttl) {
+            this.nodes.add(load);
+        }
+
+        @Override
+        public void remove(String nodeID) {
+            this.nodes.removeIf(node -> node.getNodeID().equals(nodeID));
+        }
+
+        @Override
+        public Collection<NodeLoad> listNodes() {
+            return this.nodes;
+        }
+
+    }
+
+}
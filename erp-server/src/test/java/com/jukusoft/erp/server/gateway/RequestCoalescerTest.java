@@ -0,0 +1,130 @@
+package com.jukusoft.erp.server.gateway;
+
+import com.jukusoft.erp.lib.gateway.ResponseHandler;
+import com.jukusoft.erp.lib.message.request.ApiRequest;
+import com.jukusoft.erp.lib.message.response.ApiResponse;
+import com.jukusoft.erp.lib.route.RouteInfo;
+import com.jukusoft.erp.lib.route.RouteRegistry;
+import io.vertx.core.json.JsonObject;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RequestCoalescerTest {
+
+    @Test
+    public void testCoalescing () {
+        RequestCoalescer coalescer = new RequestCoalescer(new DummyRouteRegistry("/list-menus"));
+
+        assertTrue(coalescer.isCoalescable(new ApiRequest("/list-menus", new JsonObject(), 1, "ext", "session", false, -1)));
+        assertFalse(coalescer.isCoalescable(new ApiRequest("/logout", new JsonObject(), 1, "ext", "session", false, -1)));
+
+        //requests, which were sent into the cluster
+        List<ApiRequest> sentRequests = new ArrayList<>();
+        List<ResponseHandler> sentHandlers = new ArrayList<>();
+
+        List<ApiResponse> responses = new ArrayList<>();
+
+        //identical requests of two guests (session id isnt part of the key)
+        coalescer.handleRequest(new ApiRequest("/list-menus", new JsonObject().put("menuID", 1).put("ssid", "session1"), 1, "ext1", "session1", false, -1), new DummyResponseHandler(responses), (req, handler) -> {
+            sentRequests.add(req);
+            sentHandlers.add(handler);
+        });
+        coalescer.handleRequest(new ApiRequest("/list-menus", new JsonObject().put("menuID", 1).put("ssid", "session2"), 2, "ext2", "session2", false, -1), new DummyResponseHandler(responses), (req, handler) -> {
+            sentRequests.add(req);
+            sentHandlers.add(handler);
+        });
+
+        //other data and other user
+        coalescer.handleRequest(new ApiRequest("/list-menus", new JsonObject().put("menuID", 2), 3, "ext3", "session3", false, -1), new DummyResponseHandler(responses), (req, handler) -> {
+            sentRequests.add(req);
+            sentHandlers.add(handler);
+        });
+        coalescer.handleRequest(new ApiRequest("/list-menus", new JsonObject().put("menuID", 1), 4, "ext4", "session4", true, 10), new DummyResponseHandler(responses), (req, handler) -> {
+            sentRequests.add(req);
+            sentHandlers.add(handler);
+        });
+
+        assertEquals(3, sentRequests.size());
+        assertEquals(1, (long) coalescer.getMetrics().getLong("coalesced_requests"));
+
+        //answer first request
+        ApiResponse res = new ApiResponse(1, "ext1", "session1", "/list-menus");
+        res.getData().put("menu", "test");
+        sentHandlers.get(0).handleResponse(res);
+
+        assertEquals(2, responses.size());
+        assertEquals("ext2", responses.get(0).getExternalID());
+        assertEquals("session2", responses.get(0).getSessionID());
+        assertEquals("test", responses.get(0).getData().getString("menu"));
+        assertEquals("ext1", responses.get(1).getExternalID());
+
+        //request isnt in flight anymore
+        coalescer.handleRequest(new ApiRequest("/list-menus", new JsonObject().put("menuID", 1), 5, "ext5", "session5", false, -1), new DummyResponseHandler(responses), (req, handler) -> {
+            sentRequests.add(req);
+            sentHandlers.add(handler);
+        });
+
+        assertEquals(4, sentRequests.size());
+    }
+
+    protected static class DummyRouteRegistry implements RouteRegistry {
+
+        protected final Map<String,RouteInfo> routes = new HashMap<>();
+
+        protected DummyRouteRegistry (String idempotentRoute) {
+            this.register(new RouteInfo(idempotentRoute, true, false));
+        }
+
+        @Override
+        public void register(RouteInfo route) {
+            this.routes.put(route.getEvent(), route);
+        }
+
+        @Override
+        public void unregister(String event) {
+            this.routes.remove(event);
+        }
+
+        @Override
+        public RouteInfo getRoute(String event) {
+            return this.routes.get(event);
+        }
+
+        @Override
+        public boolean isIdempotent(String event) {
+            RouteInfo route = this.routes.get(event);
+
+            return route != null && route.isIdempotent();
+        }
+
+    }
+
+    protected static class DummyResponseHandler implements ResponseHandler {
+
+        protected final List<ApiResponse> responses;
+
+        protected DummyResponseHandler (List<ApiResponse> responses) {
+            this.responses = responses;
+        }
+
+        @Override
+        public void handleResponse(ApiResponse res) {
+            this.responses.add(res);
+        }
+
+        @Override
+        public void responseFailed() {
+            //
+        }
+
+    }
+
+}
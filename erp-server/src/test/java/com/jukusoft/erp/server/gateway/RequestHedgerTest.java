@@ -0,0 +1,105 @@
+package com.jukusoft.erp.server.gateway;
+
+import com.jukusoft.erp.lib.gateway.ResponseHandler;
+import com.jukusoft.erp.lib.message.request.ApiRequest;
+import com.jukusoft.erp.lib.message.response.ApiResponse;
+import com.jukusoft.erp.server.config.GatewayConfig;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RequestHedgerTest {
+
+    @Test
+    public void testHedging () throws InterruptedException {
+        GatewayConfig config = new GatewayConfig();
+        config.loadFromJSON(new JsonObject().put("hedged_requests", true).put("hedge_percentile", 0.95).put("hedge_min_delay", 100).put("hedge_budget", 50));
+
+        RouteMonitor monitor = new RouteMonitor(config);
+        Vertx vertx = Vertx.vertx();
+
+        RequestHedger hedger = new RequestHedger(vertx, new RequestCoalescerTest.DummyRouteRegistry("/list-menus"), monitor, config);
+
+        assertTrue(hedger.isHedgeable(new ApiRequest("/list-menus", new JsonObject(), 1, "ext", "session", false, -1)));
+        assertFalse(hedger.isHedgeable(new ApiRequest("/logout", new JsonObject(), 1, "ext", "session", false, -1)));
+
+        //latencies of route arent known yet
+        assertEquals(-1, hedger.getHedgeDelay("/list-menus"));
+
+        for (int i = 0; i < 32; i++) {
+            monitor.acquire("/list-menus");
+            monitor.onSuccess("/list-menus", 20);
+        }
+
+        assertEquals(20, monitor.getLatencyPercentile("/list-menus", 0.95));
+
+        //hedge delay is at least the minimum delay, so slow test machines dont hedge before the assertions
+        assertEquals(100, hedger.getHedgeDelay("/list-menus"));
+
+        //requests, which were sent into the cluster
+        List<ResponseHandler> sentHandlers = Collections.synchronizedList(new ArrayList<>());
+        List<String> excludedNodes = Collections.synchronizedList(new ArrayList<>());
+        List<ApiResponse> responses = Collections.synchronizedList(new ArrayList<>());
+
+        //first copies are sent to node1, second copies to another app server
+        RequestSender sender = (req, handler, excludedNodeID) -> {
+            sentHandlers.add(handler);
+            excludedNodes.add(excludedNodeID);
+
+            return excludedNodeID == null ? "node1" : "node2";
+        };
+
+        hedger.handleRequest(new ApiRequest("/list-menus", new JsonObject(), 1, "ext1", "session1", false, -1), new RequestCoalescerTest.DummyResponseHandler(responses), sender);
+        hedger.handleRequest(new ApiRequest("/list-menus", new JsonObject(), 2, "ext2", "session2", false, -1), new RequestCoalescerTest.DummyResponseHandler(responses), sender);
+
+        assertEquals(2, sentHandlers.size());
+
+        //second request is answered before hedge delay
+        sentHandlers.get(1).handleResponse(new ApiResponse(2, "ext2", "session2", "/list-menus"));
+
+        Thread.sleep(300);
+
+        assertEquals(3, sentHandlers.size());
+        assertEquals(1, (long) hedger.getMetrics().getLong("hedged_requests"));
+
+        //second copy isnt sent to app server of first copy
+        assertEquals("node1", excludedNodes.get(2));
+
+        //hedge answers first, response of primary request is dropped
+        sentHandlers.get(2).handleResponse(new ApiResponse(1, "ext1", "session1", "/list-menus"));
+        sentHandlers.get(0).handleResponse(new ApiResponse(1, "ext1", "session1", "/list-menus"));
+
+        assertEquals(2, responses.size());
+        assertEquals(1, (long) hedger.getMetrics().getLong("hedge_wins"));
+
+        //budget of 50% is exhausted
+        hedger.handleRequest(new ApiRequest("/list-menus", new JsonObject(), 3, "ext3", "session3", false, -1), new RequestCoalescerTest.DummyResponseHandler(responses), sender);
+
+        Thread.sleep(300);
+
+        assertEquals(4, sentHandlers.size());
+
+        //app server of first copy isnt known, so request isnt hedged
+        hedger.handleRequest(new ApiRequest("/list-menus", new JsonObject(), 4, "ext4", "session4", false, -1), new RequestCoalescerTest.DummyResponseHandler(responses), (req, handler, excludedNodeID) -> {
+            sentHandlers.add(handler);
+
+            return null;
+        });
+
+        Thread.sleep(300);
+
+        assertEquals(5, sentHandlers.size());
+        assertEquals(1, (long) hedger.getMetrics().getLong("hedged_requests"));
+
+        vertx.close();
+    }
+
+}
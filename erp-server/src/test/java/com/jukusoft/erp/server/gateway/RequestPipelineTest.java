@@ -0,0 +1,350 @@
+package com.jukusoft.erp.server.gateway;
+
+import com.jukusoft.erp.lib.gateway.ApiGateway;
+import com.jukusoft.erp.lib.message.StatusCode;
+import com.jukusoft.erp.lib.message.request.ApiRequest;
+import com.jukusoft.erp.lib.message.response.ApiResponse;
+import com.jukusoft.erp.lib.session.ChangeableSessionManager;
+import com.jukusoft.erp.lib.session.Session;
+import com.jukusoft.erp.lib.push.PushTopics;
+import com.jukusoft.erp.server.connection.AbstractConnectionTest;
+import com.jukusoft.erp.server.push.SubscriptionManager;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class RequestPipelineTest {
+
+    protected Vertx vertx = null;
+    protected SubscriptionManager subscriptionManager = null;
+
+    //requests, which were sent into the cluster
+    protected final List<ApiRequest> sentRequests = new ArrayList<>();
+
+    //gateway answers every request immediately
+    protected final ApiGateway gateway = (request, handler) -> {
+        this.sentRequests.add(request);
+
+        ApiResponse response = new ApiResponse(request.getMessageID(), request.getExternalID(), request.getSessionID(), request.getEvent());
+        response.setStatusCode(StatusCode.OK);
+
+        if (request.getEvent().equals("/get-content")) {
+            response.setType(ApiResponse.RESPONSE_TYPE.CONTENT);
+            response.getData().put("content", "test content");
+        }
+
+        handler.handleResponse(response);
+    };
+
+    @Before
+    public void setUp () {
+        this.vertx = Vertx.vertx();
+        this.subscriptionManager = new SubscriptionManager(this.vertx, 4);
+    }
+
+    @After
+    public void tearDown () {
+        this.vertx.close();
+    }
+
+    @Test
+    public void testCachedSession () {
+        DummySessionManager sessionManager = new DummySessionManager();
+
+        Session session = new Session("session1", sessionManager);
+        session.login(10, "admin");
+        session.flush();
+
+        AbstractConnectionTest.DummyConnection connection = this.createConnection(sessionManager, true);
+
+        connection.receive(createFrame("/list-menus", "session1"));
+
+        assertEquals(1, sessionManager.reads);
+        assertEquals("session1", connection.getSessionID());
+
+        //session is bound to connection, so following requests (with or without session id) dont read it again
+        connection.receive(createFrame("/list-menus", "session1"));
+        connection.receive(createFrame("/list-menus", null));
+
+        assertEquals(1, sessionManager.reads);
+        assertEquals(3, this.sentRequests.size());
+
+        for (ApiRequest req : this.sentRequests) {
+            assertEquals("session1", req.getSessionID());
+            assertEquals(10, req.getUserID());
+        }
+
+        //session was changed in cluster (logout)
+        session.logout();
+        session.flush();
+        connection.invalidateSession("session1");
+
+        connection.receive(createFrame("/list-menus", null));
+
+        assertEquals(2, sessionManager.reads);
+        assertEquals(-1, this.sentRequests.get(3).getUserID());
+
+        //every request was answered
+        assertEquals(4, connection.getMessages().size());
+        assertEquals(0, connection.getInFlightRequests());
+    }
+
+    @Test
+    public void testSessionCacheDisabled () {
+        DummySessionManager sessionManager = new DummySessionManager();
+        new Session("session1", sessionManager).flush();
+
+        AbstractConnectionTest.DummyConnection connection = this.createConnection(sessionManager, false);
+
+        connection.receive(createFrame("/list-menus", "session1"));
+        connection.receive(createFrame("/list-menus", null));
+
+        //session manager doesnt support invalidations, so session is read for every request
+        assertEquals(2, sessionManager.reads);
+        assertEquals("session1", this.sentRequests.get(1).getSessionID());
+    }
+
+    @Test
+    public void testUnknownSession () {
+        DummySessionManager sessionManager = new DummySessionManager();
+        AbstractConnectionTest.DummyConnection connection = this.createConnection(sessionManager, true);
+
+        connection.receive(createFrame("/list-menus", "unknown"));
+
+        //request isnt sent into the cluster
+        assertEquals(0, this.sentRequests.size());
+        assertEquals(StatusCode.BAD_REQUEST.getValue(), (int) getReply(connection, 0).getInteger("statusCode"));
+        assertEquals(0, connection.getInFlightRequests());
+    }
+
+    @Test
+    public void testNonStringFields () {
+        AbstractConnectionTest.DummyConnection connection = this.createConnection(new DummySessionManager(), true);
+
+        connection.receive(Buffer.buffer(new JsonObject().put("event", 1).encode()));
+        connection.receive(Buffer.buffer(new JsonObject().put("event", "/list-menus").put("messageID", 1).encode()));
+        connection.receive(Buffer.buffer(new JsonObject().put("event", "/list-menus").put("knownVersion", 1).encode()));
+        connection.receive(Buffer.buffer(new JsonObject().put("event", "/list-menus").put("data", new JsonObject().put("ssid", 1)).encode()));
+
+        //every frame is answered with BAD_REQUEST and releases its slot in the in-flight window
+        assertEquals(0, this.sentRequests.size());
+        assertEquals(4, connection.getMessages().size());
+        assertEquals(0, connection.getInFlightRequests());
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals(StatusCode.BAD_REQUEST.getValue(), (int) getReply(connection, i).getInteger("statusCode"));
+        }
+    }
+
+    @Test
+    public void testGuestSession () {
+        DummySessionManager sessionManager = new DummySessionManager();
+        AbstractConnectionTest.DummyConnection connection = this.createConnection(sessionManager, true);
+
+        //client hasnt sent a session id, so a transient guest session is created
+        connection.receive(createFrame("/list-menus", null));
+
+        assertEquals("guest1", this.sentRequests.get(0).getSessionID());
+        assertFalse(this.sentRequests.get(0).isLoggedIn());
+        assertEquals("guest1", connection.getSessionID());
+
+        //guest session isnt written to cache
+        assertFalse(sessionManager.exists("guest1"));
+
+        //following requests of connection use the same guest session
+        connection.receive(createFrame("/list-menus", null));
+        connection.receive(createFrame("/list-menus", "guest1"));
+
+        assertEquals(1, sessionManager.lastSessionID);
+        assertEquals("guest1", this.sentRequests.get(1).getSessionID());
+        assertEquals("guest1", this.sentRequests.get(2).getSessionID());
+        assertFalse(sessionManager.exists("guest1"));
+
+        //guest session of another connection isnt accepted
+        AbstractConnectionTest.DummyConnection otherConnection = this.createConnection(sessionManager, true);
+        otherConnection.receive(createFrame("/list-menus", "guest1"));
+
+        assertEquals(3, this.sentRequests.size());
+        assertEquals(StatusCode.BAD_REQUEST.getValue(), (int) getReply(otherConnection, 0).getInteger("statusCode"));
+    }
+
+    @Test
+    public void testGuestSessionWithoutCache () {
+        DummySessionManager sessionManager = new DummySessionManager();
+        AbstractConnectionTest.DummyConnection connection = this.createConnection(sessionManager, false);
+
+        connection.receive(createFrame("/list-menus", null));
+        connection.receive(createFrame("/list-menus", null));
+
+        //guest session isnt in cache, so it's created again with the session id of the connection
+        assertEquals(1, sessionManager.lastSessionID);
+        assertEquals("guest1", this.sentRequests.get(1).getSessionID());
+        assertFalse(sessionManager.exists("guest1"));
+
+        //session is written to cache on login, so it can be read afterwards
+        Session session = sessionManager.createGuestSession("guest1");
+        session.login(10, "admin");
+        session.flush();
+
+        connection.receive(createFrame("/list-menus", null));
+
+        assertEquals("guest1", this.sentRequests.get(2).getSessionID());
+        assertEquals(10, this.sentRequests.get(2).getUserID());
+    }
+
+    @Test
+    public void testContentResponse () {
+        AbstractConnectionTest.DummyConnection connection = this.createConnection(new DummySessionManager(), true);
+
+        connection.receive(createFrame("/get-content", null));
+
+        //content is sent in the same envelope as json responses, so client can assign it to the request
+        JsonObject json = getReply(connection, 0);
+        assertEquals("ext", json.getString("messageID"));
+        assertEquals(StatusCode.OK.getValue(), (int) json.getInteger("statusCode"));
+        assertEquals("test content", json.getJsonObject("data").getString("content"));
+    }
+
+    @Test
+    public void testSessionChanged () {
+        DummySessionManager sessionManager = new DummySessionManager();
+        new Session("session1", sessionManager).flush();
+        new Session("session2", sessionManager).flush();
+
+        //app server logs in / out user, invalidation listener of session manager isnt called yet
+        ApiGateway gateway = (request, handler) -> {
+            this.sentRequests.add(request);
+
+            Session session = sessionManager.getSession(request.getSessionID());
+
+            if (request.getEvent().equals("/try-login")) {
+                session.login(10, "admin");
+            } else {
+                session.logout();
+            }
+
+            session.flush();
+
+            ApiResponse response = new ApiResponse(request.getMessageID(), request.getExternalID(), request.getSessionID(), request.getEvent());
+            response.setSessionChanged(true);
+            handler.handleResponse(response);
+        };
+
+        AbstractConnectionTest.DummyConnection connection = this.createConnection(gateway, sessionManager, true);
+        connection.receive(createFrame("/try-login", "session1"));
+
+        //session is read again before the next subscription, because reply has marked it as changed
+        connection.receive(Buffer.buffer(new JsonObject().put("event", SubscriptionManager.SUBSCRIBE_EVENT).put("messageID", "ext").put("data", new JsonObject().put("topics", new JsonArray().add("session").add("user"))).encode()));
+
+        assertEquals(StatusCode.OK.getValue(), (int) getReply(connection, 1).getInteger("statusCode"));
+        assertEquals(2, this.subscriptionManager.getTopics(connection).size());
+
+        //pushes of user arent sent to connection anymore after logout
+        connection.receive(createFrame("/logout", null));
+
+        assertEquals(1, this.subscriptionManager.getTopics(connection).size());
+        assertEquals(PushTopics.getSessionTopic("session1"), this.subscriptionManager.getTopics(connection).get(0));
+
+        //connection uses another session
+        connection.receive(createFrame("/logout", "session2"));
+
+        assertEquals(0, this.subscriptionManager.getTopics(connection).size());
+    }
+
+    protected AbstractConnectionTest.DummyConnection createConnection (DummySessionManager sessionManager, boolean sessionCacheEnabled) {
+        return this.createConnection(this.gateway, sessionManager, sessionCacheEnabled);
+    }
+
+    protected AbstractConnectionTest.DummyConnection createConnection (ApiGateway gateway, DummySessionManager sessionManager, boolean sessionCacheEnabled) {
+        RequestPipeline pipeline = new RequestPipeline(new BatchExecutorTest.DummyContext(gateway, sessionManager, sessionCacheEnabled, this.subscriptionManager));
+
+        AbstractConnectionTest.DummyConnection connection = new AbstractConnectionTest.DummyConnection();
+        connection.requestHandler(frame -> pipeline.handle(connection, frame));
+
+        return connection;
+    }
+
+    protected static Buffer createFrame (String event, String ssid) {
+        JsonObject data = new JsonObject();
+
+        if (ssid != null) {
+            data.put("ssid", ssid);
+        }
+
+        return Buffer.buffer(new JsonObject().put("event", event).put("messageID", "ext").put("data", data).encode());
+    }
+
+    protected static JsonObject getReply (AbstractConnectionTest.DummyConnection connection, int index) {
+        return new JsonObject(connection.getMessages().get(index).toString());
+    }
+
+    /**
+    * in-memory session manager, which counts the reads of sessions
+    */
+    public static class DummySessionManager implements ChangeableSessionManager {
+
+        protected final Map<String,String> sessions = new HashMap<>();
+
+        protected int reads = 0;
+        protected int lastSessionID = 0;
+
+        @Override
+        public Session getSession(String ssid) {
+            this.reads++;
+
+            if (!this.exists(ssid)) {
+                return null;
+            }
+
+            return Session.createFromJSON(new JsonObject(this.sessions.get(ssid)), this);
+        }
+
+        @Override
+        public boolean exists(String ssid) {
+            return this.sessions.containsKey(ssid);
+        }
+
+        @Override
+        public Session generateNewSession() {
+            Session session = this.createGuestSession();
+            session.flush();
+
+            return session;
+        }
+
+        @Override
+        public Session createGuestSession() {
+            return this.createGuestSession("guest" + (++this.lastSessionID));
+        }
+
+        @Override
+        public Session createGuestSession(String ssid) {
+            return new Session(ssid, this);
+        }
+
+        @Override
+        public void addInvalidationListener(Handler<String> handler) {
+            throw new UnsupportedOperationException("dummy session manager doesnt support invalidation listeners.");
+        }
+
+        @Override
+        public void putSession(String ssid, Session session) {
+            this.sessions.put(ssid, session.toJSON().encode());
+        }
+
+    }
+
+}
@@ -0,0 +1,125 @@
+package com.jukusoft.erp.server.gateway;
+
+import com.jukusoft.erp.lib.gateway.ResponseHandler;
+import com.jukusoft.erp.lib.message.request.ApiRequest;
+import com.jukusoft.erp.lib.message.response.ApiResponse;
+import com.jukusoft.erp.lib.stream.ResponseStream;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ResponseStreamTest {
+
+    protected Vertx vertx = null;
+    protected DefaultApiGateway gateway = null;
+
+    @Before
+    public void setUp () {
+        this.vertx = Vertx.vertx();
+        this.gateway = new DefaultApiGateway(this.vertx, new BatchExecutorTest.DummyLogger());
+    }
+
+    @After
+    public void tearDown () {
+        this.vertx.close();
+    }
+
+    @Test
+    public void testStream () throws InterruptedException {
+        //route writes more rows than it can buffer, so it has to wait for drain
+        this.vertx.eventBus().<ApiRequest>consumer("/stream", event -> {
+            ApiRequest req = event.body();
+
+            ResponseStream stream = ResponseStream.open(event, new ApiResponse(req.getMessageID(), req.getExternalID(), req.getSessionID(), req.getEvent()));
+            writeRows(stream, 0, 1000);
+        });
+
+        List<JsonObject> rows = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(1);
+
+        this.gateway.handleRequestAsync(new ApiRequest("/stream", new JsonObject(), 1, "ext", "session", false, -1), new ResponseHandler() {
+            @Override
+            public void handleResponse(ApiResponse response) {
+                assertEquals(ApiResponse.RESPONSE_TYPE.STREAM, response.getType());
+
+                response.getStream().endHandler(v -> latch.countDown());
+                response.getStream().handler(rows::add);
+            }
+
+            @Override
+            public void responseFailed() {
+            }
+        });
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+        assertEquals(1000, rows.size());
+
+        for (int i = 0; i < rows.size(); i++) {
+            assertEquals(i, (int) rows.get(i).getInteger("index"));
+        }
+    }
+
+    @Test
+    public void testCancel () throws InterruptedException {
+        CountDownLatch closed = new CountDownLatch(1);
+
+        //route produces rows until gateway cancels the stream
+        this.vertx.eventBus().<ApiRequest>consumer("/endless", event -> {
+            ApiRequest req = event.body();
+
+            ResponseStream stream = ResponseStream.open(event, new ApiResponse(req.getMessageID(), req.getExternalID(), req.getSessionID(), req.getEvent()));
+            stream.exceptionHandler(e -> closed.countDown());
+            writeRows(stream, 0, Integer.MAX_VALUE);
+        });
+
+        this.gateway.handleRequestAsync(new ApiRequest("/endless", new JsonObject(), 1, "ext", "session", false, -1), new ResponseHandler() {
+            @Override
+            public void handleResponse(ApiResponse response) {
+                ResponseStreamReader reader = (ResponseStreamReader) response.getStream();
+
+                reader.handler(row -> {
+                    if (reader.getRowCount() == 500) {
+                        reader.cancel();
+                    }
+                });
+            }
+
+            @Override
+            public void responseFailed() {
+            }
+        });
+
+        assertTrue(closed.await(10, TimeUnit.SECONDS));
+    }
+
+    protected static void writeRows (ResponseStream stream, int start, int count) {
+        for (int i = start; i < count; i++) {
+            if (stream.isClosed()) {
+                return;
+            }
+
+            if (stream.writeQueueFull()) {
+                final int next = i;
+                stream.drainHandler(v -> writeRows(stream, next, count));
+
+                return;
+            }
+
+            stream.write(new JsonObject().put("index", i));
+        }
+
+        stream.end();
+    }
+
+}
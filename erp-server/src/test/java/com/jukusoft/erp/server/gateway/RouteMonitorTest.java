@@ -0,0 +1,87 @@
+package com.jukusoft.erp.server.gateway;
+
+import com.jukusoft.erp.server.config.GatewayConfig;
+import io.vertx.core.json.JsonObject;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class RouteMonitorTest {
+
+    @Test
+    public void testAdaptiveTimeout () {
+        GatewayConfig config = new GatewayConfig();
+        config.loadFromJSON(new JsonObject().put("route_timeout_min", 100).put("route_timeout_max", 5000).put("route_timeout_multiplier", 4).put("route_timeouts", new JsonObject().put("/export", 30000)));
+
+        RouteMonitor monitor = new RouteMonitor(config);
+
+        //max timeout is used, until enough latencies were observed
+        assertEquals(5000, monitor.acquire("/list-menus"));
+        assertEquals(30000, monitor.acquire("/export"));
+
+        for (int i = 0; i < 100; i++) {
+            monitor.acquire("/list-menus");
+            monitor.onSuccess("/list-menus", 50);
+
+            monitor.acquire("/fast");
+            monitor.onSuccess("/fast", 1);
+
+            monitor.acquire("/export");
+            monitor.onSuccess("/export", 50);
+        }
+
+        //4 * p99, limited by min timeout
+        assertEquals(200, monitor.getTimeout("/list-menus"));
+        assertEquals(100, monitor.getTimeout("/fast"));
+
+        //fixed timeout isnt changed
+        assertEquals(30000, monitor.getTimeout("/export"));
+    }
+
+    @Test
+    public void testCircuitBreaker () {
+        GatewayConfig config = new GatewayConfig();
+        config.loadFromJSON(new JsonObject().put("circuit_breaker_threshold", 3).put("circuit_breaker_reset_timeout", 1000));
+
+        long[] time = new long[] {0};
+
+        RouteMonitor monitor = new RouteMonitor(config) {
+            @Override
+            protected long now () {
+                return time[0];
+            }
+        };
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(5000, monitor.acquire("/list-menus"));
+            monitor.onFailure("/list-menus", 5000);
+        }
+
+        //requests are rejected immediately
+        assertEquals(RouteMonitor.BreakerState.OPEN, monitor.getState("/list-menus"));
+        assertEquals(-1, monitor.acquire("/list-menus"));
+
+        //after reset timeout only one trial request is sent
+        time[0] = 1000;
+        assertEquals(5000, monitor.acquire("/list-menus"));
+        assertEquals(RouteMonitor.BreakerState.HALF_OPEN, monitor.getState("/list-menus"));
+        assertEquals(-1, monitor.acquire("/list-menus"));
+
+        //failed trial opens breaker again
+        monitor.onFailure("/list-menus", 5000);
+        assertEquals(RouteMonitor.BreakerState.OPEN, monitor.getState("/list-menus"));
+
+        time[0] = 2000;
+        monitor.acquire("/list-menus");
+        monitor.onSuccess("/list-menus", 10);
+
+        assertEquals(RouteMonitor.BreakerState.CLOSED, monitor.getState("/list-menus"));
+        assertEquals(5000, monitor.acquire("/list-menus"));
+
+        JsonObject metrics = monitor.getMetrics();
+        assertEquals(0, (int) metrics.getInteger("open_circuit_breakers"));
+        assertEquals(2, (long) metrics.getJsonObject("routes").getJsonObject("/list-menus").getLong("rejected"));
+        assertEquals(2, (long) metrics.getJsonObject("routes").getJsonObject("/list-menus").getLong("breaker_opened"));
+    }
+
+}
@@ -0,0 +1,214 @@
+package com.jukusoft.erp.server.http;
+
+import com.jukusoft.erp.lib.gateway.ApiGateway;
+import com.jukusoft.erp.lib.message.StatusCode;
+import com.jukusoft.erp.lib.message.request.ApiRequest;
+import com.jukusoft.erp.lib.message.response.ApiResponse;
+import com.jukusoft.erp.lib.session.Session;
+import com.jukusoft.erp.server.context.GatewayContext;
+import com.jukusoft.erp.server.gateway.BatchExecutorTest;
+import com.jukusoft.erp.server.gateway.RequestPipelineTest;
+import com.jukusoft.erp.server.push.SubscriptionManager;
+import io.vertx.core.MultiMap;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientRequest;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HttpServerVerticleTest {
+
+    protected static final int PORT = 18089;
+
+    protected Vertx vertx;
+    protected HttpClient client;
+    protected RequestPipelineTest.DummySessionManager sessionManager;
+
+    //requests, which were sent into the cluster
+    protected final List<ApiRequest> sentRequests = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void setUp () throws Exception {
+        this.vertx = Vertx.vertx();
+        this.sessionManager = new RequestPipelineTest.DummySessionManager();
+
+        //gateway answers every request immediately
+        ApiGateway gateway = (request, handler) -> {
+            this.sentRequests.add(request);
+
+            ApiResponse response = new ApiResponse(request.getMessageID(), request.getExternalID(), request.getSessionID(), request.getEvent());
+            response.setStatusCode(StatusCode.OK);
+            handler.handleResponse(response);
+        };
+
+        GatewayContext context = new BatchExecutorTest.DummyContext(gateway, this.sessionManager, false, new SubscriptionManager(this.vertx, 4));
+        context.getConfig().loadFromJSON(new JsonObject().put("http_port", PORT).put("websocket_allowed_origins", new JsonArray().add("https://app.example.com")));
+
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        this.vertx.deployVerticle(new HttpServerVerticle(context), res -> {
+            if (res.succeeded()) {
+                future.complete(null);
+            } else {
+                future.completeExceptionally(res.cause());
+            }
+        });
+        future.get(10, TimeUnit.SECONDS);
+
+        this.client = this.vertx.createHttpClient();
+    }
+
+    @After
+    public void tearDown () throws Exception {
+        //wait until port is released, so next test can bind it
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        this.vertx.close(res -> future.complete(null));
+        future.get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testGuestSession () throws Exception {
+        //requests without session cookie get a transient guest session
+        String cookie1 = this.sendRequest(null);
+        String cookie2 = this.sendRequest(null);
+
+        String ssid1 = this.sentRequests.get(0).getSessionID();
+        String ssid2 = this.sentRequests.get(1).getSessionID();
+
+        assertEquals("sessionid=" + ssid1 + "; HttpOnly; Path=/", cookie1);
+        assertEquals("sessionid=" + ssid2 + "; HttpOnly; Path=/", cookie2);
+        assertFalse(this.sentRequests.get(0).isLoggedIn());
+
+        //guest sessions arent written to cache, so every guest request gets a new session cookie
+        assertNotEquals(ssid1, ssid2);
+        assertFalse(this.sessionManager.exists(ssid1));
+        assertFalse(this.sessionManager.exists(ssid2));
+
+        //cookie of guest session isnt known by the cluster, so a new guest session is created
+        this.sendRequest(ssid1);
+
+        assertNotEquals(ssid1, this.sentRequests.get(2).getSessionID());
+    }
+
+    @Test
+    public void testSessionCookie () throws Exception {
+        Session session = this.sessionManager.createGuestSession("session1");
+        session.login(10, "admin");
+        session.flush();
+
+        String cookie = this.sendRequest("session1");
+
+        assertEquals("sessionid=session1; HttpOnly; Path=/", cookie);
+        assertEquals("session1", this.sentRequests.get(0).getSessionID());
+        assertEquals(10, this.sentRequests.get(0).getUserID());
+    }
+
+    @Test
+    public void testEventStreamSessionTopic () throws Exception {
+        //guest has no stable session id, so nothing would be published on its session topic
+        assertEquals(StatusCode.FORBIDDEN.getValue(), this.openEventStream(null));
+
+        Session session = this.sessionManager.createGuestSession("session1");
+        session.login(10, "admin");
+        session.flush();
+
+        assertEquals(StatusCode.OK.getValue(), this.openEventStream("session1"));
+    }
+
+    /**
+    * open server-sent events stream with topic "session" and close it again
+     *
+     * @param ssid session id of cookie or null
+     *
+     * @return HTTP status code
+    */
+    protected int openEventStream (String ssid) throws Exception {
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+
+        HttpClientRequest request = this.client.get(PORT, "localhost", "/events?topics=session", response -> {
+            future.complete(response.statusCode());
+            response.request().connection().close();
+        });
+
+        if (ssid != null) {
+            request.putHeader("Cookie", "sessionid=" + ssid);
+        }
+
+        request.end();
+
+        return future.get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testWebSocketOrigin () throws Exception {
+        //same origin and clients without Origin header (no browser) can open a websocket
+        assertTrue(this.openWebSocket("http://localhost:" + PORT));
+        assertTrue(this.openWebSocket(null));
+
+        //configured sites are allowed too
+        assertTrue(this.openWebSocket("https://APP.example.com"));
+
+        //other sites cannot use the session cookie of the user
+        assertFalse(this.openWebSocket("http://other-site.com"));
+    }
+
+    /**
+    * open websocket and close it again
+     *
+     * @param origin value of Origin header or null
+     *
+     * @return true, if websocket was accepted
+    */
+    protected boolean openWebSocket (String origin) throws Exception {
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+
+        MultiMap headers = MultiMap.caseInsensitiveMultiMap();
+
+        if (origin != null) {
+            headers.add("Origin", origin);
+        }
+
+        this.client.websocket(PORT, "localhost", "/websocket", headers, webSocket -> {
+            webSocket.close();
+            future.complete(true);
+        }, e -> future.complete(false));
+
+        return future.get(10, TimeUnit.SECONDS);
+    }
+
+    /**
+    * send GET request and wait for response
+     *
+     * @param ssid session id of cookie or null
+     *
+     * @return value of Set-Cookie header
+    */
+    protected String sendRequest (String ssid) throws Exception {
+        CompletableFuture<String> future = new CompletableFuture<>();
+
+        HttpClientRequest request = this.client.get(PORT, "localhost", "/list-menus", response -> {
+            response.bodyHandler(body -> future.complete(response.getHeader("Set-Cookie")));
+        });
+
+        if (ssid != null) {
+            request.putHeader("Cookie", "sessionid=" + ssid);
+        }
+
+        request.end();
+
+        return future.get(10, TimeUnit.SECONDS);
+    }
+
+}
@@ -0,0 +1,43 @@
+package com.jukusoft.erp.server.http;
+
+import io.vertx.core.json.JsonObject;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class RequestParamDecoderTest {
+
+    @Test
+    public void testDecodeQuery () {
+        JsonObject data = new JsonObject();
+        RequestParamDecoder.decodeQuery("ssid=abc&name=open+orders&path=%2Fmenu&empty=&=value&flag", data);
+
+        assertEquals("abc", data.getString("ssid"));
+        assertEquals("open orders", data.getString("name"));
+        assertEquals("/menu", data.getString("path"));
+
+        //parameters without key or value are ignored
+        assertFalse(data.containsKey("empty"));
+        assertFalse(data.containsKey("flag"));
+        assertEquals(3, data.size());
+    }
+
+    @Test
+    public void testDecodeEmptyQuery () {
+        JsonObject data = new JsonObject();
+        RequestParamDecoder.decodeQuery(null, data);
+        RequestParamDecoder.decodeQuery("", data);
+
+        assertEquals(0, data.size());
+    }
+
+    @Test
+    public void testMalformedEscape () {
+        JsonObject data = new JsonObject();
+        RequestParamDecoder.decodeQuery("key=100%", data);
+
+        assertEquals("100%", data.getString("key"));
+    }
+
+}
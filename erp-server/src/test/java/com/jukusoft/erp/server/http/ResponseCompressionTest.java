@@ -0,0 +1,69 @@
+package com.jukusoft.erp.server.http;
+
+import com.jukusoft.erp.server.config.GatewayConfig;
+import io.vertx.core.buffer.Buffer;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ResponseCompressionTest {
+
+    @Test
+    public void testIsCompressible () {
+        ResponseCompression compression = new ResponseCompression(new GatewayConfig());
+
+        //small responses arent compressed
+        assertFalse(compression.isCompressible("application/json", 100));
+        assertTrue(compression.isCompressible("application/json", 4096));
+        assertTrue(compression.isCompressible("text/html; charset=utf-8", 4096));
+
+        //images are already compressed
+        assertFalse(compression.isCompressible("image/png", 4096));
+        assertFalse(compression.isCompressible(null, 4096));
+    }
+
+    @Test
+    public void testAcceptsGzip () {
+        assertTrue(ResponseCompression.acceptsGzip("gzip, deflate, br"));
+        assertTrue(ResponseCompression.acceptsGzip("deflate, gzip;q=0.5"));
+        assertFalse(ResponseCompression.acceptsGzip("gzip;q=0"));
+        assertFalse(ResponseCompression.acceptsGzip("deflate"));
+        assertFalse(ResponseCompression.acceptsGzip(null));
+    }
+
+    @Test
+    public void testPrecompressedCache () throws IOException {
+        ResponseCompression compression = new ResponseCompression(new GatewayConfig());
+
+        Buffer content = Buffer.buffer("<html><body>login form</body></html>");
+        Buffer compressed = compression.getPrecompressed("/login-form", content);
+
+        assertEquals(content, gunzip(compressed));
+
+        //same content is only compressed once
+        assertSame(compressed, compression.getPrecompressed("/login-form", Buffer.buffer("<html><body>login form</body></html>")));
+
+        //changed content is compressed again
+        Buffer changed = Buffer.buffer("<html><body>other form</body></html>");
+        Buffer compressed1 = compression.getPrecompressed("/login-form", changed);
+
+        assertNotSame(compressed, compressed1);
+        assertEquals(changed, gunzip(compressed1));
+        assertEquals(1, compression.getCacheSize());
+    }
+
+    protected Buffer gunzip (Buffer buffer) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(buffer.getBytes()))) {
+            return Buffer.buffer(in.readAllBytes());
+        }
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.jukusoft.erp.server.message;
+
+import com.jukusoft.erp.lib.message.StatusCode;
+import com.jukusoft.erp.lib.message.response.ApiResponse;
+import com.jukusoft.erp.lib.message.response.ApiResponseCodec;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ResponseGeneratorTest {
+
+    @Test
+    public void testPassThrough () {
+        ApiResponse res = new ApiResponse(1, "ext \"1\"", "session", "/list-menus");
+        res.getData().put("menu", "Übersicht").put("id", 2);
+
+        //response, which was received from event bus
+        Buffer buffer = Buffer.buffer();
+        new ApiResponseCodec().encodeToWire(buffer, res);
+        ApiResponse received = new ApiResponseCodec().decodeFromWire(0, buffer);
+
+        JsonObject expected = ResponseGenerator.generateResponseJSON(res.getEvent(), res.getData(), res.getSessionID(), res.getExternalID(), res.getStatusCode()).put("version", "abc");
+        Buffer envelope = ResponseGenerator.generateResponseBuffer(received.getEvent(), received.getEncodedData(), received.getSessionID(), received.getExternalID(), received.getStatusCode(), "abc");
+
+        assertEquals(expected, new JsonObject(envelope));
+
+        //data is still decoded on access
+        assertEquals("Übersicht", received.getData().getString("menu"));
+        assertEquals(StatusCode.OK.getValue(), (int) new JsonObject(envelope).getInteger("statusCode"));
+    }
+
+}
@@ -0,0 +1,154 @@
+package com.jukusoft.erp.server.push;
+
+import com.jukusoft.erp.lib.message.StatusCode;
+import com.jukusoft.erp.lib.message.request.ApiRequest;
+import com.jukusoft.erp.lib.message.response.ApiResponse;
+import com.jukusoft.erp.lib.push.PushTopics;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SubscriptionManagerTest {
+
+    protected Vertx vertx = null;
+
+    @Before
+    public void setUp () {
+        this.vertx = Vertx.vertx();
+    }
+
+    @After
+    public void tearDown () {
+        this.vertx.close();
+    }
+
+    @Test
+    public void testFanOut () throws InterruptedException {
+        SubscriptionManager manager = new SubscriptionManager(this.vertx, 4);
+
+        CountDownLatch latch = new CountDownLatch(2);
+        List<PushMessage> messages = new CopyOnWriteArrayList<>();
+
+        PushSubscriber subscriber1 = message -> {
+            messages.add(message);
+            latch.countDown();
+        };
+        PushSubscriber subscriber2 = message -> {
+            messages.add(message);
+            latch.countDown();
+        };
+
+        assertTrue(manager.subscribe(subscriber1, PushTopics.MENUS));
+        assertTrue(manager.subscribe(subscriber2, PushTopics.MENUS));
+
+        //only one event bus consumer for both subscribers
+        assertEquals(1, (int) manager.getMetrics().getInteger("push_topics"));
+
+        PushTopics.publish(this.vertx, PushTopics.MENUS, new JsonObject().put("reason", "test"));
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+        //both subscribers get the same (only once encoded) message
+        assertEquals(2, messages.size());
+        assertTrue(messages.get(0) == messages.get(1));
+        assertEquals(PushTopics.MENUS, messages.get(0).getEnvelope().getString("topic"));
+
+        manager.unsubscribeAll(subscriber1);
+        manager.unsubscribeAll(subscriber2);
+
+        assertEquals(0, (int) manager.getMetrics().getInteger("push_topics"));
+    }
+
+    @Test
+    public void testPrivateTopics () {
+        SubscriptionManager manager = new SubscriptionManager(this.vertx, 4);
+        PushSubscriber subscriber = message -> {};
+
+        ApiRequest guestRequest = new ApiRequest(SubscriptionManager.SUBSCRIBE_EVENT, new JsonObject().put("topics", new JsonArray().add("session").add("user")), 1, "ext", "abc", false, -1);
+        ApiResponse response = manager.handleRequest(subscriber, guestRequest);
+
+        //guests cannot subscribe user topic
+        assertEquals(StatusCode.FORBIDDEN, response.getStatusCode());
+        assertEquals(1, response.getData().getJsonArray("topics").size());
+        assertEquals(PushTopics.getSessionTopic("abc"), manager.getTopics(subscriber).get(0));
+
+        //session, which isnt written to cache, has no session topic
+        ApiRequest withoutSession = new ApiRequest(SubscriptionManager.SUBSCRIBE_EVENT, new JsonObject().put("topic", "session"), 1, "ext", "", false, -1);
+        assertEquals(StatusCode.FORBIDDEN, manager.handleRequest(subscriber, withoutSession).getStatusCode());
+
+        ApiRequest invalideRequest = new ApiRequest(SubscriptionManager.SUBSCRIBE_EVENT, new JsonObject().put("topic", "user.10"), 1, "ext", "abc", true, 11);
+        assertEquals(StatusCode.BAD_REQUEST, manager.handleRequest(subscriber, invalideRequest).getStatusCode());
+    }
+
+    @Test
+    public void testUpdatePrivateTopics () {
+        SubscriptionManager manager = new SubscriptionManager(this.vertx, 4);
+        PushSubscriber subscriber = message -> {};
+
+        ApiRequest req = new ApiRequest(SubscriptionManager.SUBSCRIBE_EVENT, new JsonObject().put("topics", new JsonArray().add("session").add("user").add("menus")), 1, "ext", "abc", true, 10);
+        manager.handleRequest(subscriber, req);
+
+        //session wasnt changed
+        manager.updatePrivateTopics(subscriber, "abc", 10);
+        assertEquals(3, manager.getTopics(subscriber).size());
+
+        //user has logged out, so messages of user arent pushed anymore
+        manager.updatePrivateTopics(subscriber, "abc", -1);
+        assertEquals(2, manager.getTopics(subscriber).size());
+        assertTrue(manager.getTopics(subscriber).contains(PushTopics.getSessionTopic("abc")));
+
+        //connection uses another session
+        manager.updatePrivateTopics(subscriber, "xyz", -1);
+        assertEquals(1, manager.getTopics(subscriber).size());
+        assertEquals(PushTopics.MENUS, manager.getTopics(subscriber).get(0));
+    }
+
+    @Test
+    public void testHistory () throws InterruptedException {
+        SubscriptionManager manager = new SubscriptionManager(this.vertx, 4, 4);
+
+        CountDownLatch latch = new CountDownLatch(6);
+        List<PushMessage> messages = new CopyOnWriteArrayList<>();
+
+        PushSubscriber subscriber = message -> {
+            messages.add(message);
+            latch.countDown();
+        };
+
+        assertTrue(manager.subscribe(subscriber, PushTopics.MENUS));
+
+        for (int i = 0; i < 6; i++) {
+            PushTopics.publish(this.vertx, PushTopics.MENUS, new JsonObject().put("index", i));
+        }
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+        //last two messages were missed
+        List<PushMessage> missed = manager.getMessagesSince(subscriber, messages.get(3).getID());
+        assertEquals(2, missed.size());
+        assertEquals(5, (int) missed.get(1).getEnvelope().getJsonObject("data").getInteger("index"));
+        assertTrue(missed.get(1).getEventStreamPayload(manager.getEpoch()).toString().startsWith("id: " + manager.getEpoch() + "-" + missed.get(1).getID() + "\n"));
+
+        //first messages arent in history anymore
+        assertNull(manager.getMessagesSince(subscriber, messages.get(0).getID()));
+
+        //topic wasnt received by gateway node before its first subscription, so older messages cannot be replayed
+        PushSubscriber other = message -> {};
+        manager.subscribe(other, PushTopics.getSessionTopic("abc"));
+        assertNull(manager.getMessagesSince(other, messages.get(3).getID()));
+        assertEquals(0, manager.getMessagesSince(other, messages.get(5).getID()).size());
+    }
+
+}
@@ -0,0 +1,63 @@
+package com.jukusoft.erp.server.tcp;
+
+import io.vertx.core.buffer.Buffer;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class FrameParserTest {
+
+    @Test
+    public void testMergedFrames () {
+        List<String> frames = new ArrayList<>();
+        FrameParser parser = new FrameParser(1024, frame -> frames.add(frame.toString(StandardCharsets.UTF_8)));
+
+        //two frames in one TCP packet
+        parser.handle(Buffer.buffer().appendBuffer(FrameParser.encode("{\"event\":\"a\"}")).appendBuffer(FrameParser.encode("{\"event\":\"b\"}")));
+
+        assertEquals(2, frames.size());
+        assertEquals("{\"event\":\"a\"}", frames.get(0));
+        assertEquals("{\"event\":\"b\"}", frames.get(1));
+    }
+
+    @Test
+    public void testSplitFrame () {
+        List<String> frames = new ArrayList<>();
+        FrameParser parser = new FrameParser(1024, frame -> frames.add(frame.toString(StandardCharsets.UTF_8)));
+
+        Buffer frame = FrameParser.encode("{\"event\":\"äöü\"}");
+
+        //deliver frame byte by byte
+        for (int i = 0; i < frame.length(); i++) {
+            parser.handle(frame.getBuffer(i, i + 1));
+        }
+
+        assertEquals(1, frames.size());
+        assertEquals("{\"event\":\"äöü\"}", frames.get(0));
+    }
+
+    @Test
+    public void testFrameTooLarge () {
+        List<Throwable> errors = new ArrayList<>();
+        List<Buffer> frames = new ArrayList<>();
+
+        FrameParser parser = new FrameParser(8, frames::add);
+        parser.exceptionHandler(errors::add);
+
+        parser.handle(FrameParser.encode("{\"event\":\"too-large\"}"));
+
+        //stream is corrupt now, so following frames are ignored
+        parser.handle(FrameParser.encode("{}"));
+
+        assertTrue(frames.isEmpty());
+        assertEquals(1, errors.size());
+        assertNotNull(errors.get(0).getMessage());
+    }
+
+}
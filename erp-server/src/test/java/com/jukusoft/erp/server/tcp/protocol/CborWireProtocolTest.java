@@ -0,0 +1,74 @@
+package com.jukusoft.erp.server.tcp.protocol;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CborWireProtocolTest {
+
+    @Test
+    public void testDecodeRequest () throws Exception {
+        Map<String,Object> data = new HashMap<>();
+        data.put("a", 1);
+        data.put("b", 2);
+
+        Map<String,Object> map = new HashMap<>();
+        map.put("event", "/add_integer");
+        map.put("messageID", "1234");
+        map.put("data", data);
+
+        byte[] bytes = new ObjectMapper(new CBORFactory()).writeValueAsBytes(map);
+
+        JsonObject json = CborWireProtocol.INSTANCE.decodeRequest(Buffer.buffer(bytes));
+
+        assertEquals("/add_integer", json.getString("event"));
+        assertEquals("1234", json.getString("messageID"));
+        assertEquals(2, json.getJsonObject("data").getInteger("b").intValue());
+    }
+
+    @Test
+    public void testEncodeResponse () throws Exception {
+        JsonObject json = new JsonObject()
+                .put("event", "/list-menus")
+                .put("statusCode", 200)
+                .put("data", new JsonObject().put("menu", new JsonArray().add(new JsonObject().put("title", "Home"))));
+
+        Buffer buffer = CborWireProtocol.INSTANCE.encodeResponse(json);
+
+        //CBOR is smaller than json text
+        assertTrue(buffer.length() < json.encode().length());
+
+        @SuppressWarnings("unchecked")
+        Map<String,Object> map = new ObjectMapper(new CBORFactory()).readValue(buffer.getBytes(), Map.class);
+
+        assertEquals(json, new JsonObject(map));
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void testDecodeInvalideRequest () {
+        CborWireProtocol.INSTANCE.decodeRequest(Buffer.buffer("{\"event\":\"test\"}"));
+    }
+
+    @Test
+    public void testHandshake () {
+        Buffer frame = Handshake.create(CborWireProtocol.ID);
+
+        assertTrue(Handshake.isHandshake(frame));
+        assertSame(CborWireProtocol.INSTANCE, WireProtocol.getByID(Handshake.getProtocolID(frame)));
+
+        //json messages are no handshakes
+        assertFalse(Handshake.isHandshake(Buffer.buffer("{  }")));
+    }
+
+}